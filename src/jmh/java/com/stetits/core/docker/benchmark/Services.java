@@ -0,0 +1,40 @@
+package com.stetits.core.docker.benchmark;
+
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.service.StackConfigService;
+import com.stetits.core.docker.storage.ConfigFileWatcher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Wires the services by hand, without starting a Spring context, so the
+ * benchmarks measure the code paths and not the container.
+ */
+final class Services {
+
+    private Services() {
+    }
+
+    static StackConfigService stackConfigService() {
+        try {
+            StackConfigRepository repository = new StackConfigRepository();
+            inject(repository, "configFileWatcher", new ConfigFileWatcher());
+            Method init = StackConfigRepository.class.getDeclaredMethod("init");
+            init.setAccessible(true);
+            init.invoke(repository);
+
+            StackConfigService service = new StackConfigService();
+            inject(service, "stackConfigRepository", repository);
+            return service;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to wire services", e);
+        }
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
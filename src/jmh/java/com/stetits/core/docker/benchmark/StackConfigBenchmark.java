@@ -0,0 +1,90 @@
+package com.stetits.core.docker.benchmark;
+
+import com.stetits.core.docker.model.ImportReport;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.BinaryStackCodec;
+import com.stetits.core.docker.service.StackConfigService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the stack configuration: save, load (cached snapshot and full
+ * decode of stack.bin), selection rendering and selection parsing.
+ * Run with -prof gc (the default jmh.args) to get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackConfigBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int applications;
+
+    @Param({"fr", "be"})
+    public String community;
+
+    private StackConfigService stackConfigService;
+    private StackConfiguration config;
+    private List<String> selections;
+    private ByteBuffer storedBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Must run before the services are loaded: they resolve ~/.core from user.home once
+        Path home = Files.createTempDirectory("core-monitor-jmh");
+        System.setProperty("user.home", home.toString());
+
+        stackConfigService = Services.stackConfigService();
+        config = StackFixtures.generate(community, applications, 42L);
+        selections = StackFixtures.selectionsOf(config);
+        stackConfigService.saveStackConfiguration(config);
+        storedBytes = ByteBuffer.wrap(Files.readAllBytes(home.resolve(".core/stack.bin")));
+    }
+
+    @Benchmark
+    public long saveStackConfiguration() {
+        return stackConfigService.saveStackConfiguration(config).getVersion();
+    }
+
+    @Benchmark
+    public StackConfiguration loadStackConfiguration() {
+        return stackConfigService.loadStackConfiguration();
+    }
+
+    @Benchmark
+    public StackConfiguration decodeStoredConfiguration() {
+        return BinaryStackCodec.decode(storedBytes);
+    }
+
+    @Benchmark
+    public List<String> getSelectionsFromConfig() {
+        return stackConfigService.getSelectionsFromConfig(config);
+    }
+
+    @Benchmark
+    public StackConfiguration parseSelections() {
+        List<ImportReport.LineError> errors = new ArrayList<>();
+        return stackConfigService.parseSelections(community, selections, errors);
+    }
+}
@@ -0,0 +1,86 @@
+package com.stetits.core.docker.benchmark;
+
+import com.stetits.core.docker.model.StackConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic stack configurations shaped like our estates: FR carries the
+ * core and acore platforms plus many regional ones, BE mostly mirrors core
+ * with fewer, larger platforms. Both communities draw archives from the same
+ * pool, as the real FR/BE stacks share tarballs.
+ */
+public final class StackFixtures {
+
+    private static final String[] FR_PLATFORMS = {"core", "acore"};
+    private static final String[] BE_PLATFORMS = {"core"};
+    private static final String[] COMPONENTS = {"ihm", "flux", "batch", "api"};
+    // Relative weight of each component: ihm and flux hold most applications
+    private static final int[] COMPONENT_WEIGHTS = {45, 35, 12, 8};
+    private static final int ARCHIVE_POOL = 64;
+
+    private StackFixtures() {
+    }
+
+    public static StackConfiguration generate(String community, int applications, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean be = "be".equals(community);
+        // BE platforms are fewer and larger
+        int appsPerPlatform = be ? 400 : 120;
+        int platformCount = Math.max(1, (applications + appsPerPlatform - 1) / appsPerPlatform);
+        String[] named = be ? BE_PLATFORMS : FR_PLATFORMS;
+
+        StackConfiguration config = new StackConfiguration();
+        config.setCommunity(be ? "be" : "fr");
+        List<StackConfiguration.Platform> platforms = new ArrayList<>(platformCount);
+        for (int p = 0; p < platformCount; p++) {
+            String name = p < named.length ? named[p] : community + "-platform-" + p;
+            StackConfiguration.Platform platform = new StackConfiguration.Platform(name);
+            for (String component : COMPONENTS) {
+                platform.getComponents().add(new StackConfiguration.Component(component));
+            }
+            platforms.add(platform);
+        }
+
+        for (int a = 0; a < applications; a++) {
+            StackConfiguration.Platform platform = platforms.get(a % platformCount);
+            StackConfiguration.Component component = platform.getComponents().get(pickComponent(random));
+            String version = "1." + random.nextInt(4) + "." + random.nextInt(12);
+            String archive = "/home/lmara/archives/" + "app-" + random.nextInt(ARCHIVE_POOL) + ".tar.gz";
+            component.getApplications().add(new StackConfiguration.Application(component.getName() + "-app-" + a, version, archive));
+        }
+
+        // Drop empty components so small stacks look like real ones
+        for (StackConfiguration.Platform platform : platforms) {
+            platform.getComponents().removeIf(component -> component.getApplications().isEmpty());
+        }
+        config.setPlatforms(platforms);
+        return config;
+    }
+
+    public static List<String> selectionsOf(StackConfiguration config) {
+        List<String> selections = new ArrayList<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    selections.add(platform.getName() + "|" + component.getName() + "|" + app.getName() + "|"
+                            + app.getVersion() + ":" + app.getArchiveFile());
+                }
+            }
+        }
+        return selections;
+    }
+
+    private static int pickComponent(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < COMPONENT_WEIGHTS.length; i++) {
+            roll -= COMPONENT_WEIGHTS[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.stetits.core.docker.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latencies of one operation as seen by one client, in nanoseconds. Each
+ * client thread owns its recorders; they are merged once the run is over.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    long getCount() {
+        return size;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    static LatencyRecorder merge(List<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        merged.samples = new long[Math.max(1, recorders.stream().mapToInt(recorder -> recorder.size).sum())];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.samples, 0, merged.samples, merged.size, recorder.size);
+            merged.size += recorder.size;
+            merged.errors += recorder.errors;
+        }
+        Arrays.sort(merged.samples, 0, merged.size);
+        return merged;
+    }
+
+    /** Percentile in milliseconds (nearest rank), on a merged recorder. */
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return samples[Math.min(size, Math.max(1, rank)) - 1] / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return size == 0 ? 0 : samples[size - 1] / 1_000_000.0;
+    }
+}
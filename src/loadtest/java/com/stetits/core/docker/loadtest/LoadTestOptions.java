@@ -0,0 +1,69 @@
+package com.stetits.core.docker.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line of the load test, as {@code --name=value} arguments
+ * (loadtest.args in the loadtest profile).
+ */
+final class LoadTestOptions {
+
+    // Clients sending requests back to back during each run
+    int concurrency = 16;
+    // Client thread kinds, each scenario is run once per kind: platform, virtual
+    List<String> threads = List.of("platform", "virtual");
+    // Synthetic stack sizes (applications), each scenario is run once per size
+    List<Integer> applications = List.of(100, 2000);
+    // Scenarios to run, all when empty
+    List<String> scenarios = List.of();
+    // Unmeasured round of every scenario before the runs of each stack size, so that they measure compiled code
+    int jitWarmupSeconds = 20;
+    int warmupSeconds = 2;
+    int durationSeconds = 5;
+    // Share of the validations in the mixed scenario, the rest being dashboard reads
+    int writePercent = 20;
+    // Spring profile of the application under test
+    String profile = "prod";
+    Path budgets;
+    Path report = Path.of("target", "loadtest-report.json");
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "threads" -> options.threads = list(value);
+                case "applications" -> options.applications = list(value).stream().map(Integer::valueOf).toList();
+                case "scenarios" -> options.scenarios = list(value);
+                case "jit-warmup" -> options.jitWarmupSeconds = Integer.parseInt(value);
+                case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                case "write-percent" -> options.writePercent = Integer.parseInt(value);
+                case "profile" -> options.profile = value;
+                case "budgets" -> options.budgets = Path.of(value);
+                case "report" -> options.report = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        for (String kind : options.threads) {
+            if (!kind.equals("platform") && !kind.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown thread kind: " + kind);
+            }
+        }
+        if (options.writePercent < 0 || options.writePercent > 100) {
+            throw new IllegalArgumentException("write-percent must be between 0 and 100");
+        }
+        return options;
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::strip).filter(item -> !item.isEmpty()).toList();
+    }
+}
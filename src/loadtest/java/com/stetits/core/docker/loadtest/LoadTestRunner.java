@@ -0,0 +1,342 @@
+package com.stetits.core.docker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stetits.core.docker.CoreMonitorApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP load test of the pages: starts the application on a random port with
+ * an empty ~/.core (the loadtest profile points user.home to target), runs
+ * every scenario for each stack size and client thread kind, writes the
+ * latencies and throughputs as JSON and exits with 1 when a latency budget
+ * (loadtest-budgets.properties, or --budgets) is exceeded or a request failed.
+ */
+public final class LoadTestRunner {
+
+    private static final String[] PLATFORMS = {"core", "acore"};
+    // Round robin, so that every platform gets applications in each component
+    private static final String[] COMPONENTS = {"flux", "ihm", "batch", "api"};
+    private static final int APPS_PER_PLATFORM = 120;
+    private static final String[] PERCENTILES = {"p50", "p99", "p999"};
+    // Hidden field of the conflict page: the version saved by another client
+    private static final Pattern BASE_VERSION = Pattern.compile("name=\"baseVersion\" value=\"(\\d+)\"");
+
+    private final LoadTestOptions options;
+    private final Properties budgets;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private String baseUrl;
+    // Newest version of the default stack seen by the clients: the runner is its only writer
+    private final AtomicLong stackVersion = new AtomicLong();
+
+    private LoadTestRunner(LoadTestOptions options, Properties budgets) {
+        this.options = options;
+        this.budgets = budgets;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        LoadTestRunner runner = new LoadTestRunner(options, loadBudgets(options));
+        // DevTools is on the test classpath: its restart would run this main again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext app = SpringApplication.run(CoreMonitorApplication.class,
+                "--server.port=0",
+                "--spring.profiles.active=" + options.profile,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // No Docker daemon needed: the pages under test do not reach it
+                "--core.monitor.enabled=false",
+                "--core.timeseries.enabled=false");
+        Report report;
+        try {
+            runner.baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            report = runner.run();
+        } finally {
+            app.close();
+        }
+
+        Files.createDirectories(options.report.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.report.toFile(), report);
+        System.out.println("Load test report: " + options.report.toAbsolutePath());
+        report.failures().forEach(failure -> System.out.println("FAILED " + failure));
+        System.exit(report.failures().isEmpty() ? 0 : 1);
+    }
+
+    private Report run() throws Exception {
+        Instant started = Instant.now();
+        List<Result> results = new ArrayList<>();
+        for (int applications : options.applications) {
+            String form = stackForm(applications);
+            // The dashboard and the configuration page then render a stack of this size
+            SaveOutcome seeded;
+            do {
+                seeded = save(form);
+            } while (seeded == SaveOutcome.CONFLICT);
+            if (seeded != SaveOutcome.SAVED) {
+                throw new IllegalStateException("Failed to save the synthetic stack of " + applications + " applications");
+            }
+            Map<String, List<Operation>> scenarios = scenarios(form);
+            scenarios.keySet().removeIf(name -> !options.scenarios.isEmpty() && !options.scenarios.contains(name));
+            warmUp(scenarios);
+            for (Map.Entry<String, List<Operation>> scenario : scenarios.entrySet()) {
+                for (String threads : options.threads) {
+                    results.addAll(run(scenario.getKey(), scenario.getValue(), threads, applications));
+                }
+            }
+        }
+        List<String> failures = new ArrayList<>();
+        for (Result result : results) {
+            failures.addAll(result.failures());
+        }
+        return new Report(started.toString(), options.concurrency, options.durationSeconds, results, failures);
+    }
+
+    private Map<String, List<Operation>> scenarios(String form) {
+        HttpRequest dashboard = get("/");
+        HttpRequest validate = post("/stack-config/validate", form);
+        Map<String, List<Operation>> scenarios = new LinkedHashMap<>();
+        scenarios.put("dashboard", List.of(new Operation("read", 1, dashboard, null)));
+        scenarios.put("settings", List.of(new Operation("read", 1, get("/settings"), null)));
+        scenarios.put("stack-config", List.of(new Operation("read", 1, get("/stack-config"), null)));
+        scenarios.put("confirm", List.of(new Operation("write", 1,
+                post("/stack-config/confirm", form + "&baseVersion=" + stackVersion.get()), null)));
+        scenarios.put("validate", List.of(new Operation("write", 1, validate, form)));
+        // Validations saving the stack while the dashboard reads it
+        scenarios.put("mixed", List.of(
+                new Operation("read", 100 - options.writePercent, dashboard, null),
+                new Operation("write", options.writePercent, validate, form)));
+        return scenarios;
+    }
+
+    /**
+     * Posts the form against the newest version seen, as the configuration
+     * page would. The status tells the outcome: 200 saved, 409 when another
+     * client saved first, whose page gives the version to validate against
+     * next. Only that page is read.
+     */
+    private SaveOutcome save(String form) throws IOException, InterruptedException {
+        long baseVersion = stackVersion.get();
+        HttpResponse<String> response = client.send(post("/stack-config/validate", form + "&baseVersion=" + baseVersion),
+                info -> info.statusCode() == 409
+                        ? HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8)
+                        : HttpResponse.BodySubscribers.replacing(null));
+        if (response.statusCode() == 200) {
+            stackVersion.accumulateAndGet(baseVersion + 1, Math::max);
+            return SaveOutcome.SAVED;
+        }
+        Matcher current = response.statusCode() == 409 ? BASE_VERSION.matcher(response.body()) : null;
+        if (current != null && current.find()) {
+            stackVersion.accumulateAndGet(Long.parseLong(current.group(1)), Math::max);
+            return SaveOutcome.CONFLICT;
+        }
+        return SaveOutcome.FAILED;
+    }
+
+    private List<Result> run(String scenario, List<Operation> operations, String threads, int applications)
+            throws InterruptedException, ExecutionException {
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(options.warmupSeconds).toNanos();
+        long end = measureFrom + Duration.ofSeconds(options.durationSeconds).toNanos();
+        List<Future<LatencyRecorder[]>> clients = new ArrayList<>();
+        try (ExecutorService executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(options.concurrency)) {
+            for (int i = 0; i < options.concurrency; i++) {
+                long seed = i;
+                clients.add(executor.submit(() -> runClient(operations, new SplittableRandom(seed), measureFrom, end)));
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int op = 0; op < operations.size(); op++) {
+            List<LatencyRecorder> recorders = new ArrayList<>();
+            for (Future<LatencyRecorder[]> future : clients) {
+                recorders.add(future.get()[op]);
+            }
+            String name = operations.size() == 1 ? scenario : scenario + "." + operations.get(op).name();
+            results.add(result(name, operations.get(op), threads, applications, LatencyRecorder.merge(recorders)));
+        }
+        return results;
+    }
+
+    // The JIT compiles the request paths of a stack size while the clients go through every scenario, unmeasured
+    private void warmUp(Map<String, List<Operation>> scenarios) throws InterruptedException, ExecutionException {
+        List<Operation> operations = scenarios.values().stream().flatMap(List::stream)
+                .map(operation -> new Operation(operation.name(), 1, operation.request(), operation.saveForm()))
+                .toList();
+        long end = System.nanoTime() + Duration.ofSeconds(options.jitWarmupSeconds).toNanos();
+        List<Future<LatencyRecorder[]>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(options.concurrency)) {
+            for (int i = 0; i < options.concurrency; i++) {
+                long seed = i;
+                clients.add(executor.submit(() -> runClient(operations, new SplittableRandom(seed), end, end)));
+            }
+        }
+        for (Future<LatencyRecorder[]> client : clients) {
+            client.get();
+        }
+    }
+
+    private LatencyRecorder[] runClient(List<Operation> operations, SplittableRandom random, long measureFrom, long end) {
+        LatencyRecorder[] recorders = new LatencyRecorder[operations.size()];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new LatencyRecorder();
+        }
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        long start;
+        while ((start = System.nanoTime()) < end) {
+            int op = pick(operations, random.nextInt(Math.max(1, totalWeight)));
+            Operation operation = operations.get(op);
+            boolean failed;
+            try {
+                failed = operation.saveForm() != null
+                        ? save(operation.saveForm()) == SaveOutcome.FAILED
+                        : client.send(operation.request(), HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (start >= measureFrom) {
+                if (failed) {
+                    recorders[op].error();
+                } else {
+                    recorders[op].record(System.nanoTime() - start);
+                }
+            }
+        }
+        return recorders;
+    }
+
+    private static int pick(List<Operation> operations, int roll) {
+        for (int i = 0; i < operations.size(); i++) {
+            roll -= operations.get(i).weight();
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private Result result(String name, Operation operation, String threads, int applications, LatencyRecorder latencies) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", latencies.percentileMillis(50));
+        percentiles.put("p99", latencies.percentileMillis(99));
+        percentiles.put("p999", latencies.percentileMillis(99.9));
+        percentiles.put("max", latencies.maxMillis());
+
+        Map<String, Double> limits = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        String run = name + " (" + applications + " applications, " + threads + " threads)";
+        for (String percentile : PERCENTILES) {
+            String budget = budgets.getProperty(name + "." + applications + "." + percentile, budgets.getProperty(name + "." + percentile));
+            if (budget != null) {
+                double limit = Double.parseDouble(budget);
+                limits.put(percentile, limit);
+                if (percentiles.get(percentile) > limit) {
+                    failures.add(run + ": " + percentile + " " + percentiles.get(percentile) + " ms over the budget of " + limit + " ms");
+                }
+            }
+        }
+        if (latencies.getErrors() > 0) {
+            failures.add(run + ": " + latencies.getErrors() + " failed requests");
+        }
+        if (operation.weight() > 0 && latencies.getCount() == 0) {
+            failures.add(run + ": no request completed");
+        }
+        double throughput = (double) latencies.getCount() / options.durationSeconds;
+        System.out.printf("%-22s %6d apps %-8s %8.0f req/s  p50 %8.2f  p99 %8.2f  p999 %8.2f ms%n",
+                name, applications, threads, throughput, percentiles.get("p50"), percentiles.get("p99"), percentiles.get("p999"));
+        return new Result(name, operation.request().method() + " " + operation.request().uri().getPath(), threads,
+                options.concurrency, applications, latencies.getCount(), latencies.getErrors(), throughput, percentiles, limits, failures);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String form) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    // Form of the configuration page for a synthetic FR stack, without its base version
+    private static String stackForm(int applications) {
+        int platformCount = Math.max(1, (applications + APPS_PER_PLATFORM - 1) / APPS_PER_PLATFORM);
+        StringBuilder form = new StringBuilder("community=fr&stack=default");
+        for (int a = 0; a < applications; a++) {
+            int p = a % platformCount;
+            String platform = p < PLATFORMS.length ? PLATFORMS[p] : "fr-platform-" + p;
+            String component = COMPONENTS[(a / platformCount) % COMPONENTS.length];
+            String selection = platform + "|" + component + "|" + component + "-app-" + a + "|1." + (a % 4) + "." + (a % 12)
+                    + ":/home/lmara/archives/app-" + (a % 64) + ".tar.gz";
+            form.append("&selections=").append(URLEncoder.encode(selection, StandardCharsets.UTF_8));
+        }
+        return form.toString();
+    }
+
+    private static Properties loadBudgets(LoadTestOptions options) throws IOException {
+        Properties budgets = new Properties();
+        if (options.budgets != null) {
+            try (Reader reader = Files.newBufferedReader(options.budgets)) {
+                budgets.load(reader);
+            }
+        } else {
+            try (InputStream in = LoadTestRunner.class.getResourceAsStream("/loadtest-budgets.properties")) {
+                if (in != null) {
+                    budgets.load(in);
+                }
+            }
+        }
+        return budgets;
+    }
+
+    // saveForm: saves go through save(), the request only names them in the report
+    private record Operation(String name, int weight, HttpRequest request, String saveForm) {
+    }
+
+    private enum SaveOutcome {
+        SAVED, CONFLICT, FAILED
+    }
+
+    record Result(String scenario, String request, String threads, int concurrency, int applications, long requests,
+                  long errors, double throughputPerSecond, Map<String, Double> latencyMillis,
+                  Map<String, Double> budgetMillis, List<String> failures) {
+    }
+
+    record Report(String startedAt, int concurrency, int durationSeconds, List<Result> results, List<String> failures) {
+    }
+}
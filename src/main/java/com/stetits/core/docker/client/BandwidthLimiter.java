@@ -0,0 +1,56 @@
+package com.stetits.core.docker.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the total rate of the uploads sharing it. Each caller reserves the
+ * time slot of its next chunk right after the previous reservation, then
+ * sleeps until that slot starts: concurrent uploads take turns and together
+ * never exceed the rate, whatever their number.
+ */
+public class BandwidthLimiter {
+
+    // Idle time not carried over: at most this much can be sent in a burst after a pause
+    private static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long bytesPerSecond;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextSlotNanos = System.nanoTime();
+
+    /**
+     * @param bytesPerSecond 0 or less for no limit
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public boolean isLimited() {
+        return bytesPerSecond > 0;
+    }
+
+    /** Largest chunk worth reserving at once, so that the rate stays even. */
+    public long chunkSize(long preferred) {
+        return isLimited() ? Math.max(8192, Math.min(preferred, bytesPerSecond / 10)) : preferred;
+    }
+
+    /** Blocks until {@code bytes} may be sent. */
+    public void acquire(long bytes) throws InterruptedException {
+        if (!isLimited()) {
+            return;
+        }
+        long start;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            start = Math.max(nextSlotNanos, now - MAX_BURST_NANOS);
+            nextSlotNanos = start + bytes * 1_000_000_000L / bytesPerSecond;
+        } finally {
+            lock.unlock();
+        }
+        long wait = start - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
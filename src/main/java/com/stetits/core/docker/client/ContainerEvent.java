@@ -0,0 +1,46 @@
+package com.stetits.core.docker.client;
+
+import java.util.Map;
+
+/**
+ * A container event from the daemon's event stream. The attributes carry the
+ * container name and its labels.
+ */
+public class ContainerEvent {
+    private String action;
+    private String containerId;
+    private Map<String, String> attributes = Map.of();
+    private long timeNanos;
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public void setContainerId(String containerId) {
+        this.containerId = containerId;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, String> attributes) {
+        this.attributes = attributes;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public void setTimeNanos(long timeNanos) {
+        this.timeNanos = timeNanos;
+    }
+}
@@ -0,0 +1,34 @@
+package com.stetits.core.docker.client;
+
+import java.time.Instant;
+
+/**
+ * One line of container output, as read from the daemon.
+ */
+public class ContainerLogLine {
+    public static final String STDOUT = "stdout";
+    public static final String STDERR = "stderr";
+
+    private final String stream;
+    private final Instant time;
+    private final String text;
+
+    public ContainerLogLine(String stream, Instant time, String text) {
+        this.stream = stream;
+        this.time = time;
+        this.text = text;
+    }
+
+    public String getStream() {
+        return stream;
+    }
+
+    // Daemon timestamp of the line, null when it could not be parsed
+    public Instant getTime() {
+        return time;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
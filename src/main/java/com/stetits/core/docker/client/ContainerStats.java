@@ -0,0 +1,80 @@
+package com.stetits.core.docker.client;
+
+/**
+ * Resource counters of a running container at one instant. CPU and network
+ * figures are cumulative: rates come from two consecutive samples.
+ */
+public class ContainerStats {
+    private long readAt; // Epoch milliseconds
+    private long cpuTotalUsage; // Nanoseconds of CPU used by the container
+    private long systemCpuUsage; // Nanoseconds of CPU used by the host
+    private int onlineCpus;
+    private long memoryUsage; // Bytes, without the page cache
+    private long memoryLimit;
+    private long networkRxBytes;
+    private long networkTxBytes;
+
+    public long getReadAt() {
+        return readAt;
+    }
+
+    public void setReadAt(long readAt) {
+        this.readAt = readAt;
+    }
+
+    public long getCpuTotalUsage() {
+        return cpuTotalUsage;
+    }
+
+    public void setCpuTotalUsage(long cpuTotalUsage) {
+        this.cpuTotalUsage = cpuTotalUsage;
+    }
+
+    public long getSystemCpuUsage() {
+        return systemCpuUsage;
+    }
+
+    public void setSystemCpuUsage(long systemCpuUsage) {
+        this.systemCpuUsage = systemCpuUsage;
+    }
+
+    public int getOnlineCpus() {
+        return onlineCpus;
+    }
+
+    public void setOnlineCpus(int onlineCpus) {
+        this.onlineCpus = onlineCpus;
+    }
+
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    public void setMemoryUsage(long memoryUsage) {
+        this.memoryUsage = memoryUsage;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public long getNetworkRxBytes() {
+        return networkRxBytes;
+    }
+
+    public void setNetworkRxBytes(long networkRxBytes) {
+        this.networkRxBytes = networkRxBytes;
+    }
+
+    public long getNetworkTxBytes() {
+        return networkTxBytes;
+    }
+
+    public void setNetworkTxBytes(long networkTxBytes) {
+        this.networkTxBytes = networkTxBytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.stetits.core.docker.client;
+
+import java.util.Map;
+
+/**
+ * One entry of the daemon's container list.
+ */
+public class ContainerSummary {
+    private String id;
+    private String name;
+    private String state;
+    private String status;
+    private Map<String, String> labels = Map.of();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    // created, running, paused, restarting, removing, exited or dead
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    // Human readable, e.g. "Up 2 hours"
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(Map<String, String> labels) {
+        this.labels = labels;
+    }
+}
@@ -0,0 +1,62 @@
+package com.stetits.core.docker.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Operations the application needs from a Docker daemon. The default
+ * implementation talks to the Engine API; any daemon stand-in reachable
+ * through {@code core.docker.host} (or another bean) can replace it.
+ */
+public interface DockerClient {
+
+    /** Loads an image archive (docker save format) and returns the loaded image reference. */
+    default String loadImage(Path archive) throws IOException {
+        return loadImage(archive, sent -> {
+        });
+    }
+
+    /** Same as {@link #loadImage(Path)}, reporting the number of bytes sent so far as the upload goes. */
+    String loadImage(Path archive, LongConsumer progress) throws IOException;
+
+    /** Creates the network when it does not exist yet. */
+    void ensureNetwork(String name, Map<String, String> labels) throws IOException;
+
+    /** Removes the container with that name if present, whatever its state. */
+    void removeContainer(String name) throws IOException;
+
+    /** Creates a container and returns its id. */
+    String createContainer(String name, String image, String network, Map<String, String> labels) throws IOException;
+
+    void startContainer(String id) throws IOException;
+
+    /** Lists the containers, whatever their state, carrying every label filter ("key" or "key=value"). */
+    List<ContainerSummary> listContainers(List<String> labelFilters) throws IOException;
+
+    /** Subscribes to the container events matching the label filters; close the stream to stop. */
+    EventStream containerEvents(List<String> labelFilters) throws IOException;
+
+    /**
+     * Follows the output of a container: the last {@code tail} lines (all when
+     * negative) written after {@code since} if set, then new lines as they come.
+     */
+    LogStream containerLogs(String container, int tail, Instant since) throws IOException;
+
+    /** Reads the current resource counters of a running container. */
+    ContainerStats containerStats(String container) throws IOException;
+
+    interface LogStream extends Closeable {
+        /** Blocks until the next line; returns null once the container stops. */
+        ContainerLogLine next() throws IOException;
+    }
+
+    interface EventStream extends Closeable {
+        /** Blocks until the next event; returns null once the daemon ends the stream. */
+        ContainerEvent next() throws IOException;
+    }
+}
@@ -0,0 +1,19 @@
+package com.stetits.core.docker.client;
+
+import java.io.IOException;
+
+public class DockerClientException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public DockerClientException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
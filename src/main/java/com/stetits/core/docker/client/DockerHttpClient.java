@@ -0,0 +1,279 @@
+package com.stetits.core.docker.client;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal HTTP/1.1 client for the Docker Engine API. Each request opens its own
+ * connection (unix socket or TCP) and closes it with the response, which keeps
+ * streaming endpoints (events, logs, image load) independent of each other.
+ */
+public class DockerHttpClient {
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        // Writes the request body straight to the connection, which allows FileChannel.transferTo
+        void writeTo(SocketChannel channel) throws IOException;
+    }
+
+    private final SocketAddress address;
+    private final StandardProtocolFamily family;
+    private final String hostHeader;
+
+    /**
+     * @param host {@code unix:///var/run/docker.sock}, {@code tcp://host:port} or {@code http://host:port}
+     */
+    public DockerHttpClient(String host) {
+        URI uri = URI.create(host);
+        if ("unix".equals(uri.getScheme())) {
+            this.address = UnixDomainSocketAddress.of(Path.of(uri.getPath()));
+            this.family = StandardProtocolFamily.UNIX;
+            this.hostHeader = "localhost";
+        } else if ("tcp".equals(uri.getScheme()) || "http".equals(uri.getScheme())) {
+            int port = uri.getPort() > 0 ? uri.getPort() : 2375;
+            this.address = new InetSocketAddress(uri.getHost(), port);
+            this.family = null;
+            this.hostHeader = uri.getHost() + ":" + port;
+        } else {
+            throw new IllegalArgumentException("Unsupported Docker host: " + host);
+        }
+    }
+
+    public Response execute(String method, String path) throws IOException {
+        return execute(method, path, null, -1, null);
+    }
+
+    public Response execute(String method, String path, String contentType, byte[] body) throws IOException {
+        return execute(method, path, contentType, body.length, channel -> writeFully(channel, ByteBuffer.wrap(body)));
+    }
+
+    /**
+     * Sends a request whose body is produced by {@code writer}; {@code contentLength}
+     * must be exact when a writer is given.
+     */
+    public Response execute(String method, String path, String contentType, long contentLength, BodyWriter writer) throws IOException {
+        SocketChannel channel = family != null ? SocketChannel.open(family) : SocketChannel.open();
+        try {
+            channel.connect(address);
+            StringBuilder head = new StringBuilder(256)
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(hostHeader).append("\r\n")
+                    .append("Connection: close\r\n");
+            if (writer != null) {
+                head.append("Content-Type: ").append(contentType != null ? contentType : "application/octet-stream").append("\r\n")
+                        .append("Content-Length: ").append(contentLength).append("\r\n");
+            } else if ("POST".equals(method) || "PUT".equals(method)) {
+                head.append("Content-Length: 0\r\n");
+            }
+            head.append("\r\n");
+            writeFully(channel, ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.US_ASCII)));
+            if (writer != null) {
+                writer.writeTo(channel);
+            }
+            return readResponse(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static Response readResponse(SocketChannel channel) throws IOException {
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 8192);
+        String statusLine = readLine(in);
+        String[] status = statusLine.split(" ", 3);
+        if (status.length < 2 || !status[0].startsWith("HTTP/")) {
+            throw new IOException("Invalid HTTP response: " + statusLine);
+        }
+        int code = Integer.parseInt(status[1]);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        InputStream body;
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            body = new ChunkedInputStream(in);
+        } else if (headers.containsKey("content-length")) {
+            body = new BoundedInputStream(in, Long.parseLong(headers.get("content-length")));
+        } else {
+            body = in;
+        }
+        return new Response(code, headers, body, channel);
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            throw new EOFException("Connection closed by Docker daemon");
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    public static class Response implements Closeable {
+        private final int status;
+        private final Map<String, String> headers;
+        private final InputStream body;
+        private final SocketChannel channel;
+
+        Response(int status, Map<String, String> headers, InputStream body, SocketChannel channel) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.channel = channel;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public InputStream getBody() {
+            return body;
+        }
+
+        public String bodyAsString() throws IOException {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+
+    private static final class ChunkedInputStream extends FilterInputStream {
+        private long chunkRemaining;
+        private boolean finished;
+
+        ChunkedInputStream(InputStream in) {
+            super(in);
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (chunkRemaining == 0) {
+                String sizeLine = readLine(in);
+                if (sizeLine.isEmpty()) {
+                    // CRLF closing the previous chunk
+                    sizeLine = readLine(in);
+                }
+                int extension = sizeLine.indexOf(';');
+                chunkRemaining = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+                if (chunkRemaining == 0) {
+                    finished = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                chunkRemaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = in.read(buffer, offset, (int) Math.min(length, chunkRemaining));
+            if (n > 0) {
+                chunkRemaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return finished ? 0 : (int) Math.min(in.available(), chunkRemaining);
+        }
+    }
+}
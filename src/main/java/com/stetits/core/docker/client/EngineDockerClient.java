@@ -0,0 +1,304 @@
+package com.stetits.core.docker.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link DockerClient} over the Docker Engine REST API.
+ */
+public class EngineDockerClient implements DockerClient {
+
+    private static final String API = "/v1.41";
+    private static final String LOADED_IMAGE = "Loaded image: ";
+    private static final String LOADED_IMAGE_ID = "Loaded image ID: ";
+    // Bytes handed to one transferTo call: the unit of progress reports and of the bandwidth limit
+    private static final long TRANSFER_CHUNK = 4 * 1024 * 1024;
+
+    private final DockerHttpClient http;
+    private final ObjectMapper objectMapper;
+    private final BandwidthLimiter loadBandwidth;
+
+    public EngineDockerClient(DockerHttpClient http, ObjectMapper objectMapper) {
+        this(http, objectMapper, new BandwidthLimiter(0));
+    }
+
+    /**
+     * @param loadBandwidth shared by every image upload of this client
+     */
+    public EngineDockerClient(DockerHttpClient http, ObjectMapper objectMapper, BandwidthLimiter loadBandwidth) {
+        this.http = http;
+        this.objectMapper = objectMapper;
+        this.loadBandwidth = loadBandwidth;
+    }
+
+    public DockerHttpClient getHttp() {
+        return http;
+    }
+
+    // The archive goes from the page cache to the socket (transferTo), never through the heap
+    @Override
+    public String loadImage(Path archive, LongConsumer progress) throws IOException {
+        long size = Files.size(archive);
+        long chunk = loadBandwidth.chunkSize(TRANSFER_CHUNK);
+        try (FileChannel file = FileChannel.open(archive, StandardOpenOption.READ);
+             DockerHttpClient.Response response = http.execute("POST", API + "/images/load?quiet=1", "application/x-tar", size,
+                     channel -> {
+                         long position = 0;
+                         while (position < size) {
+                             long end = position + Math.min(chunk, size - position);
+                             try {
+                                 loadBandwidth.acquire(end - position);
+                             } catch (InterruptedException e) {
+                                 Thread.currentThread().interrupt();
+                                 throw new InterruptedIOException("Image load interrupted");
+                             }
+                             while (position < end) {
+                                 position += file.transferTo(position, end - position, channel);
+                             }
+                             progress.accept(position);
+                         }
+                     })) {
+            checkStatus(response, "load image " + archive);
+            // The daemon answers with a stream of JSON messages; the last "Loaded image" wins
+            String image = null;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode message = objectMapper.readTree(line);
+                if (message.hasNonNull("error")) {
+                    throw new DockerClientException("Failed to load image " + archive + ": " + message.get("error").asText(), response.getStatus());
+                }
+                String stream = message.path("stream").asText("").trim();
+                if (stream.startsWith(LOADED_IMAGE)) {
+                    image = stream.substring(LOADED_IMAGE.length()).trim();
+                } else if (stream.startsWith(LOADED_IMAGE_ID) && image == null) {
+                    image = stream.substring(LOADED_IMAGE_ID.length()).trim();
+                }
+            }
+            if (image == null) {
+                throw new DockerClientException("No image found in " + archive, response.getStatus());
+            }
+            return image;
+        }
+    }
+
+    @Override
+    public void ensureNetwork(String name, Map<String, String> labels) throws IOException {
+        try (DockerHttpClient.Response response = http.execute("GET", API + "/networks/" + encode(name))) {
+            if (response.isSuccessful()) {
+                return;
+            }
+            if (response.getStatus() != 404) {
+                checkStatus(response, "inspect network " + name);
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("Name", name);
+        body.put("CheckDuplicate", true);
+        body.put("Labels", labels);
+        try (DockerHttpClient.Response response = post("/networks/create", body)) {
+            // 409: created concurrently by another deployment
+            if (response.getStatus() != 409) {
+                checkStatus(response, "create network " + name);
+            }
+        }
+    }
+
+    @Override
+    public void removeContainer(String name) throws IOException {
+        try (DockerHttpClient.Response response = http.execute("DELETE", API + "/containers/" + encode(name) + "?force=true")) {
+            if (response.getStatus() != 404) {
+                checkStatus(response, "remove container " + name);
+            }
+        }
+    }
+
+    @Override
+    public String createContainer(String name, String image, String network, Map<String, String> labels) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("Image", image);
+        body.put("Labels", labels);
+        body.put("HostConfig", Map.of("NetworkMode", network));
+        try (DockerHttpClient.Response response = post("/containers/create?name=" + encode(name), body)) {
+            checkStatus(response, "create container " + name);
+            return objectMapper.readTree(response.getBody()).path("Id").asText();
+        }
+    }
+
+    @Override
+    public void startContainer(String id) throws IOException {
+        try (DockerHttpClient.Response response = http.execute("POST", API + "/containers/" + encode(id) + "/start")) {
+            // 304: already started
+            if (response.getStatus() != 304) {
+                checkStatus(response, "start container " + id);
+            }
+        }
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(List<String> labelFilters) throws IOException {
+        String filters = encode(objectMapper.writeValueAsString(Map.of("label", labelFilters)));
+        try (DockerHttpClient.Response response = http.execute("GET", API + "/containers/json?all=1&filters=" + filters)) {
+            checkStatus(response, "list containers");
+            List<ContainerSummary> containers = new ArrayList<>();
+            for (JsonNode node : objectMapper.readTree(response.getBody())) {
+                ContainerSummary container = new ContainerSummary();
+                container.setId(node.path("Id").asText());
+                // Names are reported with a leading slash
+                String name = node.path("Names").path(0).asText("");
+                container.setName(name.startsWith("/") ? name.substring(1) : name);
+                container.setState(node.path("State").asText());
+                container.setStatus(node.path("Status").asText());
+                container.setLabels(textFields(node.path("Labels")));
+                containers.add(container);
+            }
+            return containers;
+        }
+    }
+
+    @Override
+    public EventStream containerEvents(List<String> labelFilters) throws IOException {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        filters.put("type", List.of("container"));
+        filters.put("label", labelFilters);
+        DockerHttpClient.Response response = http.execute("GET", API + "/events?filters=" + encode(objectMapper.writeValueAsString(filters)));
+        try {
+            checkStatus(response, "subscribe to events");
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+        return new EventStream() {
+            @Override
+            public ContainerEvent next() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode node = objectMapper.readTree(line);
+                    ContainerEvent event = new ContainerEvent();
+                    // "Action" may carry a suffix, e.g. "exec_start: sh"
+                    String action = node.path("Action").asText(node.path("status").asText());
+                    int colon = action.indexOf(':');
+                    event.setAction(colon >= 0 ? action.substring(0, colon) : action);
+                    event.setContainerId(node.path("Actor").path("ID").asText(node.path("id").asText()));
+                    event.setAttributes(textFields(node.path("Actor").path("Attributes")));
+                    event.setTimeNanos(node.path("timeNano").asLong());
+                    return event;
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+
+    @Override
+    public LogStream containerLogs(String container, int tail, Instant since) throws IOException {
+        StringBuilder query = new StringBuilder("?follow=1&stdout=1&stderr=1&timestamps=1&tail=").append(tail < 0 ? "all" : String.valueOf(tail));
+        if (since != null) {
+            // Fractional seconds are accepted, which avoids replaying the lines of the same second
+            query.append("&since=").append(since.getEpochSecond()).append('.').append(String.format("%09d", since.getNano()));
+        }
+        DockerHttpClient.Response response = http.execute("GET", API + "/containers/" + encode(container) + "/logs" + query);
+        try {
+            checkStatus(response, "read logs of " + container);
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        LogDemultiplexer demultiplexer = new LogDemultiplexer(response.getBody());
+        return new LogStream() {
+            @Override
+            public ContainerLogLine next() throws IOException {
+                return demultiplexer.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+
+    @Override
+    public ContainerStats containerStats(String container) throws IOException {
+        // one-shot: a single read without waiting for a second CPU sample
+        try (DockerHttpClient.Response response = http.execute("GET", API + "/containers/" + encode(container) + "/stats?stream=false&one-shot=true")) {
+            checkStatus(response, "read stats of container " + container);
+            JsonNode node = objectMapper.readTree(response.getBody());
+            ContainerStats stats = new ContainerStats();
+            String read = node.path("read").asText("");
+            stats.setReadAt(read.isEmpty() || read.startsWith("0001") ? System.currentTimeMillis() : Instant.parse(read).toEpochMilli());
+            JsonNode cpu = node.path("cpu_stats");
+            stats.setCpuTotalUsage(cpu.path("cpu_usage").path("total_usage").asLong());
+            stats.setSystemCpuUsage(cpu.path("system_cpu_usage").asLong());
+            stats.setOnlineCpus(cpu.path("online_cpus").asInt(Math.max(1, cpu.path("cpu_usage").path("percpu_usage").size())));
+            JsonNode memory = node.path("memory_stats");
+            // Same figure as docker stats: the page cache does not count (inactive_file on cgroup v2, cache on v1)
+            long cache = memory.path("stats").path("inactive_file").asLong(memory.path("stats").path("cache").asLong());
+            stats.setMemoryUsage(Math.max(0, memory.path("usage").asLong() - cache));
+            stats.setMemoryLimit(memory.path("limit").asLong());
+            long rx = 0;
+            long tx = 0;
+            for (JsonNode network : node.path("networks")) {
+                rx += network.path("rx_bytes").asLong();
+                tx += network.path("tx_bytes").asLong();
+            }
+            stats.setNetworkRxBytes(rx);
+            stats.setNetworkTxBytes(tx);
+            return stats;
+        }
+    }
+
+    private static Map<String, String> textFields(JsonNode object) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        object.fields().forEachRemaining(field -> fields.put(field.getKey(), field.getValue().asText()));
+        return fields;
+    }
+
+    private DockerHttpClient.Response post(String path, Object body) throws IOException {
+        return http.execute("POST", API + path, "application/json", objectMapper.writeValueAsBytes(body));
+    }
+
+    private void checkStatus(DockerHttpClient.Response response, String action) throws IOException {
+        if (!response.isSuccessful()) {
+            String message = response.bodyAsString();
+            try {
+                message = objectMapper.readTree(message).path("message").asText(message);
+            } catch (IOException e) {
+                // Not JSON: keep the raw body
+            }
+            throw new DockerClientException("Failed to " + action + " (" + response.getStatus() + "): " + message, response.getStatus());
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
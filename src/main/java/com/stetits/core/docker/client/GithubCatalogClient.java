@@ -0,0 +1,73 @@
+package com.stetits.core.docker.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Fetches the component catalog file from the GitHub STET repository. The
+ * request is conditional: the ETag and Last-Modified of the copy already held
+ * are sent back, so an unchanged catalog costs a 304 without a body.
+ */
+public class GithubCatalogClient {
+
+    public record Response(int status, byte[] body, String etag, String lastModified) {
+
+        public boolean isNotModified() {
+            return status == 304;
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    public GithubCatalogClient(Duration timeout) {
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * @param url the contents API URL of the catalog file
+     *            ({@code https://api.github.com/repos/OWNER/REPO/contents/PATH?ref=BRANCH}) or any URL serving the file
+     * @param etag validators of the cached copy, or null
+     */
+    public Response fetch(String url, String username, String password, String etag, String lastModified) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                // The contents API returns the file itself rather than its base64 JSON envelope
+                .header("Accept", "application/vnd.github.raw")
+                .header("User-Agent", "core-monitor")
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+        int status = response.statusCode();
+        if (status != 200 && status != 304) {
+            throw new IOException("HTTP " + status + " from " + url);
+        }
+        // A 304 may leave out the validators, which still hold; a 200 replaces them, even with none
+        boolean notModified = status == 304;
+        return new Response(status, response.body(),
+                response.headers().firstValue("ETag").orElse(notModified ? etag : null),
+                response.headers().firstValue("Last-Modified").orElse(notModified ? lastModified : null));
+    }
+}
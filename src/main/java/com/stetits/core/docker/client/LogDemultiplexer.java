@@ -0,0 +1,149 @@
+package com.stetits.core.docker.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Splits a {@code /containers/{id}/logs} body into lines. Containers without a
+ * TTY send frames (1 byte stream type, 3 zero bytes, 4 bytes big-endian size,
+ * payload); with a TTY the body is the raw output. Frames do not align with
+ * lines, so partial lines are kept per stream until their newline arrives.
+ * Lines are expected to start with the daemon timestamp ({@code timestamps=1}).
+ */
+class LogDemultiplexer {
+
+    private static final int HEADER_SIZE = 8;
+    // Output without newlines is cut into lines of at most this size
+    private static final int MAX_LINE_BYTES = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] header = new byte[HEADER_SIZE];
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+    private final Deque<ContainerLogLine> ready = new ArrayDeque<>();
+    private Boolean multiplexed;
+    private final byte[] payload = new byte[8192];
+    // Stream and bytes left of the frame being read
+    private String frameStream;
+    private long frameRemaining;
+
+    LogDemultiplexer(InputStream in) {
+        this.in = in;
+    }
+
+    /** Returns the next line, or null at the end of the stream. */
+    ContainerLogLine next() throws IOException {
+        while (ready.isEmpty()) {
+            if (!readMore()) {
+                flush(stdout, ContainerLogLine.STDOUT);
+                flush(stderr, ContainerLogLine.STDERR);
+                return ready.poll();
+            }
+        }
+        return ready.poll();
+    }
+
+    private boolean readMore() throws IOException {
+        if (multiplexed == null) {
+            int read = readFully(header, 0, HEADER_SIZE);
+            // A frame header is a stream type 0-2 followed by three zero bytes; raw output starts with the timestamp
+            multiplexed = read == HEADER_SIZE && header[0] >= 0 && header[0] <= 2 && header[1] == 0 && header[2] == 0 && header[3] == 0;
+            if (!multiplexed) {
+                append(stdout, header, read, ContainerLogLine.STDOUT);
+                return read > 0;
+            }
+            startFrame();
+        } else if (!multiplexed) {
+            int n = in.read(payload);
+            if (n < 0) {
+                return false;
+            }
+            append(stdout, payload, n, ContainerLogLine.STDOUT);
+            return true;
+        } else if (frameRemaining == 0) {
+            int read = readFully(header, 0, HEADER_SIZE);
+            if (read == 0) {
+                return false;
+            }
+            if (read < HEADER_SIZE) {
+                throw new EOFException("Truncated log frame header");
+            }
+            startFrame();
+        }
+        // One buffer at a time: a frame may announce up to 4 GiB
+        int chunk = (int) Math.min(frameRemaining, payload.length);
+        if (readFully(payload, 0, chunk) < chunk) {
+            throw new EOFException("Truncated log frame");
+        }
+        if (ContainerLogLine.STDERR.equals(frameStream)) {
+            append(stderr, payload, chunk, ContainerLogLine.STDERR);
+        } else {
+            append(stdout, payload, chunk, ContainerLogLine.STDOUT);
+        }
+        frameRemaining -= chunk;
+        return true;
+    }
+
+    private void startFrame() {
+        frameStream = header[0] == 2 ? ContainerLogLine.STDERR : ContainerLogLine.STDOUT;
+        frameRemaining = ((long) (header[4] & 0xFF) << 24) | ((header[5] & 0xFF) << 16) | ((header[6] & 0xFF) << 8) | (header[7] & 0xFF);
+    }
+
+    private void append(ByteArrayOutputStream partial, byte[] bytes, int length, String stream) {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                partial.write(bytes, start, i - start);
+                flush(partial, stream);
+                start = i + 1;
+            }
+        }
+        partial.write(bytes, start, length - start);
+        if (partial.size() >= MAX_LINE_BYTES) {
+            flush(partial, stream);
+        }
+    }
+
+    private void flush(ByteArrayOutputStream partial, String stream) {
+        if (partial.size() == 0) {
+            return;
+        }
+        String line = partial.toString(StandardCharsets.UTF_8);
+        partial.reset();
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        ready.add(parse(stream, line));
+    }
+
+    static ContainerLogLine parse(String stream, String line) {
+        int space = line.indexOf(' ');
+        if (space > 0) {
+            try {
+                return new ContainerLogLine(stream, Instant.parse(line.substring(0, space)), line.substring(space + 1));
+            } catch (DateTimeParseException e) {
+                // No timestamp: keep the whole line
+            }
+        }
+        return new ContainerLogLine(stream, null, line);
+    }
+
+    private int readFully(byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int n = in.read(buffer, offset + total, length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
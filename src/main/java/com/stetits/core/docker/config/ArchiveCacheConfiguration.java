@@ -0,0 +1,22 @@
+package com.stetits.core.docker.config;
+
+import com.stetits.core.docker.storage.ArchiveCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class ArchiveCacheConfiguration {
+
+    @Bean
+    public ArchiveCache archiveCache(@Value("${core.archives.cache.max-size-mb:10240}") long maxSizeMb,
+                                     @Value("${core.archives.hash-parallelism:4}") int hashParallelism,
+                                     MeterRegistry meterRegistry) throws IOException {
+        return new ArchiveCache(Paths.get(System.getProperty("user.home"), ".core", "archives"),
+                maxSizeMb * 1024 * 1024, hashParallelism, meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.stetits.core.docker.config;
+
+import com.stetits.core.docker.client.GithubCatalogClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CatalogConfiguration {
+
+    @Bean
+    public GithubCatalogClient githubCatalogClient(@Value("${core.catalog.sync.timeout-ms:10000}") long timeoutMs) {
+        return new GithubCatalogClient(Duration.ofMillis(timeoutMs));
+    }
+}
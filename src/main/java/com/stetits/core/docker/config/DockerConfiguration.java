@@ -0,0 +1,33 @@
+package com.stetits.core.docker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.client.BandwidthLimiter;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.client.DockerHttpClient;
+import com.stetits.core.docker.client.EngineDockerClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DockerConfiguration {
+
+    // unix:///var/run/docker.sock, or tcp://host:port to point at another daemon (or a local stand-in)
+    @Bean
+    public DockerHttpClient dockerHttpClient(@Value("${core.docker.host:unix:///var/run/docker.sock}") String host) {
+        return new DockerHttpClient(host);
+    }
+
+    // Shared by the clients of every host: the cap is on what leaves this machine
+    @Bean
+    public BandwidthLimiter loadBandwidthLimiter(@Value("${core.docker.load-bandwidth-mb:0}") long loadBandwidthMb) {
+        return new BandwidthLimiter(loadBandwidthMb * 1024 * 1024);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(DockerClient.class)
+    public DockerClient dockerClient(DockerHttpClient dockerHttpClient, ObjectMapper objectMapper, BandwidthLimiter loadBandwidthLimiter) {
+        return new EngineDockerClient(dockerHttpClient, objectMapper, loadBandwidthLimiter);
+    }
+}
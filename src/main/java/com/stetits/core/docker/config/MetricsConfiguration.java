@@ -0,0 +1,76 @@
+package com.stetits.core.docker.config;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Request timers per controller method (a "handler" tag on
+ * http.server.requests) and Thymeleaf rendering timers (core.template.render).
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private static final String RENDER_SAMPLE_ATTRIBUTE = MetricsConfiguration.class.getName() + ".render";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean
+    public ServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and("handler", handlerName(context.getCarrier()));
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            // Called once the controller returned, right before the view renders
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+                if (modelAndView != null && modelAndView.getViewName() != null && !modelAndView.getViewName().startsWith("redirect:")) {
+                    request.setAttribute(RENDER_SAMPLE_ATTRIBUTE, new Rendering(modelAndView.getViewName(), Timer.start(meterRegistry)));
+                }
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                if (request.getAttribute(RENDER_SAMPLE_ATTRIBUTE) instanceof Rendering rendering) {
+                    rendering.sample().stop(Timer.builder("core.template.render")
+                            .description("Thymeleaf rendering of a page")
+                            .tag("template", rendering.template())
+                            .tag("exception", ex != null ? ex.getClass().getSimpleName() : "none")
+                            .register(meterRegistry));
+                }
+            }
+        });
+    }
+
+    private record Rendering(String template, Timer.Sample sample) {
+    }
+
+    private static String handlerName(HttpServletRequest request) {
+        if (request != null && request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return "none";
+    }
+}
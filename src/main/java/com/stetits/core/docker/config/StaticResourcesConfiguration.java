@@ -0,0 +1,54 @@
+package com.stetits.core.docker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Production serving of /css and /js ({@code core.web.static-assets.versioned}):
+ * templates link to content-hashed URLs (style-&lt;md5&gt;.css), which are cached
+ * for a year as immutable, and the .br/.gz files written at build time are
+ * served to the browsers that accept them. Decided at runtime rather than with
+ * profile conditions, which the AOT build would fix at build time.
+ */
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StaticResourcesConfiguration implements WebMvcConfigurer {
+
+    private static final String[] DIRECTORIES = {"css", "js"};
+
+    @Value("${core.web.static-assets.versioned:false}")
+    private boolean versioned;
+
+    // Rewrites @{/css/...} links to their hashed URL; leaves them as is without a resource chain
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        if (!versioned) {
+            // Spring Boot's default static resource handling
+            return;
+        }
+        for (String directory : DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+}
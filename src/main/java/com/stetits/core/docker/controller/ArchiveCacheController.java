@@ -0,0 +1,54 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.ArchiveCacheStatus;
+import com.stetits.core.docker.storage.ArchiveCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/archives")
+public class ArchiveCacheController {
+
+    @Autowired
+    private ArchiveCache archiveCache;
+
+    // Only directories under it can be indexed; indexing is disabled when empty
+    @Value("${core.archives.index-root:}")
+    private String indexRoot;
+
+    @GetMapping
+    public ArchiveCacheStatus status() {
+        return archiveCache.getStatus();
+    }
+
+    // Synchronous: returns once every archive under the directory is hashed
+    @PostMapping("/index")
+    public ResponseEntity<?> index(@RequestParam String directory) throws IOException {
+        if (indexRoot.isBlank()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Indexation désactivée : core.archives.index-root n'est pas configuré"));
+        }
+        Path base = Path.of(indexRoot).toAbsolutePath();
+        // Relative to the index root; symbolic links are resolved before the check
+        Path root = base.resolve(directory);
+        if (!Files.isDirectory(root) || !Files.isDirectory(base)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Répertoire introuvable : " + directory));
+        }
+        root = root.toRealPath();
+        if (!root.startsWith(base.toRealPath())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Répertoire en dehors de " + indexRoot + " : " + directory));
+        }
+        return ResponseEntity.ok(archiveCache.index(root));
+    }
+}
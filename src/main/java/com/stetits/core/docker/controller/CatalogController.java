@@ -0,0 +1,76 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.CatalogPage;
+import com.stetits.core.docker.service.CatalogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Responses carry the catalog digest as ETag: browsers revalidate and get a 304 until the catalog changes
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HttpServletRequest request;
+
+    @GetMapping
+    public ResponseEntity<List<String>> communities() {
+        String etag = catalogService.getETag();
+        return withETag(etag, catalogService.getCommunities());
+    }
+
+    @GetMapping("/{community}/nodes")
+    public ResponseEntity<CatalogPage> nodes(
+            @PathVariable String community,
+            @RequestParam(required = false) String parent,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        String etag = catalogService.getETag();
+        CatalogPage result = catalogService.getChildren(community, parent, page, size);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return withETag(etag, result);
+    }
+
+    @GetMapping("/{community}/selections")
+    public ResponseEntity<List<String>> selections(
+            @PathVariable String community,
+            @RequestParam(required = false) String parent) {
+        String etag = catalogService.getETag();
+        List<String> result = catalogService.getSelections(community, parent);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return withETag(etag, result);
+    }
+
+    // The tag is read before the body: if the catalog changes in between, the next revalidation refetches
+    private <T> ResponseEntity<T> withETag(String etag, T body) {
+        // A matching If-None-Match ends as a 304: the browser copy is used
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        boolean hit = ifNoneMatch != null && ifNoneMatch.contains("\"" + etag + "\"");
+        meterRegistry.counter("cache.gets", "cache", "catalog-http", "result", hit ? "hit" : "miss").increment();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag("\"" + etag + "\"")
+                .body(body);
+    }
+}
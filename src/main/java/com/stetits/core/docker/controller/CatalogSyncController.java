@@ -0,0 +1,28 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.CatalogSyncStatus;
+import com.stetits.core.docker.service.CatalogSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/catalog/sync")
+public class CatalogSyncController {
+
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
+    @GetMapping
+    public CatalogSyncStatus status() {
+        return catalogSyncService.getStatus();
+    }
+
+    // Synchronous: the returned status already reflects this request
+    @PostMapping
+    public CatalogSyncStatus sync() {
+        return catalogSyncService.sync();
+    }
+}
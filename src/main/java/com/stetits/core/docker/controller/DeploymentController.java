@@ -0,0 +1,58 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.DeploymentReport;
+import com.stetits.core.docker.model.StackDiff;
+import com.stetits.core.docker.service.DeploymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/deployments")
+public class DeploymentController {
+
+    @Autowired
+    private DeploymentService deploymentService;
+
+    @PostMapping
+    public ResponseEntity<?> deploy(@RequestParam(defaultValue = "full") String mode) {
+        if (!"full".equals(mode) && !"incremental".equals(mode)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Mode inconnu : " + mode));
+        }
+        try {
+            DeploymentReport report = deploymentService.deploySavedConfiguration("incremental".equals(mode));
+            if (report == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Aucune configuration enregistrée"));
+            }
+            return ResponseEntity.accepted().body(report);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public List<DeploymentReport> recent() {
+        return deploymentService.getRecentReports();
+    }
+
+    // What an incremental deployment would change right now
+    @GetMapping("/diff")
+    public StackDiff diff() {
+        return deploymentService.diffSavedConfiguration();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<DeploymentReport> report(@PathVariable String id) {
+        DeploymentReport report = deploymentService.getReport(id);
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.notFound().build();
+    }
+}
@@ -1,12 +1,16 @@
 package com.stetits.core.docker.controller;
 
 import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.StackSnapshot;
 import com.stetits.core.docker.service.SettingsService;
 import com.stetits.core.docker.service.StackConfigService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
 
 @Controller
 public class HomeController {
@@ -17,17 +21,27 @@ public class HomeController {
     @Autowired
     private StackConfigService stackConfigService;
 
+    @Autowired
+    private PageCache pageCache;
+
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(Model model, ServletWebRequest request) {
         if (!settingsService.isSettingsConfigured()) {
             return "redirect:/settings";
         }
-        
+
+        StackSnapshot snapshot = stackConfigService.getSnapshot();
+        if (pageCache.checkNotModified(request, "index", snapshot.getVersion())) {
+            return null;
+        }
+
         // Load stack configuration if available
-        StackConfiguration stackConfig = stackConfigService.loadStackConfiguration();
+        StackConfiguration stackConfig = snapshot.getConfiguration();
         if (stackConfig != null) {
             model.addAttribute("config", stackConfig);
             model.addAttribute("hasStackConfig", true);
+            model.addAttribute("stackOverview", pageCache.fragment("fragments/stack-overview", "overview",
+                    snapshot.getVersion(), Map.of("config", stackConfig)));
         } else {
             model.addAttribute("hasStackConfig", false);
         }
@@ -0,0 +1,51 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.service.LogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/logs")
+public class LogController {
+
+    private static final int MAX_LINES = 5000;
+
+    @Autowired
+    private LogService logService;
+
+    // app is platform|component|application
+    @GetMapping
+    public ResponseEntity<?> recent(@RequestParam String app, @RequestParam(defaultValue = "200") int lines) {
+        try {
+            return ResponseEntity.ok(logService.recentLines(app, clamp(lines)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // EventSource cannot read an error body, so failures are reported by status only
+    @GetMapping("/stream")
+    public ResponseEntity<SseEmitter> stream(@RequestParam String app, @RequestParam(defaultValue = "200") int lines) {
+        try {
+            return ResponseEntity.ok(logService.subscribe(app, clamp(lines)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private static int clamp(int lines) {
+        return Math.max(0, Math.min(lines, MAX_LINES));
+    }
+}
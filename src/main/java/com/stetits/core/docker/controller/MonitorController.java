@@ -0,0 +1,32 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.service.ContainerMonitorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/monitor")
+public class MonitorController {
+
+    @Autowired
+    private ContainerMonitorService containerMonitorService;
+
+    @GetMapping
+    public Map<String, Object> status() {
+        return Map.of(
+                "eventsConnected", containerMonitorService.isEventsConnected(),
+                "containers", containerMonitorService.getStatuses());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() throws IOException {
+        return containerMonitorService.subscribe();
+    }
+}
@@ -0,0 +1,100 @@
+package com.stetits.core.docker.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Production page caching ({@code core.web.page-cache.enabled}): pages get an
+ * ETag made of the versions their content depends on and are answered with
+ * 304 while those do not change, and fragments that only depend on the stack
+ * configuration are rendered once per configuration version.
+ */
+@Component
+public class PageCache {
+
+    // Templates and static assets change with each start of a new build
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${core.web.page-cache.enabled:false}")
+    private boolean enabled;
+
+    // Template name -> last rendering, one version kept per fragment
+    private final Map<String, Rendered> fragments = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the ETag of a page and tells whether the browser copy is current, in
+     * which case a 304 has been prepared and the controller returns null.
+     * Pages carrying a flash message are never answered from the browser cache.
+     */
+    public boolean checkNotModified(ServletWebRequest request, String page, long... versions) {
+        if (!enabled) {
+            return false;
+        }
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request.getRequest());
+        if (flash != null && !flash.isEmpty()) {
+            return false;
+        }
+        StringBuilder etag = new StringBuilder("W/\"").append(page).append('-').append(BOOT_ID);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        etag.append('"');
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            // Always revalidated, answered with 304 while the versions match
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        boolean notModified = request.checkNotModified(etag.toString());
+        count("page-etag", notModified);
+        return notModified;
+    }
+
+    /**
+     * HTML of {@code template}, rendered with {@code variables} or reused from
+     * the previous call with the same version.
+     */
+    public String fragment(String template, String selector, long version, Map<String, Object> variables) {
+        if (!enabled) {
+            return render(template, selector, variables);
+        }
+        Rendered cached = fragments.get(template);
+        if (cached != null && cached.version() == version) {
+            count("fragment", true);
+            return cached.html();
+        }
+        count("fragment", false);
+        String html = render(template, selector, variables);
+        fragments.put(template, new Rendered(version, html));
+        return html;
+    }
+
+    private String render(String template, String selector, Map<String, Object> variables) {
+        return templateEngine.process(template, Set.of(selector), new Context(LocaleContextHolder.getLocale(), variables));
+    }
+
+    private void count(String cache, boolean hit) {
+        meterRegistry.counter("cache.gets", "cache", cache, "result", hit ? "hit" : "miss").increment();
+    }
+
+    private record Rendered(long version, String html) {
+    }
+}
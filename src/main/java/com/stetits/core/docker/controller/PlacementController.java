@@ -0,0 +1,62 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.DockerHost;
+import com.stetits.core.docker.model.PlacementResult;
+import com.stetits.core.docker.service.PlacementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class PlacementController {
+
+    @Autowired
+    private PlacementService placementService;
+
+    @GetMapping("/hosts")
+    public List<DockerHost> hosts() {
+        return placementService.getHosts();
+    }
+
+    // Adds or changes a host; the saved stack is placed again and the result returned
+    @PutMapping("/hosts/{name}")
+    public ResponseEntity<?> saveHost(@PathVariable String name, @RequestBody DockerHost host) throws IOException {
+        host.setName(name);
+        try {
+            return ResponseEntity.ok(placementService.saveHost(host));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/hosts/{name}")
+    public ResponseEntity<?> removeHost(@PathVariable String name) throws IOException {
+        PlacementResult result = placementService.removeHost(name);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Hôte inconnu : " + name));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // Placement of the saved stack
+    @GetMapping("/placement")
+    public ResponseEntity<?> placement() {
+        PlacementResult result = placementService.getCurrent();
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Aucun hôte Docker dans le pool"));
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,63 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.MetricRange;
+import com.stetits.core.docker.service.ResourceMetricsService;
+import com.stetits.core.docker.timeseries.ResourceMetric;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class ResourceMetricsController {
+
+    private static final long DEFAULT_RANGE_MS = 3_600_000;
+
+    @Autowired
+    private ResourceMetricsService resourceMetricsService;
+
+    // app is platform|component|application; from and to are epoch milliseconds, the last hour by default
+    @GetMapping
+    public ResponseEntity<?> range(@RequestParam String app, @RequestParam String metric,
+                                   @RequestParam(required = false) Long from, @RequestParam(required = false) Long to,
+                                   @RequestParam(defaultValue = "0") int step) {
+        ResourceMetric resourceMetric = ResourceMetric.fromName(metric);
+        if (resourceMetric == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Métrique inconnue : " + metric));
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MS;
+        if (start >= end) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Intervalle de temps invalide"));
+        }
+        return ResponseEntity.ok(resourceMetricsService.query(app, resourceMetric, start, end, step));
+    }
+
+    // Every metric of an application over the same range
+    @GetMapping("/all")
+    public ResponseEntity<?> all(@RequestParam String app,
+                                 @RequestParam(required = false) Long from, @RequestParam(required = false) Long to,
+                                 @RequestParam(defaultValue = "0") int step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MS;
+        if (start >= end) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Intervalle de temps invalide"));
+        }
+        Map<String, MetricRange> ranges = new LinkedHashMap<>();
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            ranges.put(metric.getName(), resourceMetricsService.query(app, metric, start, end, step));
+        }
+        return ResponseEntity.ok(ranges);
+    }
+
+    @GetMapping("/usage")
+    public Map<String, Object> usage() {
+        return resourceMetricsService.getUsage();
+    }
+}
@@ -1,5 +1,7 @@
 package com.stetits.core.docker.controller;
 
+import com.stetits.core.docker.model.Settings;
+import com.stetits.core.docker.service.CatalogSyncService;
 import com.stetits.core.docker.service.SettingsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -7,6 +9,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
@@ -15,10 +18,20 @@ public class SettingsController {
     @Autowired
     private SettingsService settingsService;
 
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
+    @Autowired
+    private PageCache pageCache;
+
     @GetMapping("/settings")
-    public String settings(Model model) {
-        model.addAttribute("githubUsername", settingsService.getGithubUsername());
-        model.addAttribute("githubPassword", settingsService.getGithubPassword());
+    public String settings(Model model, ServletWebRequest request) {
+        if (pageCache.checkNotModified(request, "settings", settingsService.getVersion())) {
+            return null;
+        }
+        Settings settings = settingsService.getSettings();
+        model.addAttribute("githubUsername", settings.getGithubUsername());
+        model.addAttribute("githubPassword", settings.getGithubPassword());
         return "settings";
     }
 
@@ -30,6 +43,7 @@ public class SettingsController {
         
         try {
             settingsService.saveSettings(githubUsername, githubPassword);
+            catalogSyncService.requestSync();
             redirectAttributes.addFlashAttribute("success", "Paramètres enregistrés avec succès");
             return "redirect:/";
         } catch (Exception e) {
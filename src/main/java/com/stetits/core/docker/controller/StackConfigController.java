@@ -1,31 +1,67 @@
 package com.stetits.core.docker.controller;
 
+import com.stetits.core.docker.model.ImportReport;
 import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+import com.stetits.core.docker.model.ValidationResult;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackSnapshot;
+import com.stetits.core.docker.repository.StackVersionConflictException;
+import com.stetits.core.docker.service.DeploymentService;
+import com.stetits.core.docker.service.PlacementService;
 import com.stetits.core.docker.service.StackConfigService;
+import com.stetits.core.docker.service.StackDiffService;
+import com.stetits.core.docker.service.StackValidationService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
 public class StackConfigController {
 
+    private static final int MAX_LISTED_CHANGES = 200;
+
     @Autowired
     private StackConfigService stackConfigService;
 
+    @Autowired
+    private StackDiffService stackDiffService;
+
+    @Autowired
+    private StackValidationService stackValidationService;
+
+    @Autowired
+    private DeploymentService deploymentService;
+
+    @Autowired
+    private PlacementService placementService;
+
+    @Autowired
+    private PageCache pageCache;
+
     @GetMapping("/stack-config")
-    public String showStackConfig(Model model) {
-        // Load existing configuration if available
-        StackConfiguration existingConfig = stackConfigService.loadStackConfiguration();
-        if (existingConfig != null) {
-            model.addAttribute("existingConfig", existingConfig);
-            model.addAttribute("existingCommunity", existingConfig.getCommunity());
-            model.addAttribute("existingSelections", stackConfigService.getSelectionsFromConfig(existingConfig));
+    public String showStackConfig(@RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack,
+                                  Model model, ServletWebRequest request) {
+        if (!StackConfigRepository.isValidName(stack)) {
+            model.addAttribute("error", "Nom de stack invalide : " + stack);
+            stack = StackConfigRepository.DEFAULT_STACK;
         }
+        StackSnapshot snapshot = stackConfigService.getSnapshot(stack);
+        List<String> stackNames = stackConfigService.getStackNames();
+        if (!model.containsAttribute("error")
+                && pageCache.checkNotModified(request, "stack-config:" + stack, snapshot.getVersion(), stackNames.hashCode())) {
+            return null;
+        }
+        addStackAttributes(model, stack, snapshot, stackNames);
         return "stack-config";
     }
 
@@ -33,15 +69,29 @@ public class StackConfigController {
     public String confirmStackConfig(
             @RequestParam(required = false) String community,
             @RequestParam(required = false) List<String> selections,
-            Model model) {
-        
-        if (community == null || selections == null || selections.isEmpty()) {
-            model.addAttribute("error", "Veuillez sélectionner au moins une application");
-            return "stack-config";
+            @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack,
+            @RequestParam(defaultValue = "0") long baseVersion,
+            Model model, HttpServletResponse response) {
+        String error = checkForm(stack, community, selections, baseVersion);
+        List<ImportReport.LineError> errors = new ArrayList<>();
+        StackConfiguration config = error == null ? stackConfigService.parseSelections(community, selections, errors) : null;
+        if (error == null && !errors.isEmpty()) {
+            error = "Sélection invalide : " + errors.get(0).getMessage();
+        }
+        if (error != null) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return showForm(model, stack, error);
         }
-
-        StackConfiguration config = parseSelections(community, selections);
         model.addAttribute("config", config);
+        model.addAttribute("selections", selections);
+        model.addAttribute("stack", stack);
+        model.addAttribute("baseVersion", baseVersion);
+        // Rule errors hide the validation button, warnings are only shown
+        model.addAttribute("validation", stackValidationService.validate(config));
+        addPlacement(model, stack, config);
+        // Changes relative to the saved configuration, shown before validation
+        addDiff(model, "Changements par rapport à la configuration enregistrée",
+                stackDiffService.diff(stackConfigService.getSnapshot(stack).getConfiguration(), config));
         
         return "stack-confirmation";
     }
@@ -50,70 +100,107 @@ public class StackConfigController {
     public String validateStackConfig(
             @RequestParam(required = false) String community,
             @RequestParam(required = false) List<String> selections,
-            Model model) {
-        
-        if (community == null || selections == null || selections.isEmpty()) {
-            model.addAttribute("error", "Veuillez sélectionner au moins une application");
-            return "stack-config";
+            @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack,
+            @RequestParam(defaultValue = "0") long baseVersion,
+            Model model, HttpServletResponse response) {
+        String error = checkForm(stack, community, selections, baseVersion);
+        List<ImportReport.LineError> errors = new ArrayList<>();
+        StackConfiguration config = error == null ? stackConfigService.parseSelections(community, selections, errors) : null;
+        if (error == null && !errors.isEmpty()) {
+            error = "Sélection invalide : " + errors.get(0).getMessage();
+        }
+        if (error != null) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return showForm(model, stack, error);
+        }
+        ValidationResult validation = stackValidationService.validate(config);
+        if (!validation.isValid()) {
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            return showForm(model, stack, "Configuration refusée : " + validation.getViolations().get(0).getMessage());
         }
-
-        StackConfiguration config = parseSelections(community, selections);
         
-        // Save the configuration
+        // Save the configuration, unless someone else saved this stack since the form was loaded
         try {
-            stackConfigService.saveStackConfiguration(config);
+            stackConfigService.saveStackConfiguration(stack, config, baseVersion);
             model.addAttribute("success", "Configuration enregistrée avec succès");
             model.addAttribute("config", config);
+            model.addAttribute("stack", stack);
+            addPlacement(model, stack, config);
+            if (StackConfigRepository.DEFAULT_STACK.equals(stack)) {
+                // Once saved, the incremental deployment acts on the changes since the last deployment
+                model.addAttribute("deployable", true);
+                addDiff(model, "Changements à déployer", stackDiffService.diff(deploymentService.getDeployedConfiguration(), config));
+            }
+            return "stack-confirmation";
+        } catch (StackVersionConflictException e) {
+            // Shown again against the version saved meanwhile: validating now replaces it knowingly
+            response.setStatus(HttpStatus.CONFLICT.value());
+            StackSnapshot current = stackConfigService.getSnapshot(stack);
+            model.addAttribute("error", "La stack « " + stack + " » a été modifiée par ailleurs (version "
+                    + e.getCurrentVersion() + ") : vérifiez les changements par rapport à cette version avant de valider à nouveau");
+            model.addAttribute("config", config);
+            model.addAttribute("selections", selections);
+            model.addAttribute("stack", stack);
+            model.addAttribute("baseVersion", current.getVersion());
+            model.addAttribute("validation", validation);
+            addDiff(model, "Changements par rapport à la version " + current.getVersion(),
+                    stackDiffService.diff(current.getConfiguration(), config));
             return "stack-confirmation";
         } catch (Exception e) {
-            model.addAttribute("error", "Erreur lors de l'enregistrement de la configuration");
-            return "stack-config";
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return showForm(model, stack, "Erreur lors de l'enregistrement de la configuration");
         }
     }
 
-    private StackConfiguration parseSelections(String community, List<String> selections) {
-        StackConfiguration config = new StackConfiguration();
-        config.setCommunity(community);
-
-        // Group selections by platform and component
-        for (String selection : selections) {
-            String[] parts = selection.split("\\|");
-            if (parts.length == 4) {
-                String platformName = parts[0];
-                String componentName = parts[1];
-                String appName = parts[2];
-                String appDetails = parts[3]; // version:archiveFile
-
-                // Find or create platform
-                StackConfiguration.Platform platform = config.getPlatforms().stream()
-                        .filter(p -> p.getName().equals(platformName))
-                        .findFirst()
-                        .orElseGet(() -> {
-                            StackConfiguration.Platform newPlatform = new StackConfiguration.Platform(platformName);
-                            config.getPlatforms().add(newPlatform);
-                            return newPlatform;
-                        });
-
-                // Find or create component
-                StackConfiguration.Component component = platform.getComponents().stream()
-                        .filter(c -> c.getName().equals(componentName))
-                        .findFirst()
-                        .orElseGet(() -> {
-                            StackConfiguration.Component newComponent = new StackConfiguration.Component(componentName);
-                            platform.getComponents().add(newComponent);
-                            return newComponent;
-                        });
-
-                // Parse and add application
-                String[] detailsParts = appDetails.split(":");
-                String version = detailsParts.length > 0 ? detailsParts[0] : "";
-                String archiveFile = detailsParts.length > 1 ? detailsParts[1] : "";
-                
-                StackConfiguration.Application app = new StackConfiguration.Application(appName, version, archiveFile);
-                component.getApplications().add(app);
-            }
+    // The counts cover every change; the table lists the first ones, a whole stack added would take thousands of rows
+    private static void addDiff(Model model, String title, StackDiff diff) {
+        List<StackDiff.NodeChange> changes = diff.getChanges();
+        model.addAttribute("diffTitle", title);
+        model.addAttribute("diff", diff);
+        model.addAttribute("diffChanges", changes.subList(0, Math.min(changes.size(), MAX_LISTED_CHANGES)));
+        model.addAttribute("diffHiddenChanges", Math.max(0, changes.size() - MAX_LISTED_CHANGES));
+    }
+
+    // Hosts the deployment would use: only the default stack is deployed, and only once the pool has hosts
+    private void addPlacement(Model model, String stack, StackConfiguration config) {
+        if (StackConfigRepository.DEFAULT_STACK.equals(stack)) {
+            model.addAttribute("placement", placementService.preview(config));
+        }
+    }
+
+    private static String checkForm(String stack, String community, List<String> selections, long baseVersion) {
+        if (!StackConfigRepository.isValidName(stack)) {
+            return "Nom de stack invalide : " + stack;
+        }
+        // ANY_VERSION (-1) would skip the concurrent save check
+        if (baseVersion < 0) {
+            return "Version de base invalide : " + baseVersion;
+        }
+        if (community == null || selections == null || selections.isEmpty()) {
+            return "Veuillez sélectionner au moins une application";
         }
+        return null;
+    }
+
+    private String showForm(Model model, String stack, String error) {
+        String name = StackConfigRepository.isValidName(stack) ? stack : StackConfigRepository.DEFAULT_STACK;
+        model.addAttribute("error", error);
+        addStackAttributes(model, name, stackConfigService.getSnapshot(name), stackConfigService.getStackNames());
+        return "stack-config";
+    }
+
+    private void addStackAttributes(Model model, String stack, StackSnapshot snapshot, List<String> stackNames) {
+        model.addAttribute("stack", stack);
+        model.addAttribute("stackNames", stackNames);
+        // Posted back with the form: the save fails if the stack moved past it
+        model.addAttribute("baseVersion", snapshot.getVersion());
 
-        return config;
+        // Load existing configuration if available
+        StackConfiguration existingConfig = snapshot.getConfiguration();
+        if (existingConfig != null) {
+            model.addAttribute("existingConfig", existingConfig);
+            model.addAttribute("existingCommunity", existingConfig.getCommunity());
+            model.addAttribute("existingSelections", stackConfigService.getSelectionsFromConfig(existingConfig));
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackSnapshot;
+import com.stetits.core.docker.repository.StackVersionConflictException;
+import com.stetits.core.docker.service.StackConfigService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stacks")
+public class StackController {
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @GetMapping
+    public List<Map<String, Object>> stacks() {
+        List<Map<String, Object>> stacks = new ArrayList<>();
+        for (String name : stackConfigService.getStackNames()) {
+            StackSnapshot snapshot = stackConfigService.getSnapshot(name);
+            if (snapshot.isPresent()) {
+                stacks.add(summary(name, snapshot));
+            }
+        }
+        return stacks;
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<?> stack(@PathVariable String name) {
+        StackSnapshot snapshot = stackConfigService.getSnapshot(name);
+        if (!snapshot.isPresent()) {
+            return unknownStack(name);
+        }
+        Map<String, Object> body = summary(name, snapshot);
+        body.put("configuration", snapshot.getConfiguration());
+        return ResponseEntity.ok(body);
+    }
+
+    // The default stack cannot be deleted; the history of a deleted stack is kept
+    @DeleteMapping("/{name}")
+    public ResponseEntity<?> delete(@PathVariable String name, @RequestParam(required = false) Long expectedVersion) {
+        try {
+            if (expectedVersion != null && expectedVersion < 0) {
+                throw new IllegalArgumentException("Version attendue invalide : " + expectedVersion);
+            }
+            StackSnapshot snapshot = stackConfigService.deleteStack(name,
+                    expectedVersion != null ? expectedVersion : StackConfigRepository.ANY_VERSION);
+            return snapshot != null ? ResponseEntity.noContent().build() : unknownStack(name);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (StackVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error",
+                    "La stack " + name + " est à la version " + e.getCurrentVersion() + ", pas " + e.getExpectedVersion()));
+        }
+    }
+
+    private static Map<String, Object> summary(String name, StackSnapshot snapshot) {
+        StackConfiguration config = snapshot.getConfiguration();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("name", name);
+        summary.put("version", snapshot.getVersion());
+        summary.put("community", config.getCommunity());
+        summary.put("applicationCount", config.getPlatforms().stream()
+                .flatMap(platform -> platform.getComponents().stream())
+                .mapToInt(component -> component.getApplications().size())
+                .sum());
+        return summary;
+    }
+
+    private static ResponseEntity<?> unknownStack(String name) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Stack inconnue : " + name));
+    }
+}
@@ -0,0 +1,85 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.HistoryEntry;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackSnapshot;
+import com.stetits.core.docker.repository.StackVersionConflictException;
+import com.stetits.core.docker.service.StackConfigService;
+import com.stetits.core.docker.service.StackHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/history")
+public class StackHistoryController {
+
+    @Autowired
+    private StackHistoryService stackHistoryService;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    // Every endpoint takes the stack name, the default stack when omitted
+    @GetMapping
+    public ResponseEntity<?> history(@RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack) {
+        List<HistoryEntry> entries = stackHistoryService.getHistory(stack);
+        return entries != null ? ResponseEntity.ok(entries) : unknownStack(stack);
+    }
+
+    @GetMapping("/{version}")
+    public ResponseEntity<?> version(@PathVariable long version,
+                                     @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack) {
+        StackConfiguration config = stackHistoryService.getVersion(stack, version);
+        return config != null ? ResponseEntity.ok(config) : unknownVersion(version);
+    }
+
+    // Changes from one version to another, the current one by default
+    @GetMapping("/diff")
+    public ResponseEntity<?> diff(@RequestParam long from, @RequestParam(required = false) Long to,
+                                  @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack) {
+        long target = to != null ? to : stackConfigService.getSnapshot(stack).getVersion();
+        StackDiff diff = stackHistoryService.diff(stack, from, target);
+        if (diff == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Version inconnue : " + from + " ou " + target));
+        }
+        return ResponseEntity.ok(diff);
+    }
+
+    @PostMapping("/{version}/rollback")
+    public ResponseEntity<?> rollback(@PathVariable long version,
+                                      @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack) {
+        try {
+            StackSnapshot snapshot = stackHistoryService.rollback(stack, version);
+            if (snapshot == null) {
+                return unknownVersion(version);
+            }
+            return ResponseEntity.ok(Map.of("stack", stack, "version", snapshot.getVersion(), "restoredFrom", version));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (StackVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "La stack a été modifiée pendant la restauration, réessayez"));
+        }
+    }
+
+    private static ResponseEntity<?> unknownVersion(long version) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Version inconnue : " + version));
+    }
+
+    private static ResponseEntity<?> unknownStack(String stack) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Stack inconnue : " + stack));
+    }
+}
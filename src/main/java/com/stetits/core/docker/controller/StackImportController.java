@@ -0,0 +1,115 @@
+package com.stetits.core.docker.controller;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.stetits.core.docker.model.ImportReport;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackVersionConflictException;
+import com.stetits.core.docker.service.StackConfigService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// The import replaces the whole stack; with expectedVersion, only if nobody saved it since that version
+@RestController
+public class StackImportController {
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    // Line-delimited body: platform|component|app|version:archiveFile
+    @PostMapping(value = "/stack-config/import", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<ImportReport> importLines(
+            @RequestParam String community,
+            @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack,
+            @RequestParam(required = false) Long expectedVersion,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            HttpServletRequest request) throws IOException {
+        try {
+            return toResponse(stackConfigService.importSelections(stack, community, reader(request), dryRun,
+                    expectedVersion(expectedVersion)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(failedReport(community, e.getMessage()));
+        } catch (StackVersionConflictException e) {
+            return conflict(community, e);
+        }
+    }
+
+    // JSON body: ["platform|component|app|version:archiveFile", ...]
+    @PostMapping(value = "/stack-config/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importJson(
+            @RequestParam String community,
+            @RequestParam(defaultValue = StackConfigRepository.DEFAULT_STACK) String stack,
+            @RequestParam(required = false) Long expectedVersion,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            HttpServletRequest request) throws IOException {
+        try {
+            return toResponse(stackConfigService.importJsonSelections(stack, community, request.getInputStream(), dryRun,
+                    expectedVersion(expectedVersion)));
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(failedReport(community, "JSON invalide" + location(e) + " : " + e.getOriginalMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(failedReport(community, e.getMessage()));
+        } catch (StackVersionConflictException e) {
+            return conflict(community, e);
+        }
+    }
+
+    // getReader() would decode as ISO-8859-1 when the request names no charset
+    private static BufferedReader reader(HttpServletRequest request) throws IOException {
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+    }
+
+    private static String location(JsonProcessingException e) {
+        JsonLocation location = e.getLocation();
+        if (location == null) {
+            return "";
+        }
+        return " ligne " + location.getLineNr() + ", colonne " + location.getColumnNr();
+    }
+
+    // Omitted means any version; ANY_VERSION itself is not accepted from a client
+    private static long expectedVersion(Long expectedVersion) {
+        if (expectedVersion == null) {
+            return StackConfigRepository.ANY_VERSION;
+        }
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Version attendue invalide : " + expectedVersion);
+        }
+        return expectedVersion;
+    }
+
+    private ResponseEntity<ImportReport> conflict(String community, StackVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(failedReport(community,
+                "La stack " + e.getStack() + " est à la version " + e.getCurrentVersion()
+                        + ", pas " + e.getExpectedVersion() + " : elle a été modifiée entre-temps"));
+    }
+
+    private static ImportReport failedReport(String community, String message) {
+        ImportReport report = new ImportReport();
+        report.setCommunity(community);
+        report.setRejected(1);
+        report.getErrors().add(new ImportReport.LineError(0, null, message));
+        return report;
+    }
+
+    private ResponseEntity<ImportReport> toResponse(ImportReport report) {
+        if (report.getRejected() > 0) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(report);
+        }
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,62 @@
+package com.stetits.core.docker.controller;
+
+import com.stetits.core.docker.model.ValidationRequest;
+import com.stetits.core.docker.model.ValidationResult;
+import com.stetits.core.docker.service.CatalogService;
+import com.stetits.core.docker.service.StackValidationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stack-config/validation")
+public class StackValidationController {
+
+    @Autowired
+    private StackValidationService stackValidationService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    // Opens a session with the whole selection
+    @PostMapping
+    public ResponseEntity<?> open(@RequestBody ValidationRequest request) {
+        if (request.getCommunity() == null || request.getCommunity().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Communauté manquante"));
+        }
+        if (!catalogService.getCommunities().contains(request.getCommunity())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Communauté inconnue : " + request.getCommunity()));
+        }
+        return ResponseEntity.ok(stackValidationService.openSession(request.getCommunity(), orEmpty(request.getSelections())));
+    }
+
+    // Only the selections added and removed since the previous request
+    @PostMapping("/{session}")
+    public ResponseEntity<?> update(@PathVariable String session, @RequestBody ValidationRequest request) {
+        ValidationResult result = stackValidationService.update(session, orEmpty(request.getRemoved()), orEmpty(request.getAdded()));
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Session de validation inconnue ou expirée"));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @DeleteMapping("/{session}")
+    public ResponseEntity<Void> close(@PathVariable String session) {
+        stackValidationService.closeSession(session);
+        return ResponseEntity.noContent().build();
+    }
+
+    // An explicit null in the body replaces the empty list of the request
+    private static List<String> orEmpty(List<String> selections) {
+        return selections != null ? selections : List.of();
+    }
+}
@@ -0,0 +1,275 @@
+package com.stetits.core.docker.deploy;
+
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.model.DeploymentReport;
+import com.stetits.core.docker.storage.ArchiveCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link DeploymentPlan} on virtual threads. Every node gets its own
+ * virtual thread; the Docker calls of one platform are capped by a semaphore
+ * so a large platform cannot flood the daemon. Archives are read through the
+ * {@link ArchiveCache}; archives with the same content, even under different
+ * paths, are loaded once per deployment and host, at most
+ * {@code load-concurrency} at a time. The bytes sent for each one are
+ * reported as the upload goes. Applications placed on a host of the pool are
+ * deployed through that host's client.
+ */
+public class DeploymentEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DeploymentEngine.class);
+
+    private final DockerClient docker;
+    // Client of a host of the pool by name, null once the host left the pool
+    private final Function<String, DockerClient> hosts;
+    private final ArchiveCache archiveCache;
+    private final int platformConcurrency;
+    private final Semaphore loadPermits;
+
+    public DeploymentEngine(DockerClient docker, ArchiveCache archiveCache, int platformConcurrency, int loadConcurrency) {
+        this(docker, host -> null, archiveCache, platformConcurrency, loadConcurrency);
+    }
+
+    public DeploymentEngine(DockerClient docker, Function<String, DockerClient> hosts, ArchiveCache archiveCache,
+                            int platformConcurrency, int loadConcurrency) {
+        this.docker = docker;
+        this.hosts = hosts;
+        this.archiveCache = archiveCache;
+        this.platformConcurrency = Math.max(1, platformConcurrency);
+        this.loadPermits = new Semaphore(Math.max(1, loadConcurrency));
+    }
+
+    public void execute(DeploymentPlan plan, DeploymentReport report) {
+        long start = System.nanoTime();
+        report.getSteps().addAll(plan.getSteps());
+        report.setStatus(DeploymentReport.RUNNING);
+        ImageLoads images = new ImageLoads(report, start);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> platforms = new ArrayList<>();
+            for (DeploymentPlan.PlatformNode platform : plan.getPlatforms()) {
+                platforms.add(executor.submit(() -> runPlatform(platform, executor, images, start)));
+            }
+            boolean succeeded = true;
+            for (Future<Boolean> platform : platforms) {
+                succeeded &= join(platform);
+            }
+            report.setStatus(succeeded ? DeploymentReport.SUCCEEDED : DeploymentReport.FAILED);
+        } finally {
+            report.setDurationMs(elapsedMs(start));
+        }
+    }
+
+    private boolean runPlatform(DeploymentPlan.PlatformNode platform, ExecutorService executor,
+                                ImageLoads images, long start) {
+        DeploymentReport.Step step = platform.getStep();
+        long stepStart = begin(step, start);
+        try {
+            for (String host : platform.getDeployHosts()) {
+                docker(host).ensureNetwork(platform.getNetwork(), platform.getLabels());
+            }
+        } catch (Exception e) {
+            fail(step, stepStart, e);
+            platform.getComponents().forEach(component -> {
+                skip(component.getStep());
+                component.getApplications().forEach(app -> skip(app.getStep()));
+            });
+            return false;
+        }
+
+        Semaphore permits = new Semaphore(platformConcurrency);
+        List<Future<Boolean>> components = new ArrayList<>();
+        for (DeploymentPlan.ComponentNode component : platform.getComponents()) {
+            components.add(executor.submit(() -> runComponent(component, executor, permits, images, start)));
+        }
+        boolean succeeded = true;
+        for (Future<Boolean> component : components) {
+            succeeded &= join(component);
+        }
+        end(step, stepStart, succeeded, succeeded ? null : "Au moins un composant a échoué");
+        return succeeded;
+    }
+
+    private boolean runComponent(DeploymentPlan.ComponentNode component, ExecutorService executor, Semaphore permits,
+                                 ImageLoads images, long start) {
+        DeploymentReport.Step step = component.getStep();
+        long stepStart = begin(step, start);
+        List<Future<Boolean>> applications = new ArrayList<>();
+        for (DeploymentPlan.ApplicationNode application : component.getApplications()) {
+            applications.add(executor.submit(() -> runApplication(application, permits, images, start)));
+        }
+        boolean succeeded = true;
+        for (Future<Boolean> application : applications) {
+            succeeded &= join(application);
+        }
+        end(step, stepStart, succeeded, succeeded ? null : "Au moins une application a échoué");
+        return succeeded;
+    }
+
+    private boolean runApplication(DeploymentPlan.ApplicationNode application, Semaphore permits,
+                                   ImageLoads images, long start) {
+        DeploymentReport.Step step = application.getStep();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            skip(step);
+            return false;
+        }
+        long stepStart = begin(step, start);
+        try {
+            String host = application.getHost();
+            if (application.getAction() == DeploymentPlan.Action.REMOVE) {
+                DockerClient client = host == null ? docker : hosts.apply(host);
+                if (client == null) {
+                    end(step, stepStart, true, "Hôte " + host + " retiré du pool");
+                    return true;
+                }
+                remove(client, application);
+                end(step, stepStart, true, "Conteneur supprimé");
+                return true;
+            }
+            if (application.isUnplaced()) {
+                end(step, stepStart, false, "Aucun hôte n'a assez de CPU ou de mémoire pour cette application");
+                return false;
+            }
+            String previousHost = application.getPreviousHost();
+            if (!Objects.equals(previousHost, host)) {
+                // Moved: the container left on the previous host goes, unless that host left the pool.
+                // No previous host means core.docker.host, where it ran before the pool was enabled.
+                DockerClient previous = previousHost == null ? docker : hosts.apply(previousHost);
+                if (previous != null) {
+                    remove(previous, application);
+                }
+            }
+            DockerClient client = docker(host);
+            String image = images.load(host, application.getApplication().getArchiveFile());
+            remove(client, application);
+            String id = client.createContainer(application.getContainerName(), image, application.getComponent().getPlatform().getNetwork(), application.getLabels());
+            client.startContainer(id);
+            end(step, stepStart, true, host == null ? image : image + " sur " + host);
+            return true;
+        } catch (Exception e) {
+            fail(step, stepStart, e);
+            return false;
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Also removes the container under the name given by releases before names were hashed
+    private static void remove(DockerClient client, DeploymentPlan.ApplicationNode application) throws IOException {
+        client.removeContainer(application.getContainerName());
+        client.removeContainer(application.getLegacyContainerName());
+    }
+
+    private DockerClient docker(String host) {
+        if (host == null) {
+            return docker;
+        }
+        DockerClient client = hosts.apply(host);
+        if (client == null) {
+            throw new IllegalStateException("Hôte " + host + " retiré du pool");
+        }
+        return client;
+    }
+
+    // Images of one deployment, keyed by host and archive digest
+    private final class ImageLoads {
+        private final DeploymentReport report;
+        private final long deploymentStart;
+        private final Map<String, CompletableFuture<String>> images = new ConcurrentHashMap<>();
+
+        private ImageLoads(DeploymentReport report, long deploymentStart) {
+            this.report = report;
+            this.deploymentStart = deploymentStart;
+        }
+
+        String load(String host, String archiveFile) throws Exception {
+            try (ArchiveCache.Lease archive = archiveCache.acquire(Path.of(archiveFile))) {
+                CompletableFuture<String> created = new CompletableFuture<>();
+                CompletableFuture<String> existing = images.putIfAbsent(host + "|" + archive.getDigest(), created);
+                if (existing != null) {
+                    return join(existing);
+                }
+                DeploymentReport.ArchiveLoad load = new DeploymentReport.ArchiveLoad(archiveFile, host, archive.getSize());
+                report.getLoads().add(load);
+                try {
+                    loadPermits.acquire();
+                    try {
+                        long loadStart = System.nanoTime();
+                        load.setStartOffsetMs((loadStart - deploymentStart) / 1_000_000);
+                        load.setStatus(DeploymentReport.RUNNING);
+                        String image = docker(host).loadImage(archive.getPath(), load::setSentBytes);
+                        load.setDurationMs(elapsedMs(loadStart));
+                        load.setStatus(DeploymentReport.SUCCEEDED);
+                        created.complete(image);
+                    } finally {
+                        loadPermits.release();
+                    }
+                } catch (Exception e) {
+                    load.setStatus(DeploymentReport.FAILED);
+                    created.completeExceptionally(e);
+                }
+                return join(created);
+            }
+        }
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Deployment interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    private static long begin(DeploymentReport.Step step, long deploymentStart) {
+        long now = System.nanoTime();
+        step.setStatus(DeploymentReport.RUNNING);
+        step.setStartOffsetMs((now - deploymentStart) / 1_000_000);
+        return now;
+    }
+
+    private static void end(DeploymentReport.Step step, long stepStart, boolean succeeded, String message) {
+        step.setDurationMs(elapsedMs(stepStart));
+        step.setMessage(message);
+        step.setStatus(succeeded ? DeploymentReport.SUCCEEDED : DeploymentReport.FAILED);
+    }
+
+    private static void fail(DeploymentReport.Step step, long stepStart, Exception e) {
+        log.warn("Deployment step {} failed: {}", step.getId(), e.getMessage());
+        end(step, stepStart, false, e.getMessage());
+    }
+
+    private static void skip(DeploymentReport.Step step) {
+        step.setStatus(DeploymentReport.SKIPPED);
+    }
+
+    private static long elapsedMs(long since) {
+        return (System.nanoTime() - since) / 1_000_000;
+    }
+}
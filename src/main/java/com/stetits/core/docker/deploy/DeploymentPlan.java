@@ -0,0 +1,385 @@
+package com.stetits.core.docker.deploy;
+
+import com.stetits.core.docker.model.CatalogNode;
+import com.stetits.core.docker.model.DeploymentReport;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Execution plan derived from a saved configuration: platforms (one network
+ * each), then their components, then the applications (image load and
+ * container start). A node only starts once its parent succeeded; siblings are
+ * independent of each other.
+ */
+public class DeploymentPlan {
+
+    public enum Action {
+        DEPLOY, REMOVE
+    }
+
+    private final String community;
+    private final List<PlatformNode> platforms = new ArrayList<>();
+    // Set once the applications are placed on the hosts of the pool
+    private boolean placed;
+
+    public DeploymentPlan(String community) {
+        this.community = community;
+    }
+
+    public static DeploymentPlan of(StackConfiguration config) {
+        DeploymentPlan plan = new DeploymentPlan(config.getCommunity());
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            PlatformNode platformNode = plan.addPlatform(platform.getName());
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                ComponentNode componentNode = platformNode.addComponent(component.getName());
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    componentNode.addApplication(app);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Plan touching only the applications listed in the diff: added and
+     * modified ones are (re)deployed from {@code next}, removed ones have their
+     * container deleted. Both configurations must belong to the same community.
+     */
+    public static DeploymentPlan incremental(StackConfiguration previous, StackConfiguration next, StackDiff diff) {
+        return incremental(previous, next, diff, Set.of());
+    }
+
+    /**
+     * Same as {@link #incremental(StackConfiguration, StackConfiguration, StackDiff)},
+     * also redeploying the unchanged applications listed in {@code moved}
+     * (platform|component|app), such as those placed on another host.
+     */
+    public static DeploymentPlan incremental(StackConfiguration previous, StackConfiguration next, StackDiff diff,
+                                             Set<String> moved) {
+        Map<String, StackConfiguration.Application> nextApps = applicationsById(next);
+        Map<String, StackConfiguration.Application> previousApps = applicationsById(previous);
+        DeploymentPlan plan = new DeploymentPlan(next.getCommunity());
+        Map<String, PlatformNode> platforms = new HashMap<>();
+        Map<String, ComponentNode> components = new HashMap<>();
+
+        Set<String> changed = new HashSet<>();
+        for (StackDiff.NodeChange change : diff.getApplicationChanges()) {
+            boolean removed = change.getTypes().contains(StackDiff.ChangeType.REMOVED);
+            StackConfiguration.Application app = removed ? previousApps.get(change.getId()) : nextApps.get(change.getId());
+            plan.add(change.getId(), app, removed ? Action.REMOVE : Action.DEPLOY, platforms, components);
+            changed.add(change.getId());
+        }
+        for (String id : moved) {
+            if (!changed.contains(id) && nextApps.containsKey(id)) {
+                plan.add(id, nextApps.get(id), Action.DEPLOY, platforms, components);
+            }
+        }
+        return plan;
+    }
+
+    private void add(String id, StackConfiguration.Application app, Action action,
+                     Map<String, PlatformNode> platforms, Map<String, ComponentNode> components) {
+        String[] parts = id.split("\\|", 3);
+        PlatformNode platformNode = platforms.computeIfAbsent(parts[0], this::addPlatform);
+        ComponentNode componentNode = components.computeIfAbsent(parts[0] + "|" + parts[1],
+                key -> platformNode.addComponent(parts[1]));
+        componentNode.addApplication(app, action);
+    }
+
+    /**
+     * Runs each application on its host: {@code placement} for those deployed,
+     * {@code deployed} (the hosts of the last deployment) for those removed and
+     * for the containers left behind by a move. An application deployed but
+     * missing from {@code placement} has no host with room for it.
+     */
+    public void placeOn(Map<String, String> placement, Map<String, String> deployed) {
+        placed = true;
+        for (PlatformNode platform : platforms) {
+            for (ComponentNode component : platform.components) {
+                for (ApplicationNode application : component.applications) {
+                    String id = application.step.getId();
+                    application.previousHost = deployed.get(id);
+                    application.host = application.action == Action.REMOVE ? application.previousHost : placement.get(id);
+                }
+            }
+        }
+    }
+
+    public boolean isPlaced() {
+        return placed;
+    }
+
+    private static Map<String, StackConfiguration.Application> applicationsById(StackConfiguration config) {
+        Map<String, StackConfiguration.Application> applications = new HashMap<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    applications.put(platform.getName() + "|" + component.getName() + "|" + app.getName(), app);
+                }
+            }
+        }
+        return applications;
+    }
+
+    public PlatformNode addPlatform(String name) {
+        PlatformNode node = new PlatformNode(this, name);
+        platforms.add(node);
+        return node;
+    }
+
+    public String getCommunity() {
+        return community;
+    }
+
+    public List<PlatformNode> getPlatforms() {
+        return platforms;
+    }
+
+    public int getApplicationCount() {
+        int count = 0;
+        for (PlatformNode platform : platforms) {
+            for (ComponentNode component : platform.components) {
+                count += component.applications.size();
+            }
+        }
+        return count;
+    }
+
+    // Steps in plan order (each parent before its children), for the report
+    public List<DeploymentReport.Step> getSteps() {
+        List<DeploymentReport.Step> steps = new ArrayList<>();
+        for (PlatformNode platform : platforms) {
+            steps.add(platform.step);
+            for (ComponentNode component : platform.components) {
+                steps.add(component.step);
+                for (ApplicationNode application : component.applications) {
+                    steps.add(application.step);
+                }
+            }
+        }
+        return steps;
+    }
+
+    public static class PlatformNode {
+        private final DeploymentPlan plan;
+        private final String name;
+        private final DeploymentReport.Step step;
+        private final List<ComponentNode> components = new ArrayList<>();
+
+        PlatformNode(DeploymentPlan plan, String name) {
+            this.plan = plan;
+            this.name = name;
+            this.step = new DeploymentReport.Step(name, CatalogNode.PLATFORM);
+        }
+
+        public ComponentNode addComponent(String componentName) {
+            ComponentNode node = new ComponentNode(this, componentName);
+            components.add(node);
+            return node;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getNetwork() {
+            return dockerName("core", plan.community, name);
+        }
+
+        public Map<String, String> getLabels() {
+            Map<String, String> labels = new LinkedHashMap<>();
+            labels.put("core.stack", plan.community);
+            labels.put("core.platform", name);
+            return labels;
+        }
+
+        public DeploymentReport.Step getStep() {
+            return step;
+        }
+
+        public List<ComponentNode> getComponents() {
+            return components;
+        }
+
+        // Hosts running a deployed application of the platform (null: core.docker.host), each needing the network.
+        // A platform whose applications are all being removed needs none.
+        public Set<String> getDeployHosts() {
+            Set<String> hosts = new LinkedHashSet<>();
+            for (ComponentNode component : components) {
+                for (ApplicationNode application : component.applications) {
+                    if (application.action == Action.DEPLOY && (application.host != null || !plan.placed)) {
+                        hosts.add(application.host);
+                    }
+                }
+            }
+            return hosts;
+        }
+    }
+
+    public static class ComponentNode {
+        private final PlatformNode platform;
+        private final String name;
+        private final DeploymentReport.Step step;
+        private final List<ApplicationNode> applications = new ArrayList<>();
+
+        ComponentNode(PlatformNode platform, String name) {
+            this.platform = platform;
+            this.name = name;
+            this.step = new DeploymentReport.Step(platform.name + "|" + name, CatalogNode.COMPONENT);
+        }
+
+        public ApplicationNode addApplication(StackConfiguration.Application application) {
+            return addApplication(application, Action.DEPLOY);
+        }
+
+        public ApplicationNode addApplication(StackConfiguration.Application application, Action action) {
+            ApplicationNode node = new ApplicationNode(this, application, action);
+            applications.add(node);
+            return node;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PlatformNode getPlatform() {
+            return platform;
+        }
+
+        public DeploymentReport.Step getStep() {
+            return step;
+        }
+
+        public List<ApplicationNode> getApplications() {
+            return applications;
+        }
+    }
+
+    public static class ApplicationNode {
+        private final ComponentNode component;
+        private final StackConfiguration.Application application;
+        private final Action action;
+        private final DeploymentReport.Step step;
+        private String host;
+        private String previousHost;
+
+        ApplicationNode(ComponentNode component, StackConfiguration.Application application, Action action) {
+            this.component = component;
+            this.application = application;
+            this.action = action;
+            this.step = new DeploymentReport.Step(component.step.getId() + "|" + application.getName(), CatalogNode.APPLICATION);
+        }
+
+        public StackConfiguration.Application getApplication() {
+            return application;
+        }
+
+        public ComponentNode getComponent() {
+            return component;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        /** Host of the pool running the application, null for core.docker.host or when it could not be placed. */
+        public String getHost() {
+            return host;
+        }
+
+        /** Host of the last deployment, null when unknown or on core.docker.host. */
+        public String getPreviousHost() {
+            return previousHost;
+        }
+
+        // Placed on the pool, but no host had room for it
+        public boolean isUnplaced() {
+            return component.platform.plan.placed && action == Action.DEPLOY && host == null;
+        }
+
+        public String getContainerName() {
+            PlatformNode platform = component.platform;
+            return containerName(platform.plan.community, platform.name, component.name, application.getName());
+        }
+
+        public String getLegacyContainerName() {
+            PlatformNode platform = component.platform;
+            return legacyContainerName(platform.plan.community, platform.name, component.name, application.getName());
+        }
+
+        public Map<String, String> getLabels() {
+            Map<String, String> labels = component.platform.getLabels();
+            labels.put("core.component", component.name);
+            labels.put("core.application", application.getName());
+            labels.put("core.version", application.getVersion());
+            labels.put("core.archive", application.getArchiveFile());
+            return labels;
+        }
+
+        public DeploymentReport.Step getStep() {
+            return step;
+        }
+    }
+
+    public static String containerName(String community, String platform, String component, String application) {
+        return dockerName("core", community, platform, component, application);
+    }
+
+    /**
+     * Name the container had before names carried a hash of their parts,
+     * removed when deploying so that containers of earlier releases are not
+     * left running next to the renamed ones.
+     */
+    public static String legacyContainerName(String community, String platform, String component, String application) {
+        String[] parts = {"core", community, platform, component, application};
+        String name = sanitize(parts);
+        return name.equals(String.join("-", parts)) ? name : name + "-" + hash(String.join("\n", parts));
+    }
+
+    // Docker names accept [a-zA-Z0-9][a-zA-Z0-9_.-]*. '-' is legal inside a part too, so "a-b"+"c" and
+    // "a"+"b-c" join the same way: the hash of the length-prefixed parts is always appended to tell them apart.
+    static String dockerName(String... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (String part : parts) {
+            raw.append(part.length()).append(':').append(part);
+        }
+        return sanitize(parts) + "-" + hash(raw.toString());
+    }
+
+    private static String sanitize(String... parts) {
+        StringBuilder name = new StringBuilder();
+        for (String part : parts) {
+            if (name.length() > 0) {
+                name.append('-');
+            }
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.' || c == '-';
+                name.append(allowed ? c : '-');
+            }
+        }
+        return name.toString();
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
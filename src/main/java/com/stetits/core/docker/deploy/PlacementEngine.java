@@ -0,0 +1,151 @@
+package com.stetits.core.docker.deploy;
+
+import com.stetits.core.docker.model.DockerHost;
+import com.stetits.core.docker.model.PlacementResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bin-packs placement units (an application, or all the applications of a
+ * platform kept together) onto Docker hosts by CPU and memory. Placement is
+ * incremental: a unit stays on its previous host while that host is still in
+ * the pool and has room, so adding a host only places what did not fit, and
+ * removing one only moves its own applications. The other units go, largest
+ * first, to the host they fill the most (best fit decreasing).
+ */
+public final class PlacementEngine {
+
+    /** Applications (platform|component|app) that must share a host, with their total requirement. */
+    public record Unit(List<String> applications, double cpu, long memoryMb) {
+    }
+
+    private PlacementEngine() {
+    }
+
+    /**
+     * @param previous host of each application in the previous placement, by host name
+     */
+    public static PlacementResult place(List<DockerHost> hosts, List<Unit> units, Map<String, String> previous) {
+        long start = System.nanoTime();
+        int hostCount = hosts.size();
+        double[] freeCpu = new double[hostCount];
+        long[] freeMemory = new long[hostCount];
+        Map<String, Integer> hostIndex = new HashMap<>();
+        double totalCpu = 0;
+        long totalMemory = 0;
+        for (int h = 0; h < hostCount; h++) {
+            DockerHost host = hosts.get(h);
+            freeCpu[h] = host.getCpu();
+            freeMemory[h] = host.getMemoryMb();
+            hostIndex.put(host.getName(), h);
+            totalCpu += host.getCpu();
+            totalMemory += host.getMemoryMb();
+        }
+
+        // Largest share of the pool first, so that what overflows is small and easy to fit elsewhere
+        double cpuScale = totalCpu > 0 ? totalCpu : 1;
+        double memoryScale = totalMemory > 0 ? totalMemory : 1;
+        List<Unit> ordered = new ArrayList<>(units);
+        ordered.sort(Comparator.comparingDouble((Unit unit) -> Math.max(unit.cpu() / cpuScale, unit.memoryMb() / memoryScale))
+                .reversed()
+                .thenComparing(unit -> unit.applications().get(0)));
+
+        int[] placedOn = new int[ordered.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int u = 0; u < ordered.size(); u++) {
+            Unit unit = ordered.get(u);
+            Integer h = hostIndex.get(previousHost(unit, previous));
+            if (h != null && fits(unit, h, freeCpu, freeMemory)) {
+                placedOn[u] = take(unit, h, freeCpu, freeMemory);
+            } else {
+                placedOn[u] = -1;
+                pending.add(u);
+            }
+        }
+        for (int u : pending) {
+            Unit unit = ordered.get(u);
+            double bestSlack = Double.MAX_VALUE;
+            for (int h = 0; h < hostCount; h++) {
+                if (!fits(unit, h, freeCpu, freeMemory)) {
+                    continue;
+                }
+                DockerHost host = hosts.get(h);
+                // Share of the host left free once the unit is there, on its least used resource
+                double slack = Math.max((freeCpu[h] - unit.cpu()) / host.getCpu(),
+                        (double) (freeMemory[h] - unit.memoryMb()) / host.getMemoryMb());
+                if (slack < bestSlack) {
+                    bestSlack = slack;
+                    placedOn[u] = h;
+                }
+            }
+            if (placedOn[u] >= 0) {
+                take(unit, placedOn[u], freeCpu, freeMemory);
+            }
+        }
+
+        PlacementResult result = new PlacementResult();
+        List<PlacementResult.HostUsage> usages = new ArrayList<>(hostCount);
+        for (DockerHost host : hosts) {
+            usages.add(new PlacementResult.HostUsage(host));
+        }
+        int moved = 0;
+        for (int u = 0; u < ordered.size(); u++) {
+            Unit unit = ordered.get(u);
+            if (placedOn[u] < 0) {
+                result.getUnplaced().addAll(unit.applications());
+                continue;
+            }
+            PlacementResult.HostUsage usage = usages.get(placedOn[u]);
+            usage.setUsedCpu(usage.getUsedCpu() + unit.cpu());
+            usage.setUsedMemoryMb(usage.getUsedMemoryMb() + unit.memoryMb());
+            usage.setApplicationCount(usage.getApplicationCount() + unit.applications().size());
+            for (String application : unit.applications()) {
+                result.getAssignments().put(application, usage.getName());
+                String before = previous.get(application);
+                if (before != null && !before.equals(usage.getName())) {
+                    moved++;
+                }
+            }
+        }
+        result.setHosts(usages);
+        result.setMoved(moved);
+        result.setDurationMicros((System.nanoTime() - start) / 1_000);
+        return result;
+    }
+
+    // Host holding most of the unit's applications before, or null
+    private static String previousHost(Unit unit, Map<String, String> previous) {
+        if (unit.applications().size() == 1) {
+            return previous.get(unit.applications().get(0));
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        String best = null;
+        int bestCount = 0;
+        for (String application : unit.applications()) {
+            String host = previous.get(application);
+            if (host != null) {
+                int count = counts.merge(host, 1, Integer::sum);
+                if (count > bestCount) {
+                    bestCount = count;
+                    best = host;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean fits(Unit unit, int h, double[] freeCpu, long[] freeMemory) {
+        // Tolerance for the rounding of summed fractional cores
+        return unit.cpu() <= freeCpu[h] + 1e-9 && unit.memoryMb() <= freeMemory[h];
+    }
+
+    private static int take(Unit unit, int h, double[] freeCpu, long[] freeMemory) {
+        freeCpu[h] -= unit.cpu();
+        freeMemory[h] -= unit.memoryMb();
+        return h;
+    }
+}
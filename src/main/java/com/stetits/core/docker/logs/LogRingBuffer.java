@@ -0,0 +1,118 @@
+package com.stetits.core.docker.logs;
+
+import com.stetits.core.docker.model.LogLine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Most recent output of one application, in a fixed-size direct buffer.
+ * Records ({@code int length, byte stream, long time, UTF-8 text}) are written
+ * back to back and wrap around; the oldest ones are evicted to make room, so
+ * the memory used never depends on how much the application logs.
+ */
+public final class LogRingBuffer {
+
+    private static final int RECORD_HEADER = 4 + 1 + 8;
+    private static final String[] STREAMS = {LogLine.SYSTEM, "stdout", "stderr"};
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int maxTextBytes;
+    private final byte[] header = new byte[RECORD_HEADER];
+    private int head;
+    private int used;
+    private long firstSequence;
+    private long nextSequence;
+
+    public LogRingBuffer(int capacity) {
+        if (capacity < 1024) {
+            throw new IllegalArgumentException("Log buffer too small: " + capacity);
+        }
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.capacity = capacity;
+        // A single line never takes more than a quarter of the buffer
+        this.maxTextBytes = capacity / 4 - RECORD_HEADER;
+    }
+
+    public synchronized LogLine append(String stream, long time, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxTextBytes);
+        int size = RECORD_HEADER + length;
+        while (capacity - used < size) {
+            evictOldest();
+        }
+        int offset = (head + used) % capacity;
+        ByteBuffer.wrap(header).putInt(length).put(streamCode(stream)).putLong(time);
+        write(offset, header, RECORD_HEADER);
+        write((offset + RECORD_HEADER) % capacity, bytes, length);
+        used += size;
+        String stored = length < bytes.length ? new String(bytes, 0, length, StandardCharsets.UTF_8) : text;
+        return new LogLine(nextSequence++, STREAMS[streamCode(stream)], time, stored);
+    }
+
+    /** The last {@code count} lines, oldest first. */
+    public synchronized List<LogLine> last(int count) {
+        long available = nextSequence - firstSequence;
+        long skip = Math.max(0, available - Math.max(0, count));
+        List<LogLine> lines = new ArrayList<>((int) (available - skip));
+        byte[] recordHeader = new byte[RECORD_HEADER];
+        int offset = head;
+        for (long sequence = firstSequence; sequence < nextSequence; sequence++) {
+            read(offset, recordHeader, RECORD_HEADER);
+            ByteBuffer fields = ByteBuffer.wrap(recordHeader);
+            int length = fields.getInt();
+            if (sequence - firstSequence >= skip) {
+                byte stream = fields.get();
+                long time = fields.getLong();
+                byte[] text = new byte[length];
+                read((offset + RECORD_HEADER) % capacity, text, length);
+                lines.add(new LogLine(sequence, STREAMS[stream], time, new String(text, StandardCharsets.UTF_8)));
+            }
+            offset = (offset + RECORD_HEADER + length) % capacity;
+        }
+        return lines;
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void evictOldest() {
+        read(head, header, 4);
+        int size = RECORD_HEADER + ByteBuffer.wrap(header).getInt();
+        head = (head + size) % capacity;
+        used -= size;
+        firstSequence++;
+    }
+
+    private void write(int offset, byte[] source, int length) {
+        int first = Math.min(length, capacity - offset);
+        buffer.put(offset, source, 0, first);
+        if (first < length) {
+            buffer.put(0, source, first, length - first);
+        }
+    }
+
+    private void read(int offset, byte[] target, int length) {
+        int first = Math.min(length, capacity - offset);
+        buffer.get(offset, target, 0, first);
+        if (first < length) {
+            buffer.get(0, target, first, length - first);
+        }
+    }
+
+    private static byte streamCode(String stream) {
+        return switch (stream) {
+            case "stdout" -> 1;
+            case "stderr" -> 2;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.stetits.core.docker.logs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.model.LogLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One browser following a {@link LogTail}. Lines go through a bounded queue
+ * drained by the subscriber's own virtual thread, so a slow connection never
+ * holds up the tail: while the queue is full new lines are dropped (and the
+ * client told how many), and a client that makes no progress for too long is
+ * disconnected.
+ */
+final class LogSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSubscriber.class);
+    private static final int MAX_BATCH = 200;
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+
+    private final String name;
+    private final SseEmitter emitter;
+    private final BlockingQueue<LogLine> queue;
+    private final ObjectMapper objectMapper;
+    private final long stallTimeoutMs;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastProgress = System.currentTimeMillis();
+    private volatile boolean closed;
+    private volatile Thread sender;
+
+    LogSubscriber(String name, SseEmitter emitter, int queueCapacity, long stallTimeoutMs, ObjectMapper objectMapper) {
+        this.name = name;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.stallTimeoutMs = stallTimeoutMs;
+        this.objectMapper = objectMapper;
+    }
+
+    void start(List<LogLine> backlog) {
+        sender = Thread.ofVirtual().name("log-subscriber-" + name).start(() -> run(backlog));
+    }
+
+    /** Called by the tail for every line; returns false once this subscriber is gone. */
+    boolean offer(LogLine line) {
+        if (closed) {
+            return false;
+        }
+        if (queue.offer(line)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        if (System.currentTimeMillis() - lastProgress > stallTimeoutMs) {
+            log.info("Disconnecting a log client of {}: no progress for {} ms", name, stallTimeoutMs);
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Thread thread = sender;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        try {
+            emitter.complete();
+        } catch (RuntimeException e) {
+            // Already completed by the container
+        }
+    }
+
+    private void run(List<LogLine> backlog) {
+        try {
+            // Late joiners get the buffered lines straight away
+            emitter.send(SseEmitter.event().name("lines").data(objectMapper.writeValueAsString(backlog)));
+            lastProgress = System.currentTimeMillis();
+            List<LogLine> batch = new ArrayList<>(MAX_BATCH);
+            while (!closed) {
+                LogLine first = queue.poll(HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                long droppedLines = dropped.getAndSet(0);
+                if (droppedLines > 0) {
+                    emitter.send(SseEmitter.event().name("dropped").data(droppedLines));
+                }
+                if (first == null) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    emitter.send(SseEmitter.event().name("lines").data(objectMapper.writeValueAsString(batch)));
+                    batch.clear();
+                }
+                lastProgress = System.currentTimeMillis();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client gone
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+}
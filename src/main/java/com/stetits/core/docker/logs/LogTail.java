@@ -0,0 +1,159 @@
+package com.stetits.core.docker.logs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.client.ContainerLogLine;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.model.LogLine;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Follows the output of one application's container into a {@link LogRingBuffer}
+ * and fans it out to the subscribers. The daemon connection is reopened when
+ * the container stops or is replaced, resuming after the last line received.
+ */
+public final class LogTail {
+
+    private static final long MIN_RETRY_MS = 1_000;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private final String id;
+    private final String containerName;
+    private final DockerClient docker;
+    private final LogRingBuffer buffer;
+    private final ObjectMapper objectMapper;
+    private final int initialLines;
+    private final int queueCapacity;
+    private final long stallTimeoutMs;
+    private final List<LogSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private volatile DockerClient.LogStream stream;
+    private volatile long idleSince = System.currentTimeMillis();
+    private Instant lastTime;
+
+    public LogTail(String id, String containerName, DockerClient docker, LogRingBuffer buffer, ObjectMapper objectMapper,
+                   int initialLines, int queueCapacity, long stallTimeoutMs) {
+        this.id = id;
+        this.containerName = containerName;
+        this.docker = docker;
+        this.buffer = buffer;
+        this.objectMapper = objectMapper;
+        this.initialLines = initialLines;
+        this.queueCapacity = queueCapacity;
+        this.stallTimeoutMs = stallTimeoutMs;
+    }
+
+    public void start() {
+        running = true;
+        Thread.ofVirtual().name("log-tail-" + containerName).start(this::follow);
+    }
+
+    public void stop() {
+        running = false;
+        DockerClient.LogStream current = stream;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Stopping anyway
+            }
+        }
+        List<LogSubscriber> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(subscribers);
+            subscribers.clear();
+        }
+        remaining.forEach(LogSubscriber::close);
+    }
+
+    /** Attaches a browser: it first receives the last {@code lines} buffered lines, then the new ones. */
+    public void subscribe(SseEmitter emitter, int lines) {
+        LogSubscriber subscriber = new LogSubscriber(containerName, emitter, queueCapacity, stallTimeoutMs, objectMapper);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        List<LogLine> backlog;
+        // Under the lock, so that no line falls between the backlog and the live lines
+        synchronized (this) {
+            backlog = buffer.last(lines);
+            subscribers.add(subscriber);
+        }
+        subscriber.start(backlog);
+    }
+
+    public List<LogLine> last(int lines) {
+        return buffer.last(lines);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getContainerName() {
+        return containerName;
+    }
+
+    public synchronized boolean isIdleSince(long time) {
+        subscribers.removeIf(LogSubscriber::isClosed);
+        return subscribers.isEmpty() && idleSince < time;
+    }
+
+    private synchronized void unsubscribe(LogSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty()) {
+            idleSince = System.currentTimeMillis();
+        }
+    }
+
+    private void follow() {
+        long retry = MIN_RETRY_MS;
+        String lastError = null;
+        while (running) {
+            boolean received = false;
+            // First connection: the last lines; afterwards everything since the last line seen
+            try (DockerClient.LogStream logs = docker.containerLogs(containerName, lastTime == null ? initialLines : -1, lastTime)) {
+                stream = logs;
+                lastError = null;
+                ContainerLogLine line;
+                while ((line = logs.next()) != null) {
+                    Instant time = line.getTime();
+                    if (time != null) {
+                        if (lastTime != null && !time.isAfter(lastTime)) {
+                            continue;
+                        }
+                        lastTime = time;
+                    }
+                    received = true;
+                    publish(line.getStream(), time != null ? time.toEpochMilli() : System.currentTimeMillis(), line.getText());
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running && !Objects.equals(e.getMessage(), lastError)) {
+                    lastError = e.getMessage();
+                    publish(LogLine.SYSTEM, System.currentTimeMillis(), e.getMessage());
+                }
+            } finally {
+                stream = null;
+            }
+            retry = received ? MIN_RETRY_MS : Math.min(retry * 2, MAX_RETRY_MS);
+            try {
+                Thread.sleep(retry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void publish(String streamName, long time, String text) {
+        LogLine line = buffer.append(streamName, time, text);
+        subscribers.removeIf(subscriber -> !subscriber.offer(line));
+    }
+}
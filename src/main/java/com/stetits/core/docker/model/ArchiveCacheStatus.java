@@ -0,0 +1,120 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content of the local archive cache.
+ */
+public class ArchiveCacheStatus {
+    private long maxBytes;
+    private long totalBytes;
+    private int pinned; // Entries being read by a deployment, never evicted
+    private long hits;
+    private long misses;
+    private long evictions;
+    private List<Entry> entries; // Least recently used first
+
+    public ArchiveCacheStatus() {
+        this.entries = new ArrayList<>();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public int getPinned() {
+        return pinned;
+    }
+
+    public void setPinned(int pinned) {
+        this.pinned = pinned;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static class Entry {
+        private String digest; // SHA-256 of the content
+        private long size;
+        private long lastAccess; // Epoch milliseconds
+        private List<String> sources; // Archive files known to hold this content
+
+        public Entry() {
+            this.sources = new ArrayList<>();
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public void setDigest(String digest) {
+            this.digest = digest;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public long getLastAccess() {
+            return lastAccess;
+        }
+
+        public void setLastAccess(long lastAccess) {
+            this.lastAccess = lastAccess;
+        }
+
+        public List<String> getSources() {
+            return sources;
+        }
+
+        public void setSources(List<String> sources) {
+            this.sources = sources;
+        }
+    }
+}
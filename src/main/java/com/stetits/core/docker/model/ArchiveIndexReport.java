@@ -0,0 +1,92 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArchiveIndexReport {
+    private String directory;
+    private int files;
+    private long bytes;
+    private int stored; // New content copied into the cache
+    private int deduplicated; // Same content as an archive already cached
+    private int alreadyCached; // Unchanged since it was last cached
+    private int tooLarge; // Larger than the whole cache: hashed, not copied
+    private long durationMs;
+    private List<String> errors;
+
+    public ArchiveIndexReport() {
+        this.errors = new ArrayList<>();
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public void setFiles(int files) {
+        this.files = files;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public int getStored() {
+        return stored;
+    }
+
+    public void setStored(int stored) {
+        this.stored = stored;
+    }
+
+    public int getDeduplicated() {
+        return deduplicated;
+    }
+
+    public void setDeduplicated(int deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+
+    public int getAlreadyCached() {
+        return alreadyCached;
+    }
+
+    public void setAlreadyCached(int alreadyCached) {
+        this.alreadyCached = alreadyCached;
+    }
+
+    public int getTooLarge() {
+        return tooLarge;
+    }
+
+    public void setTooLarge(int tooLarge) {
+        this.tooLarge = tooLarge;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,89 @@
+package com.stetits.core.docker.model;
+
+public class CatalogNode {
+    public static final String PLATFORM = "platform";
+    public static final String COMPONENT = "component";
+    public static final String APPLICATION = "application";
+
+    private String id; // platform[|component[|application]]
+    private String name;
+    private String type;
+    private int childCount;
+    private int applicationCount;
+    private String version;
+    private String archiveFile;
+    private String selection; // platform|component|app|version:archiveFile, applications only
+
+    public CatalogNode() {
+    }
+
+    public CatalogNode(String id, String name, String type) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getChildCount() {
+        return childCount;
+    }
+
+    public void setChildCount(int childCount) {
+        this.childCount = childCount;
+    }
+
+    public int getApplicationCount() {
+        return applicationCount;
+    }
+
+    public void setApplicationCount(int applicationCount) {
+        this.applicationCount = applicationCount;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getArchiveFile() {
+        return archiveFile;
+    }
+
+    public void setArchiveFile(String archiveFile) {
+        this.archiveFile = archiveFile;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    public void setSelection(String selection) {
+        this.selection = selection;
+    }
+}
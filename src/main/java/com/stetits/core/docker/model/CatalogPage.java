@@ -0,0 +1,82 @@
+package com.stetits.core.docker.model;
+
+import java.util.List;
+
+public class CatalogPage {
+    private String community;
+    private String parent;
+    private int page;
+    private int size;
+    private int totalItems;
+    private int totalPages;
+    private List<CatalogNode> items;
+
+    public CatalogPage() {
+    }
+
+    public CatalogPage(String community, String parent, int page, int size, int totalItems, List<CatalogNode> items) {
+        this.community = community;
+        this.parent = parent;
+        this.page = page;
+        this.size = size;
+        this.totalItems = totalItems;
+        this.totalPages = (totalItems + size - 1) / size;
+        this.items = items;
+    }
+
+    public String getCommunity() {
+        return community;
+    }
+
+    public void setCommunity(String community) {
+        this.community = community;
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    public void setParent(String parent) {
+        this.parent = parent;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public List<CatalogNode> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CatalogNode> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,106 @@
+package com.stetits.core.docker.model;
+
+/**
+ * State of the catalog sync with the GitHub STET repository.
+ */
+public class CatalogSyncStatus {
+    private String url; // Empty when the sync is disabled
+    private String source; // bundled, cache or remote: where the catalog in use comes from
+    private String catalogEtag;
+    private String etag; // Validators of the cached copy, sent back on the next request
+    private String lastModified;
+    private long lastAttempt; // Epoch milliseconds, 0 when never
+    private long lastSuccess;
+    private long lastUpdate;
+    private long notModifiedCount;
+    private long updateCount;
+    private String lastError;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getCatalogEtag() {
+        return catalogEtag;
+    }
+
+    public void setCatalogEtag(String catalogEtag) {
+        this.catalogEtag = catalogEtag;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public long getLastAttempt() {
+        return lastAttempt;
+    }
+
+    public void setLastAttempt(long lastAttempt) {
+        this.lastAttempt = lastAttempt;
+    }
+
+    public long getLastSuccess() {
+        return lastSuccess;
+    }
+
+    public void setLastSuccess(long lastSuccess) {
+        this.lastSuccess = lastSuccess;
+    }
+
+    public long getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public void setLastUpdate(long lastUpdate) {
+        this.lastUpdate = lastUpdate;
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    public void setNotModifiedCount(long notModifiedCount) {
+        this.notModifiedCount = notModifiedCount;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public void setUpdateCount(long updateCount) {
+        this.updateCount = updateCount;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
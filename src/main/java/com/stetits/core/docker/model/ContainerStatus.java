@@ -0,0 +1,104 @@
+package com.stetits.core.docker.model;
+
+import java.util.Objects;
+
+/**
+ * Runtime state of the container of one configured application.
+ */
+public class ContainerStatus {
+    public static final String MISSING = "missing";
+    public static final String UNKNOWN = "unknown";
+
+    private String id; // platform|component|application
+    private String containerName;
+    private String state = UNKNOWN;
+    private String status;
+    private String version;
+    private String expectedVersion;
+    private long changedAt;
+
+    public ContainerStatus() {
+    }
+
+    public ContainerStatus(String id, String expectedVersion) {
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public ContainerStatus copy() {
+        ContainerStatus copy = new ContainerStatus(id, expectedVersion);
+        copy.containerName = containerName;
+        copy.state = state;
+        copy.status = status;
+        copy.version = version;
+        copy.changedAt = changedAt;
+        return copy;
+    }
+
+    // Same observable state, ignoring the time of the change
+    public boolean sameStateAs(ContainerStatus other) {
+        return other != null
+                && Objects.equals(state, other.state)
+                && Objects.equals(version, other.version)
+                && Objects.equals(expectedVersion, other.expectedVersion)
+                && Objects.equals(containerName, other.containerName);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getContainerName() {
+        return containerName;
+    }
+
+    public void setContainerName(String containerName) {
+        this.containerName = containerName;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    // Version label of the running container
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    // Version in the saved configuration
+    public String getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public void setExpectedVersion(String expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(long changedAt) {
+        this.changedAt = changedAt;
+    }
+}
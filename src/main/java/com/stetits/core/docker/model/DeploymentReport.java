@@ -0,0 +1,198 @@
+package com.stetits.core.docker.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class DeploymentReport {
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+    public static final String SKIPPED = "SKIPPED";
+
+    private String id;
+    private String community;
+    private long configurationVersion;
+    private volatile String status = PENDING;
+    private Instant startedAt;
+    private volatile long durationMs;
+    private final List<Step> steps = new CopyOnWriteArrayList<>();
+    private final List<ArchiveLoad> loads = new CopyOnWriteArrayList<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCommunity() {
+        return community;
+    }
+
+    public void setCommunity(String community) {
+        this.community = community;
+    }
+
+    public long getConfigurationVersion() {
+        return configurationVersion;
+    }
+
+    public void setConfigurationVersion(long configurationVersion) {
+        this.configurationVersion = configurationVersion;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public List<ArchiveLoad> getLoads() {
+        return loads;
+    }
+
+    // One node of the execution plan; updated by the worker thread that runs it
+    public static class Step {
+        private final String id; // platform[|component[|application]]
+        private final String type;
+        private volatile String status = PENDING;
+        private volatile long startOffsetMs;
+        private volatile long durationMs;
+        private volatile String message;
+
+        public Step(String id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public long getStartOffsetMs() {
+            return startOffsetMs;
+        }
+
+        public void setStartOffsetMs(long startOffsetMs) {
+            this.startOffsetMs = startOffsetMs;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public void setDurationMs(long durationMs) {
+            this.durationMs = durationMs;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    // Upload of one archive to the daemon, shared by the applications with the same archive content
+    public static class ArchiveLoad {
+        private final String archive; // First archive file asking for this content
+        private final String host; // Host of the pool it is sent to, null for core.docker.host
+        private final long size;
+        private volatile String status = PENDING;
+        private volatile long sentBytes;
+        private volatile long startOffsetMs;
+        private volatile long durationMs;
+
+        public ArchiveLoad(String archive, long size) {
+            this(archive, null, size);
+        }
+
+        public ArchiveLoad(String archive, String host, long size) {
+            this.archive = archive;
+            this.host = host;
+            this.size = size;
+        }
+
+        public String getArchive() {
+            return archive;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public long getSentBytes() {
+            return sentBytes;
+        }
+
+        public void setSentBytes(long sentBytes) {
+            this.sentBytes = sentBytes;
+        }
+
+        public long getStartOffsetMs() {
+            return startOffsetMs;
+        }
+
+        public void setStartOffsetMs(long startOffsetMs) {
+            this.startOffsetMs = startOffsetMs;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public void setDurationMs(long durationMs) {
+            this.durationMs = durationMs;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.stetits.core.docker.model;
+
+/**
+ * A Docker daemon of the placement pool, with the resources it offers to the
+ * stack.
+ */
+public class DockerHost {
+    private String name;
+    private String url; // tcp://host:port, or unix:///path for a local daemon
+    private double cpu; // Cores
+    private long memoryMb;
+
+    public DockerHost() {
+    }
+
+    public DockerHost(String name, String url, double cpu, long memoryMb) {
+        this.name = name;
+        this.url = url;
+        this.cpu = cpu;
+        this.memoryMb = memoryMb;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public double getCpu() {
+        return cpu;
+    }
+
+    public void setCpu(double cpu) {
+        this.cpu = cpu;
+    }
+
+    public long getMemoryMb() {
+        return memoryMb;
+    }
+
+    public void setMemoryMb(long memoryMb) {
+        this.memoryMb = memoryMb;
+    }
+}
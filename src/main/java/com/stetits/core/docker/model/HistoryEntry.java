@@ -0,0 +1,61 @@
+package com.stetits.core.docker.model;
+
+/**
+ * One saved version of the stack configuration in the history journal.
+ */
+public class HistoryEntry {
+    private long version;
+    private long savedAt; // Epoch milliseconds
+    private boolean snapshot; // Stored in full rather than as changes from the previous version
+    private int applicationCount;
+    private int changeCount; // Applications added, removed or modified since the previous version
+    private boolean current;
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    public void setSavedAt(long savedAt) {
+        this.savedAt = savedAt;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public int getApplicationCount() {
+        return applicationCount;
+    }
+
+    public void setApplicationCount(int applicationCount) {
+        this.applicationCount = applicationCount;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    public void setChangeCount(int changeCount) {
+        this.changeCount = changeCount;
+    }
+
+    public boolean isCurrent() {
+        return current;
+    }
+
+    public void setCurrent(boolean current) {
+        this.current = current;
+    }
+}
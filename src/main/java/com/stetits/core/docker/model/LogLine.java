@@ -0,0 +1,39 @@
+package com.stetits.core.docker.model;
+
+/**
+ * A line of application output. Sequence numbers increase per application and
+ * let a client tell which lines it missed.
+ */
+public class LogLine {
+    public static final String SYSTEM = "system";
+
+    private final long seq;
+    private final String stream;
+    private final long time;
+    private final String text;
+
+    public LogLine(long seq, String stream, long time, String text) {
+        this.seq = seq;
+        this.stream = stream;
+        this.time = time;
+        this.text = text;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    // stdout, stderr, or system for messages of the monitor itself
+    public String getStream() {
+        return stream;
+    }
+
+    // Epoch milliseconds
+    public long getTime() {
+        return time;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
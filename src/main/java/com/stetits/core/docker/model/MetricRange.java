@@ -0,0 +1,82 @@
+package com.stetits.core.docker.model;
+
+import java.util.List;
+
+/**
+ * Samples of one application metric over a time range. Each point is
+ * [epoch milliseconds, average, maximum] over {@code stepSeconds}.
+ */
+public class MetricRange {
+    private String application;
+    private String metric;
+    private String unit;
+    private long from;
+    private long to;
+    private int resolutionSeconds; // Resolution of the stored data the points come from
+    private int stepSeconds;
+    private List<double[]> points;
+
+    public String getApplication() {
+        return application;
+    }
+
+    public void setApplication(String application) {
+        this.application = application;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public void setFrom(long from) {
+        this.from = from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public void setTo(long to) {
+        this.to = to;
+    }
+
+    public int getResolutionSeconds() {
+        return resolutionSeconds;
+    }
+
+    public void setResolutionSeconds(int resolutionSeconds) {
+        this.resolutionSeconds = resolutionSeconds;
+    }
+
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public void setStepSeconds(int stepSeconds) {
+        this.stepSeconds = stepSeconds;
+    }
+
+    public List<double[]> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<double[]> points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,144 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hosts chosen for the applications of a configuration.
+ */
+public class PlacementResult {
+    private List<HostUsage> hosts;
+    private Map<String, String> assignments; // platform|component|app -> host name
+    private List<String> unplaced; // Applications no host has room for
+    private int moved; // Applications placed on another host than before
+    private long durationMicros;
+
+    public PlacementResult() {
+        this.hosts = new ArrayList<>();
+        this.assignments = new LinkedHashMap<>();
+        this.unplaced = new ArrayList<>();
+    }
+
+    /** Host of an application (platform|component|app), or null when it is not placed. */
+    public String hostOf(String application) {
+        return assignments.get(application);
+    }
+
+    public List<HostUsage> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(List<HostUsage> hosts) {
+        this.hosts = hosts;
+    }
+
+    public Map<String, String> getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(Map<String, String> assignments) {
+        this.assignments = assignments;
+    }
+
+    public List<String> getUnplaced() {
+        return unplaced;
+    }
+
+    public void setUnplaced(List<String> unplaced) {
+        this.unplaced = unplaced;
+    }
+
+    public int getMoved() {
+        return moved;
+    }
+
+    public void setMoved(int moved) {
+        this.moved = moved;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public static class HostUsage {
+        private String name;
+        private String url;
+        private double cpu;
+        private long memoryMb;
+        private double usedCpu;
+        private long usedMemoryMb;
+        private int applicationCount;
+
+        public HostUsage() {
+        }
+
+        public HostUsage(DockerHost host) {
+            this.name = host.getName();
+            this.url = host.getUrl();
+            this.cpu = host.getCpu();
+            this.memoryMb = host.getMemoryMb();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public double getCpu() {
+            return cpu;
+        }
+
+        public void setCpu(double cpu) {
+            this.cpu = cpu;
+        }
+
+        public long getMemoryMb() {
+            return memoryMb;
+        }
+
+        public void setMemoryMb(long memoryMb) {
+            this.memoryMb = memoryMb;
+        }
+
+        public double getUsedCpu() {
+            return usedCpu;
+        }
+
+        public void setUsedCpu(double usedCpu) {
+            this.usedCpu = usedCpu;
+        }
+
+        public long getUsedMemoryMb() {
+            return usedMemoryMb;
+        }
+
+        public void setUsedMemoryMb(long usedMemoryMb) {
+            this.usedMemoryMb = usedMemoryMb;
+        }
+
+        public int getApplicationCount() {
+            return applicationCount;
+        }
+
+        public void setApplicationCount(int applicationCount) {
+            this.applicationCount = applicationCount;
+        }
+    }
+}
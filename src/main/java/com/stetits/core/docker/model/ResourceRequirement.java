@@ -0,0 +1,36 @@
+package com.stetits.core.docker.model;
+
+/**
+ * Resources declared for a catalog node (core.placement.requirements-file). A
+ * platform or a component gives the default of the applications below it; a
+ * missing value falls back to the level above, then to the configured default.
+ */
+public class ResourceRequirement {
+    private String node; // platform, platform|component or platform|component|app
+    private Double cpu; // Cores
+    private Long memoryMb;
+
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public Double getCpu() {
+        return cpu;
+    }
+
+    public void setCpu(Double cpu) {
+        this.cpu = cpu;
+    }
+
+    public Long getMemoryMb() {
+        return memoryMb;
+    }
+
+    public void setMemoryMb(Long memoryMb) {
+        this.memoryMb = memoryMb;
+    }
+}
@@ -0,0 +1,123 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One compatibility rule as written in the rules file (catalog/rules.json).
+ */
+public class RuleDefinition {
+    private String id;
+    private String type; // requires, conflicts, same-version or required-component
+    private String severity; // error (blocks the save) or warning
+    private List<String> communities; // Communities the rule applies to, all when empty
+    private String application; // platform|component|app
+    private String applicationVersions; // Versions of the application the rule applies to, all when empty
+    private String target; // platform|component|app
+    private String targetVersions; // Versions of the target accepted by a requires rule, all when empty
+    private List<String> applications; // Members of a same-version rule
+    private String platform;
+    private String component;
+    private String message; // Replaces the generated message when set
+
+    public RuleDefinition() {
+        this.communities = new ArrayList<>();
+        this.applications = new ArrayList<>();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public List<String> getCommunities() {
+        return communities;
+    }
+
+    public void setCommunities(List<String> communities) {
+        this.communities = communities;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    public void setApplication(String application) {
+        this.application = application;
+    }
+
+    public String getApplicationVersions() {
+        return applicationVersions;
+    }
+
+    public void setApplicationVersions(String applicationVersions) {
+        this.applicationVersions = applicationVersions;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getTargetVersions() {
+        return targetVersions;
+    }
+
+    public void setTargetVersions(String targetVersions) {
+        this.targetVersions = targetVersions;
+    }
+
+    public List<String> getApplications() {
+        return applications;
+    }
+
+    public void setApplications(List<String> applications) {
+        this.applications = applications;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stetits.core.docker.model;
+
+import java.util.List;
+
+public class RuleViolation {
+    public static final String ERROR = "error";
+    public static final String WARNING = "warning";
+
+    private String ruleId;
+    private String severity;
+    private String message;
+    private List<String> nodes; // Catalog node ids involved: platform or platform|component|app
+
+    public RuleViolation() {
+    }
+
+    public RuleViolation(String ruleId, String severity, String message, List<String> nodes) {
+        this.ruleId = ruleId;
+        this.severity = severity;
+        this.message = message;
+        this.nodes = nodes;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+}
@@ -0,0 +1,26 @@
+package com.stetits.core.docker.model;
+
+public final class Settings {
+
+    public static final Settings EMPTY = new Settings("", "");
+
+    private final String githubUsername;
+    private final String githubPassword;
+
+    public Settings(String githubUsername, String githubPassword) {
+        this.githubUsername = githubUsername != null ? githubUsername : "";
+        this.githubPassword = githubPassword != null ? githubPassword : "";
+    }
+
+    public String getGithubUsername() {
+        return githubUsername;
+    }
+
+    public String getGithubPassword() {
+        return githubPassword;
+    }
+
+    public boolean isConfigured() {
+        return !githubUsername.trim().isEmpty() && !githubPassword.trim().isEmpty();
+    }
+}
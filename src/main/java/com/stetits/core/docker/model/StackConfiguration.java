@@ -1,6 +1,7 @@
 package com.stetits.core.docker.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class StackConfiguration {
@@ -27,6 +28,30 @@ public class StackConfiguration {
         this.platforms = platforms;
     }
 
+    // Deep copy whose lists cannot be modified, safe to share between request threads
+    public static StackConfiguration immutableCopyOf(StackConfiguration source) {
+        List<Platform> platforms = new ArrayList<>(source.getPlatforms().size());
+        for (Platform platform : source.getPlatforms()) {
+            List<Component> components = new ArrayList<>(platform.getComponents().size());
+            for (Component component : platform.getComponents()) {
+                List<Application> applications = new ArrayList<>(component.getApplications().size());
+                for (Application app : component.getApplications()) {
+                    applications.add(new Application(app.getName(), app.getVersion(), app.getArchiveFile()));
+                }
+                Component componentCopy = new Component(component.getName());
+                componentCopy.setApplications(Collections.unmodifiableList(applications));
+                components.add(componentCopy);
+            }
+            Platform platformCopy = new Platform(platform.getName());
+            platformCopy.setComponents(Collections.unmodifiableList(components));
+            platforms.add(platformCopy);
+        }
+        StackConfiguration copy = new StackConfiguration();
+        copy.setCommunity(source.getCommunity());
+        copy.setPlatforms(Collections.unmodifiableList(platforms));
+        return copy;
+    }
+
     public static class Platform {
         private String name;
         private List<Component> components;
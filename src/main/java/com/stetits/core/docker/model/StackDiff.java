@@ -0,0 +1,139 @@
+package com.stetits.core.docker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class StackDiff {
+
+    public enum ChangeType {
+        ADDED, REMOVED, VERSION_CHANGED, ARCHIVE_CHANGED
+    }
+
+    private List<NodeChange> changes = new ArrayList<>();
+    private int unchangedApplications;
+
+    public List<NodeChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<NodeChange> changes) {
+        this.changes = changes;
+    }
+
+    public int getUnchangedApplications() {
+        return unchangedApplications;
+    }
+
+    public void setUnchangedApplications(int unchangedApplications) {
+        this.unchangedApplications = unchangedApplications;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public long count(ChangeType type) {
+        return changes.stream().filter(change -> change.getTypes().contains(type)).count();
+    }
+
+    public long getAddedCount() {
+        return count(ChangeType.ADDED);
+    }
+
+    public long getRemovedCount() {
+        return count(ChangeType.REMOVED);
+    }
+
+    public long getVersionChangedCount() {
+        return count(ChangeType.VERSION_CHANGED);
+    }
+
+    public long getArchiveChangedCount() {
+        return count(ChangeType.ARCHIVE_CHANGED);
+    }
+
+    @JsonIgnore
+    public List<NodeChange> getApplicationChanges() {
+        return changes.stream().filter(change -> CatalogNode.APPLICATION.equals(change.getLevel())).toList();
+    }
+
+    public static class NodeChange {
+        private String id; // platform[|component[|application]]
+        private String level;
+        private Set<ChangeType> types = EnumSet.noneOf(ChangeType.class);
+        private String oldVersion;
+        private String newVersion;
+        private String oldArchiveFile;
+        private String newArchiveFile;
+
+        public NodeChange() {
+        }
+
+        public NodeChange(String id, String level, ChangeType type) {
+            this.id = id;
+            this.level = level;
+            this.types.add(type);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        public void setLevel(String level) {
+            this.level = level;
+        }
+
+        // An application can change both version and archive
+        public Set<ChangeType> getTypes() {
+            return types;
+        }
+
+        public void setTypes(Set<ChangeType> types) {
+            this.types = types;
+        }
+
+        public String getOldVersion() {
+            return oldVersion;
+        }
+
+        public void setOldVersion(String oldVersion) {
+            this.oldVersion = oldVersion;
+        }
+
+        public String getNewVersion() {
+            return newVersion;
+        }
+
+        public void setNewVersion(String newVersion) {
+            this.newVersion = newVersion;
+        }
+
+        public String getOldArchiveFile() {
+            return oldArchiveFile;
+        }
+
+        public void setOldArchiveFile(String oldArchiveFile) {
+            this.oldArchiveFile = oldArchiveFile;
+        }
+
+        public String getNewArchiveFile() {
+            return newArchiveFile;
+        }
+
+        public void setNewArchiveFile(String newArchiveFile) {
+            this.newArchiveFile = newArchiveFile;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ValidationRequest {
+    private String community;
+    private List<String> selections; // Whole selection, when opening a session
+    private List<String> added; // Changes since the previous request of the session
+    private List<String> removed;
+
+    public ValidationRequest() {
+        this.selections = new ArrayList<>();
+        this.added = new ArrayList<>();
+        this.removed = new ArrayList<>();
+    }
+
+    public String getCommunity() {
+        return community;
+    }
+
+    public void setCommunity(String community) {
+        this.community = community;
+    }
+
+    public List<String> getSelections() {
+        return selections;
+    }
+
+    public void setSelections(List<String> selections) {
+        this.selections = selections;
+    }
+
+    public List<String> getAdded() {
+        return added;
+    }
+
+    public void setAdded(List<String> added) {
+        this.added = added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<String> removed) {
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,87 @@
+package com.stetits.core.docker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ValidationResult {
+    private String session; // Id to post the next changes to, null for a one-off validation
+    private String community;
+    private int applicationCount;
+    private int errorCount;
+    private int warningCount;
+    private int evaluatedRules; // Rules evaluated by this request; the others kept their previous result
+    private long durationMicros;
+    private List<RuleViolation> violations; // Errors first
+
+    public ValidationResult() {
+        this.violations = new ArrayList<>();
+    }
+
+    public String getSession() {
+        return session;
+    }
+
+    public void setSession(String session) {
+        this.session = session;
+    }
+
+    public String getCommunity() {
+        return community;
+    }
+
+    public void setCommunity(String community) {
+        this.community = community;
+    }
+
+    public int getApplicationCount() {
+        return applicationCount;
+    }
+
+    public void setApplicationCount(int applicationCount) {
+        this.applicationCount = applicationCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    public void setWarningCount(int warningCount) {
+        this.warningCount = warningCount;
+    }
+
+    public int getEvaluatedRules() {
+        return evaluatedRules;
+    }
+
+    public void setEvaluatedRules(int evaluatedRules) {
+        this.evaluatedRules = evaluatedRules;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public List<RuleViolation> getViolations() {
+        return violations;
+    }
+
+    public void setViolations(List<RuleViolation> violations) {
+        this.violations = violations;
+    }
+
+    public boolean isValid() {
+        return errorCount == 0;
+    }
+}
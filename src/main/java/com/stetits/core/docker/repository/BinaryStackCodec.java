@@ -0,0 +1,258 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a {@link StackConfiguration} (stack.bin).
+ *
+ * <pre>
+ * header    magic "CSTK" | format u16 | reserved u16 | stack version i64
+ *           community string id i32 | platform count i32
+ * index     platform count x (name string id i32 | block offset i32 | block length i32)
+ * strings   string count i32 | offsets (count + 1) x i32 | UTF-8 blob
+ * blocks    per platform: component count i32, then per component
+ *           name id i32 | app count i32 | app count x (name id | version id | archive id)
+ * </pre>
+ *
+ * Every platform, component, application, version and archive name is stored
+ * once in the string table, and the index gives direct access to a single
+ * platform block without decoding the others.
+ */
+public final class BinaryStackCodec {
+
+    static final int MAGIC = 0x4353544B; // "CSTK"
+    static final short FORMAT = 1;
+
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 4 + 4;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private BinaryStackCodec() {
+    }
+
+    public static byte[] encode(StackConfiguration config, long version) {
+        StringTable strings = new StringTable();
+        int communityId = strings.idOf(config.getCommunity());
+
+        List<StackConfiguration.Platform> platforms = config.getPlatforms();
+        int[] platformNameIds = new int[platforms.size()];
+        byte[][] blocks = new byte[platforms.size()][];
+        try {
+            for (int p = 0; p < platforms.size(); p++) {
+                StackConfiguration.Platform platform = platforms.get(p);
+                platformNameIds[p] = strings.idOf(platform.getName());
+                ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+                DataOutputStream block = new DataOutputStream(blockBytes);
+                block.writeInt(platform.getComponents().size());
+                for (StackConfiguration.Component component : platform.getComponents()) {
+                    block.writeInt(strings.idOf(component.getName()));
+                    block.writeInt(component.getApplications().size());
+                    for (StackConfiguration.Application app : component.getApplications()) {
+                        block.writeInt(strings.idOf(app.getName()));
+                        block.writeInt(strings.idOf(app.getVersion()));
+                        block.writeInt(strings.idOf(app.getArchiveFile()));
+                    }
+                }
+                blocks[p] = blockBytes.toByteArray();
+            }
+
+            byte[] stringTable = strings.toBytes();
+            int blocksStart = HEADER_SIZE + platforms.size() * INDEX_ENTRY_SIZE + stringTable.length;
+
+            ByteArrayOutputStream fileBytes = new ByteArrayOutputStream(blocksStart + totalLength(blocks));
+            DataOutputStream out = new DataOutputStream(fileBytes);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT);
+            out.writeShort(0);
+            out.writeLong(version);
+            out.writeInt(communityId);
+            out.writeInt(platforms.size());
+            int offset = blocksStart;
+            for (int p = 0; p < platforms.size(); p++) {
+                out.writeInt(platformNameIds[p]);
+                out.writeInt(offset);
+                out.writeInt(blocks[p].length);
+                offset += blocks[p].length;
+            }
+            out.write(stringTable);
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            out.flush();
+            return fileBytes.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static long readVersion(ByteBuffer buffer) {
+        checkHeader(buffer);
+        return buffer.getLong(8);
+    }
+
+    public static StackConfiguration decode(ByteBuffer buffer) {
+        checkHeader(buffer);
+        StringReader strings = new StringReader(buffer);
+        StackConfiguration config = new StackConfiguration();
+        config.setCommunity(strings.get(buffer.getInt(16)));
+        int platformCount = buffer.getInt(20);
+        for (int p = 0; p < platformCount; p++) {
+            config.getPlatforms().add(readPlatformAt(buffer, strings, p));
+        }
+        return config;
+    }
+
+    public static List<String> readPlatformNames(ByteBuffer buffer) {
+        checkHeader(buffer);
+        StringReader strings = new StringReader(buffer);
+        int platformCount = buffer.getInt(20);
+        List<String> names = new ArrayList<>(platformCount);
+        for (int p = 0; p < platformCount; p++) {
+            names.add(strings.get(buffer.getInt(HEADER_SIZE + p * INDEX_ENTRY_SIZE)));
+        }
+        return names;
+    }
+
+    // Decodes only the requested platform block, or returns null when absent
+    public static StackConfiguration.Platform readPlatform(ByteBuffer buffer, String platformName) {
+        checkHeader(buffer);
+        StringReader strings = new StringReader(buffer);
+        int platformCount = buffer.getInt(20);
+        for (int p = 0; p < platformCount; p++) {
+            if (platformName.equals(strings.get(buffer.getInt(HEADER_SIZE + p * INDEX_ENTRY_SIZE)))) {
+                return readPlatformAt(buffer, strings, p);
+            }
+        }
+        return null;
+    }
+
+    private static StackConfiguration.Platform readPlatformAt(ByteBuffer buffer, StringReader strings, int index) {
+        int entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+        StackConfiguration.Platform platform = new StackConfiguration.Platform(strings.get(buffer.getInt(entry)));
+        int position = buffer.getInt(entry + 4);
+        int componentCount = buffer.getInt(position);
+        position += 4;
+        for (int c = 0; c < componentCount; c++) {
+            StackConfiguration.Component component = new StackConfiguration.Component(strings.get(buffer.getInt(position)));
+            int appCount = checkCount(buffer, position + 8, buffer.getInt(position + 4), 12);
+            position += 8;
+            List<StackConfiguration.Application> applications = new ArrayList<>(appCount);
+            for (int a = 0; a < appCount; a++) {
+                applications.add(new StackConfiguration.Application(
+                        strings.get(buffer.getInt(position)),
+                        strings.get(buffer.getInt(position + 4)),
+                        strings.get(buffer.getInt(position + 8))));
+                position += 12;
+            }
+            component.setApplications(applications);
+            platform.getComponents().add(component);
+        }
+        return platform;
+    }
+
+    private static void checkHeader(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a stack configuration file");
+        }
+        if (buffer.getShort(4) != FORMAT) {
+            throw new IllegalArgumentException("Unsupported stack configuration format " + buffer.getShort(4));
+        }
+    }
+
+    // A count of entries of the given size starting at position, checked against what is left of the buffer
+    private static int checkCount(ByteBuffer buffer, int position, int count, int entrySize) {
+        if (count < 0 || position < 0 || (long) count * entrySize > buffer.limit() - position) {
+            throw new IllegalArgumentException("Corrupted stack configuration file: " + count + " entries at offset " + position);
+        }
+        return count;
+    }
+
+    private static int totalLength(byte[][] blocks) {
+        int total = 0;
+        for (byte[] block : blocks) {
+            total += block.length;
+        }
+        return total;
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int idOf(String value) {
+            String key = value != null ? value : "";
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = values.size();
+                ids.put(key, id);
+                values.add(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(values.size());
+            int offset = 0;
+            for (byte[] value : values) {
+                out.writeInt(offset);
+                offset += value.length;
+            }
+            out.writeInt(offset);
+            for (byte[] value : values) {
+                out.write(value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    // Decodes strings lazily, each at most once per read
+    private static final class StringReader {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int offsetsStart;
+        private final int blobStart;
+        private final String[] cache;
+
+        StringReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            int tableStart = HEADER_SIZE + checkCount(buffer, HEADER_SIZE, buffer.getInt(20), INDEX_ENTRY_SIZE) * INDEX_ENTRY_SIZE;
+            // The offsets alone take 4 bytes per string: a larger count is damage, not a table to allocate
+            this.count = checkCount(buffer, tableStart + 4, buffer.getInt(tableStart), 4);
+            this.offsetsStart = tableStart + 4;
+            this.blobStart = offsetsStart + (count + 1) * 4;
+            this.cache = new String[count];
+        }
+
+        String get(int id) {
+            if (id < 0 || id >= count) {
+                throw new IllegalArgumentException("Corrupted stack configuration file: unknown string " + id);
+            }
+            String value = cache[id];
+            if (value == null) {
+                int start = buffer.getInt(offsetsStart + id * 4);
+                int end = buffer.getInt(offsetsStart + (id + 1) * 4);
+                if (start < 0 || end < start || end > buffer.limit() - blobStart) {
+                    throw new IllegalArgumentException("Corrupted stack configuration file: string " + id + " out of bounds");
+                }
+                byte[] bytes = new byte[end - start];
+                buffer.get(blobStart + start, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                cache[id] = value;
+            }
+            return value;
+        }
+    }
+}
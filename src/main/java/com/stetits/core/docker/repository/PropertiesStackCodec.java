@@ -0,0 +1,65 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+
+import java.util.Properties;
+
+/**
+ * Reader for the original flat properties format (stack.conf), kept to migrate
+ * existing installations to {@link BinaryStackCodec}. Malformed counts throw
+ * IllegalArgumentException.
+ */
+final class PropertiesStackCodec {
+
+    private PropertiesStackCodec() {
+    }
+
+    static StackConfiguration decode(Properties properties) {
+        StackConfiguration config = new StackConfiguration();
+        config.setCommunity(properties.getProperty("stack.community", ""));
+
+        int platformCount = count(properties, "stack.platformCount");
+        for (int p = 0; p < platformCount; p++) {
+            String platformKey = "stack.platform." + p;
+            String platformName = properties.getProperty(platformKey + ".name");
+            StackConfiguration.Platform platform = new StackConfiguration.Platform(platformName);
+
+            int componentCount = count(properties, platformKey + ".componentCount");
+            for (int c = 0; c < componentCount; c++) {
+                String componentKey = platformKey + ".component." + c;
+                String componentName = properties.getProperty(componentKey + ".name");
+                StackConfiguration.Component component = new StackConfiguration.Component(componentName);
+
+                int appCount = count(properties, componentKey + ".appCount");
+                for (int a = 0; a < appCount; a++) {
+                    String appKey = componentKey + ".app." + a;
+                    String appName = properties.getProperty(appKey + ".name");
+                    String version = properties.getProperty(appKey + ".version");
+                    String archiveFile = properties.getProperty(appKey + ".archiveFile");
+
+                    StackConfiguration.Application app = new StackConfiguration.Application(appName, version, archiveFile);
+                    component.getApplications().add(app);
+                }
+                platform.getComponents().add(component);
+            }
+            config.getPlatforms().add(platform);
+        }
+
+        return config;
+    }
+
+    // Every counted entry has at least one key of its own, so a count above the number of keys is damage
+    private static int count(Properties properties, String key) {
+        String value = properties.getProperty(key, "0").trim();
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value, e);
+        }
+        if (count < 0 || count > properties.size()) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+        return count;
+    }
+}
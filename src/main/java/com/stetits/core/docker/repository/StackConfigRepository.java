@@ -0,0 +1,447 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.storage.AtomicFiles;
+import com.stetits.core.docker.storage.ConfigFileWatcher;
+import com.stetits.core.docker.storage.FileMetrics;
+import com.stetits.core.docker.storage.FileStamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Holds the stack configurations in memory, indexed by stack name: the
+ * default stack in ~/.core/stack.bin, the others in ~/.core/stacks/NAME.bin.
+ * Readers only dereference the current snapshot of a stack. Saves and reloads
+ * go through the writer lock of their stack, so writers to different stacks
+ * never wait for each other, and a save names the version it started from:
+ * when another save got in first, it fails instead of overwriting it.
+ */
+@Repository
+public class StackConfigRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(StackConfigRepository.class);
+
+    public static final String DEFAULT_STACK = "default";
+    // Expected version of a save that replaces whatever is current
+    public static final long ANY_VERSION = -1;
+
+    private static final String SETTINGS_DIR = System.getProperty("user.home") + "/.core";
+    private static final String STACK_CONFIG_FILE = SETTINGS_DIR + "/stack.bin";
+    private static final String STACK_JOURNAL_FILE = SETTINGS_DIR + "/stack.journal";
+    private static final String STACKS_DIR = SETTINGS_DIR + "/stacks";
+    private static final String LEGACY_STACK_CONFIG_FILE = SETTINGS_DIR + "/stack.conf";
+    private static final String LEGACY_VERSION_KEY = "stack.version";
+    private static final Pattern STACK_NAME = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+
+    @Autowired
+    private ConfigFileWatcher configFileWatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${core.history.snapshot-interval:32}")
+    private int snapshotInterval;
+
+    @Value("${core.history.sync-delay-ms:200}")
+    private long syncDelayMs;
+
+    @Value("${core.history.max-size-kb:8192}")
+    private long maxSizeKb;
+
+    private Timer readTimer;
+    private Timer writeTimer;
+    // Changes of a stack file that needed no read (our own writes) vs file reads
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    private final Map<String, Stack> stacks = new ConcurrentHashMap<>();
+    // Serializes the creation of stacks, whose files are opened outside the map
+    private final ReentrantLock creationLock = new ReentrantLock();
+    private final Path legacyStackConfigPath = Paths.get(LEGACY_STACK_CONFIG_FILE);
+
+    private static final class Stack {
+        private final String name;
+        private final Path path;
+        private final Path journalPath;
+        private final StackJournal journal;
+        private final AtomicReference<StackSnapshot> current = new AtomicReference<>(StackSnapshot.EMPTY);
+        private final ReentrantLock writeLock = new ReentrantLock();
+
+        private Stack(String name, Path path, Path journalPath, StackJournal journal) {
+            this.name = name;
+            this.path = path;
+            this.journalPath = journalPath;
+            this.journal = journal;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        readTimer = FileMetrics.timer(meterRegistry, "stack", "read");
+        writeTimer = FileMetrics.timer(meterRegistry, "stack", "write");
+        cacheHits = FileMetrics.cacheCounter(meterRegistry, "stack", "hit");
+        cacheMisses = FileMetrics.cacheCounter(meterRegistry, "stack", "miss");
+        Stack defaultStack = newStack(DEFAULT_STACK);
+        register(defaultStack);
+        migrateLegacyFile();
+        // A build still writing the properties format may share the volume
+        configFileWatcher.watch(legacyStackConfigPath, this::migrateLegacyFile);
+        reload(defaultStack);
+        continueJournal(defaultStack);
+        for (String name : storedStackNames()) {
+            Stack stack = newStack(name);
+            reload(stack);
+            continueJournal(stack);
+            register(stack);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        stacks.values().forEach(stack -> stack.journal.close());
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && STACK_NAME.matcher(name).matches();
+    }
+
+    public StackSnapshot getSnapshot() {
+        return getSnapshot(DEFAULT_STACK);
+    }
+
+    public StackSnapshot getSnapshot(String name) {
+        Stack stack = stacks.get(name);
+        return stack != null ? stack.current.get() : StackSnapshot.EMPTY;
+    }
+
+    // Stacks with a saved configuration, the default one first
+    public List<String> getStackNames() {
+        List<String> names = new ArrayList<>();
+        stacks.forEach((name, stack) -> {
+            if (!DEFAULT_STACK.equals(name) && stack.current.get().isPresent()) {
+                names.add(name);
+            }
+        });
+        names.sort(null);
+        if (stacks.get(DEFAULT_STACK).current.get().isPresent()) {
+            names.add(0, DEFAULT_STACK);
+        }
+        return names;
+    }
+
+    public StackJournal getJournal(String name) {
+        Stack stack = stacks.get(name);
+        return stack != null ? stack.journal : null;
+    }
+
+    public StackSnapshot save(StackConfiguration config) {
+        return save(DEFAULT_STACK, config, ANY_VERSION);
+    }
+
+    /**
+     * Saves a stack, creating it when needed. Unless {@code expectedVersion}
+     * is {@link #ANY_VERSION}, fails with a {@link StackVersionConflictException}
+     * when the stack is no longer at that version (0 for a stack that does not
+     * exist yet).
+     */
+    public StackSnapshot save(String name, StackConfiguration config, long expectedVersion) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid stack name: " + name);
+        }
+        StackConfiguration frozen = StackConfiguration.immutableCopyOf(config);
+        Stack stack = stacks.get(name);
+        return stack != null ? save(stack, frozen, expectedVersion) : create(name, frozen, expectedVersion);
+    }
+
+    private StackSnapshot save(Stack stack, StackConfiguration frozen, long expectedVersion) {
+        stack.writeLock.lock();
+        try {
+            StackSnapshot previous = stack.current.get();
+            checkVersion(stack, previous, expectedVersion);
+            long version = previous.getVersion() + 1;
+            write(stack, frozen, version);
+            StackSnapshot snapshot = new StackSnapshot(version, frozen);
+            stack.current.set(snapshot);
+            journal(stack, snapshot);
+            return snapshot;
+        } finally {
+            stack.writeLock.unlock();
+        }
+    }
+
+    // The journal is kept, so a deleted stack can be restored from its history
+    public StackSnapshot delete(String name, long expectedVersion) {
+        Stack stack = stacks.get(name);
+        if (stack == null) {
+            return null;
+        }
+        stack.writeLock.lock();
+        try {
+            StackSnapshot previous = stack.current.get();
+            if (!previous.isPresent()) {
+                return null;
+            }
+            checkVersion(stack, previous, expectedVersion);
+            try {
+                Files.deleteIfExists(stack.path);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to delete stack configuration", e);
+            }
+            configFileWatcher.acknowledge(stack.path, FileStamp.of(stack.path));
+            StackSnapshot snapshot = new StackSnapshot(previous.getVersion() + 1, null);
+            stack.current.set(snapshot);
+            return snapshot;
+        } finally {
+            stack.writeLock.unlock();
+        }
+    }
+
+    // Reads a single platform of the default stack straight from the index of the stored file
+    public StackConfiguration.Platform loadPlatform(String platformName) {
+        Path path = stacks.get(DEFAULT_STACK).path;
+        if (!Files.exists(path)) {
+            return null;
+        }
+        cacheMisses.increment();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return BinaryStackCodec.readPlatform(map(channel), platformName);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load stack configuration", e);
+        } finally {
+            sample.stop(readTimer);
+        }
+    }
+
+    // The stack is only published once its first save succeeded: a refused save leaves nothing behind
+    private StackSnapshot create(String name, StackConfiguration frozen, long expectedVersion) {
+        creationLock.lock();
+        try {
+            Stack existing = stacks.get(name);
+            if (existing != null) {
+                return save(existing, frozen, expectedVersion);
+            }
+            boolean journalExisted = Files.exists(journalPathOf(name));
+            Stack stack = newStack(name);
+            StackSnapshot snapshot = null;
+            try {
+                reload(stack);
+                continueJournal(stack);
+                snapshot = save(stack, frozen, expectedVersion);
+            } finally {
+                if (snapshot == null) {
+                    discard(stack, journalExisted);
+                }
+            }
+            register(stack);
+            return snapshot;
+        } finally {
+            creationLock.unlock();
+        }
+    }
+
+    private void discard(Stack stack, boolean journalExisted) {
+        stack.journal.close();
+        if (!journalExisted) {
+            try {
+                Files.deleteIfExists(stack.journalPath);
+            } catch (IOException e) {
+                log.warn("Failed to delete {}: {}", stack.journalPath, e.toString());
+            }
+        }
+    }
+
+    private void register(Stack stack) {
+        stacks.put(stack.name, stack);
+        configFileWatcher.watch(stack.path, () -> reload(stack), cacheHits::increment);
+    }
+
+    private Stack newStack(String name) {
+        Path path = DEFAULT_STACK.equals(name) ? Paths.get(STACK_CONFIG_FILE) : Paths.get(STACKS_DIR, name + ".bin");
+        Path journalPath = journalPathOf(name);
+        return new Stack(name, path, journalPath, new StackJournal(journalPath, snapshotInterval, syncDelayMs, maxSizeKb, meterRegistry));
+    }
+
+    private static Path journalPathOf(String name) {
+        return DEFAULT_STACK.equals(name) ? Paths.get(STACK_JOURNAL_FILE) : Paths.get(STACKS_DIR, name + ".journal");
+    }
+
+    private List<String> storedStackNames() {
+        List<String> names = new ArrayList<>();
+        Path directory = Paths.get(STACKS_DIR);
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.bin")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - ".bin".length());
+                if (isValidName(name) && !DEFAULT_STACK.equals(name)) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list stack configurations", e);
+        }
+        return names;
+    }
+
+    private static void checkVersion(Stack stack, StackSnapshot current, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+            throw new StackVersionConflictException(stack.name, expectedVersion, current.getVersion());
+        }
+    }
+
+    private void reload(Stack stack) {
+        stack.writeLock.lock();
+        try {
+            StackSnapshot previous = stack.current.get();
+            if (!Files.exists(stack.path)) {
+                stack.current.set(previous.isPresent() ? new StackSnapshot(previous.getVersion() + 1, null) : previous);
+                return;
+            }
+
+            StackConfiguration config;
+            long version;
+            cacheMisses.increment();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try (FileChannel channel = FileChannel.open(stack.path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = map(channel);
+                version = BinaryStackCodec.readVersion(buffer);
+                config = BinaryStackCodec.decode(buffer);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load stack configuration", e);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+                // Empty or truncated file: keep the current snapshot, empty at startup
+                log.error("Ignoring unreadable stack configuration {}: {}", stack.path, e.toString());
+                return;
+            } finally {
+                sample.stop(readTimer);
+            }
+            StackSnapshot snapshot = new StackSnapshot(Math.max(version, previous.getVersion() + 1), StackConfiguration.immutableCopyOf(config));
+            stack.current.set(snapshot);
+            journal(stack, snapshot);
+        } finally {
+            stack.writeLock.unlock();
+        }
+    }
+
+    void migrateLegacyFile() {
+        File legacyFile = legacyStackConfigPath.toFile();
+        if (!legacyFile.exists() || legacyFile.length() == 0) {
+            return;
+        }
+        Stack stack = stacks.get(DEFAULT_STACK);
+        stack.writeLock.lock();
+        try {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(legacyStackConfigPath)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load stack configuration", e);
+            }
+            StackConfiguration config;
+            long legacyVersion;
+            try {
+                config = StackConfiguration.immutableCopyOf(PropertiesStackCodec.decode(properties));
+                legacyVersion = Long.parseLong(properties.getProperty(LEGACY_VERSION_KEY, "0").trim());
+            } catch (IllegalArgumentException e) {
+                // Left in place, like an unreadable stack.bin: startup goes on with what stack.bin holds
+                log.error("Ignoring unreadable legacy stack configuration {}: {}", legacyStackConfigPath, e.toString());
+                return;
+            }
+            long version = Math.max(legacyVersion, stack.current.get().getVersion() + 1);
+            write(stack, config, version);
+            StackSnapshot snapshot = new StackSnapshot(version, config);
+            stack.current.set(snapshot);
+            journal(stack, snapshot);
+            try {
+                Files.move(legacyStackConfigPath, legacyStackConfigPath.resolveSibling("stack.conf.migrated"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to archive legacy stack configuration", e);
+            }
+            log.info("Migrated {} to {}", legacyStackConfigPath, stack.path);
+        } finally {
+            stack.writeLock.unlock();
+        }
+    }
+
+    // A stack file older than the journal (restored by hand, or deleted) continues its numbering instead of reusing versions
+    private void continueJournal(Stack stack) {
+        stack.writeLock.lock();
+        try {
+            StackSnapshot snapshot = stack.current.get();
+            long journaled = stack.journal.getLastVersion();
+            if (snapshot.getVersion() < journaled) {
+                if (snapshot.isPresent()) {
+                    log.warn("{} is at version {}, behind its journal at {}", stack.path, snapshot.getVersion(), journaled);
+                    snapshot = new StackSnapshot(journaled + 1, snapshot.getConfiguration());
+                    write(stack, snapshot.getConfiguration(), snapshot.getVersion());
+                } else {
+                    snapshot = new StackSnapshot(journaled, null);
+                }
+                stack.current.set(snapshot);
+            }
+            journal(stack, snapshot);
+        } finally {
+            stack.writeLock.unlock();
+        }
+    }
+
+    // The history is best effort: the stack file is already saved when it fails
+    private void journal(Stack stack, StackSnapshot snapshot) {
+        if (!snapshot.isPresent()) {
+            return;
+        }
+        try {
+            stack.journal.append(snapshot.getVersion(), snapshot.getConfiguration());
+        } catch (RuntimeException e) {
+            log.error("Failed to record version {} of stack {} in its journal", snapshot.getVersion(), stack.name, e);
+        }
+    }
+
+    private void write(Stack stack, StackConfiguration config, long version) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        byte[] bytes = BinaryStackCodec.encode(config, version);
+        try {
+            AtomicFiles.write(stack.path, out -> out.write(bytes), stamp -> configFileWatcher.acknowledge(stack.path, stamp));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save stack configuration", e);
+        } finally {
+            sample.stop(writeTimer);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        // The file is replaced by rename, never rewritten in place, so the mapping stays consistent
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+}
@@ -0,0 +1,807 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.HistoryEntry;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.storage.AtomicFiles;
+import com.stetits.core.docker.storage.FileMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only history of one stack configuration (~/.core/stack.journal for
+ * the default stack). Every {@code snapshot-interval} versions a record holds
+ * the whole configuration; the records in between only hold the applications
+ * that changed, so rebuilding any version replays a bounded number of records.
+ * Records are written as they come and synced in batches by a background
+ * thread; a record torn by a crash, or whose CRC no longer matches when it is
+ * replayed, is cut off with everything after it. Containers sharing ~/.core
+ * append under an exclusive lock on the file, after reading what the others
+ * appended. Past {@code max-size-kb} the oldest versions are dropped and the
+ * journal is rewritten from a snapshot of the oldest one kept.
+ */
+public class StackJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(StackJournal.class);
+
+    private static final String SEPARATOR = "|";
+
+    // Record: length, CRC32 of the body, then the body
+    private static final int RECORD_HEADER_SIZE = 8;
+    // Body: type, version, saved at, application count, change count, then the payload
+    private static final int BODY_HEADER_SIZE = 1 + 8 + 8 + 4 + 4;
+    private static final byte SNAPSHOT = 1;
+    private static final byte DELTA = 2;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path journalPath;
+    private final int snapshotInterval;
+    private final long syncDelayMs;
+    private final long maxSizeKb;
+    private final MeterRegistry meterRegistry;
+    private final Timer appendTimer;
+    private final Timer syncTimer;
+    private final Timer compactTimer;
+    private final Timer replayTimer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncRequested = lock.newCondition();
+    private final List<Record> records = new ArrayList<>();
+    private FileChannel channel;
+    // Identity of the file the channel is open on; a compaction by another container replaces it
+    private Object fileKey;
+    private FileLock fileLock;
+    private long size;
+    // Last journaled configuration, to compute the changes of the next one
+    private StackConfiguration last;
+    private int deltasSinceSnapshot;
+    private boolean syncPending;
+    private boolean closed;
+
+    private record Record(byte type, long version, long savedAt, int applicationCount, int changeCount,
+                          long offset, int length, int crc) {
+    }
+
+    private interface FileAction {
+        void run() throws IOException;
+    }
+
+    // Puts carry the positions of the platform, component and application in the new configuration
+    private record Change(byte type, String platform, String component, String application,
+                          String version, String archiveFile, int platformIndex, int componentIndex, int applicationIndex) {
+    }
+
+    public StackJournal(Path journalPath, int snapshotInterval, long syncDelayMs, long maxSizeKb, MeterRegistry meterRegistry) {
+        this.journalPath = journalPath;
+        this.snapshotInterval = snapshotInterval;
+        this.syncDelayMs = syncDelayMs;
+        this.maxSizeKb = maxSizeKb;
+        this.meterRegistry = meterRegistry;
+        appendTimer = FileMetrics.timer(meterRegistry, "journal", "append");
+        syncTimer = FileMetrics.timer(meterRegistry, "journal", "sync");
+        compactTimer = FileMetrics.timer(meterRegistry, "journal", "compact");
+        replayTimer = FileMetrics.timer(meterRegistry, "journal", "replay");
+        lock.lock();
+        try {
+            open();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open stack journal", e);
+        } finally {
+            lock.unlock();
+        }
+        Thread.ofVirtual().name("stack-journal-sync-" + journalPath.getFileName()).start(this::syncLoop);
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            syncRequested.signalAll();
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close stack journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastVersion() {
+        lock.lock();
+        try {
+            return records.isEmpty() ? 0 : records.get(records.size() - 1).version();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a saved version. Versions not above the last journaled one are
+     * already in the journal and ignored. The record is on disk once the next
+     * batched sync has run, at most {@code sync-delay-ms} later.
+     */
+    public void append(long version, StackConfiguration config) {
+        lock.lock();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            withFileLock(() -> {
+                if (!records.isEmpty() && version <= records.get(records.size() - 1).version()) {
+                    return;
+                }
+                long savedAt = System.currentTimeMillis();
+                List<Change> changes = last != null ? changes(last, config) : List.of();
+                int applicationCount = applicationCount(config);
+                byte[] body;
+                if (last != null && !records.isEmpty() && deltasSinceSnapshot + 1 < snapshotInterval && reproduces(last, changes, config)) {
+                    body = deltaBody(version, savedAt, applicationCount, changes);
+                    deltasSinceSnapshot++;
+                } else {
+                    body = snapshotBody(version, savedAt, applicationCount, changes.size(), config);
+                    deltasSinceSnapshot = 0;
+                }
+                int length = writeRecord(body);
+                records.add(readRecordHeader(body, size, length, crc(body)));
+                size += length;
+                last = config;
+                syncPending = true;
+                syncRequested.signal();
+                if (size > compactionThreshold()) {
+                    compact();
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to stack journal", e);
+        } finally {
+            sample.stop(appendTimer);
+            lock.unlock();
+        }
+    }
+
+    // Newest first
+    public List<HistoryEntry> getEntries() {
+        lock.lock();
+        try {
+            refresh();
+            List<HistoryEntry> entries = new ArrayList<>(records.size());
+            for (int i = records.size() - 1; i >= 0; i--) {
+                Record record = records.get(i);
+                HistoryEntry entry = new HistoryEntry();
+                entry.setVersion(record.version());
+                entry.setSavedAt(record.savedAt());
+                entry.setSnapshot(record.type() == SNAPSHOT);
+                entry.setApplicationCount(record.applicationCount());
+                entry.setChangeCount(record.changeCount());
+                entries.add(entry);
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read stack journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Rebuilds a version from the nearest snapshot before it, or returns null when it is not in the journal. */
+    public StackConfiguration rebuild(long version) {
+        lock.lock();
+        try {
+            refresh();
+            int index = indexOf(version);
+            return index >= 0 ? replay(index) : null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read stack journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        openChannel();
+        withFileLock(() -> {
+        });
+    }
+
+    private void openChannel() throws IOException {
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileKey = Files.readAttributes(journalPath, BasicFileAttributes.class).fileKey();
+        records.clear();
+        deltasSinceSnapshot = 0;
+        size = 0;
+    }
+
+    /**
+     * Runs an action under the exclusive lock of the journal file, once the
+     * records appended by other containers have been read. Reentrant.
+     */
+    private void withFileLock(FileAction action) throws IOException {
+        if (fileLock != null) {
+            action.run();
+            return;
+        }
+        while (true) {
+            fileLock = channel.lock();
+            if (Objects.equals(fileKey, currentFileKey())) {
+                break;
+            }
+            // Compacted by another container: the path names a new file
+            fileLock.release();
+            fileLock = null;
+            channel.close();
+            openChannel();
+        }
+        try {
+            if (catchUp()) {
+                last = replayLatest();
+            }
+            action.run();
+        } finally {
+            FileLock held = fileLock;
+            fileLock = null;
+            // A compaction closes the channel, and with it the lock
+            if (held.isValid()) {
+                held.release();
+            }
+        }
+    }
+
+    private Object currentFileKey() throws IOException {
+        try {
+            return Files.readAttributes(journalPath, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Reads the records appended since the last scan; true when there were any
+    private boolean catchUp() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == size) {
+            return false;
+        }
+        if (fileSize < size) {
+            records.clear();
+            deltasSinceSnapshot = 0;
+            size = 0;
+        }
+        long position = size;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            int bodyLength = header.getInt(0);
+            if (bodyLength < BODY_HEADER_SIZE || position + RECORD_HEADER_SIZE + bodyLength > fileSize) {
+                break;
+            }
+            byte[] body = readBody(position + RECORD_HEADER_SIZE, bodyLength);
+            if (crc(body) != header.getInt(4)) {
+                break;
+            }
+            Record record = readRecordHeader(body, position, RECORD_HEADER_SIZE + bodyLength, header.getInt(4));
+            if (records.isEmpty() && record.type() != SNAPSHOT) {
+                break;
+            }
+            records.add(record);
+            deltasSinceSnapshot = record.type() == SNAPSHOT ? 0 : deltasSinceSnapshot + 1;
+            position += record.length();
+        }
+        if (position < fileSize) {
+            // Written up to the crash, or damaged: the history stops at the last complete record
+            log.warn("Truncating {} from offset {} ({} bytes unreadable)", journalPath, position, fileSize - position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        size = position;
+        return true;
+    }
+
+    // Outside of an append: picks up what other containers appended, if anything
+    private void refresh() throws IOException {
+        if (channel.size() != size) {
+            withFileLock(() -> {
+            });
+        }
+    }
+
+    // Cuts the history before a record found damaged when replaying it
+    private void cut(int index) throws IOException {
+        Record damaged = records.get(index);
+        withFileLock(() -> {
+            int at = records.indexOf(damaged);
+            if (at < 0) {
+                // Re-read from a new file meanwhile
+                return;
+            }
+            log.warn("Truncating {} from offset {}: version {} fails its CRC", journalPath, damaged.offset(), damaged.version());
+            channel.truncate(damaged.offset());
+            channel.force(true);
+            records.subList(at, records.size()).clear();
+            size = damaged.offset();
+            deltasSinceSnapshot = 0;
+            for (int i = records.size() - 1; i >= 0 && records.get(i).type() != SNAPSHOT; i--) {
+                deltasSinceSnapshot++;
+            }
+            // The next append is a snapshot
+            last = null;
+        });
+    }
+
+    // Called under the file lock, with size at the end of the file
+    private int writeRecord(byte[] body) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+        record.putInt(body.length).putInt(crc(body)).put(body).flip();
+        long position = size;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        return RECORD_HEADER_SIZE + body.length;
+    }
+
+    private void syncLoop() {
+        while (true) {
+            FileChannel target;
+            lock.lock();
+            try {
+                while (!syncPending && !closed) {
+                    syncRequested.await();
+                }
+                if (closed) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                // Appends made meanwhile are covered by the same sync
+                TimeUnit.MILLISECONDS.sleep(syncDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            lock.lock();
+            try {
+                syncPending = false;
+                target = channel;
+            } finally {
+                lock.unlock();
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                target.force(false);
+            } catch (ClosedChannelException e) {
+                // Replaced by a compaction or closed on shutdown, both of which sync
+            } catch (IOException e) {
+                log.warn("Failed to sync {}", journalPath, e);
+            } finally {
+                sample.stop(syncTimer);
+            }
+        }
+    }
+
+    // Compacting cannot go below the newest snapshot: with snapshots over half the limit, wait for twice that size
+    private long compactionThreshold() {
+        long snapshotLength = 0;
+        for (int i = records.size() - 1; i >= 0 && snapshotLength == 0; i--) {
+            if (records.get(i).type() == SNAPSHOT) {
+                snapshotLength = records.get(i).length();
+            }
+        }
+        return Math.max(maxSizeKb * 1024, 2 * snapshotLength);
+    }
+
+    // Keeps the newest versions that fit in half the size limit, the oldest of them as a snapshot
+    private void compact() throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            long budget = maxSizeKb * 1024 / 2;
+            // The records after the head are copied as they are, each counted once; the head is rewritten
+            // as a snapshot, about the size of the one its replay starts from
+            long copied = 0;
+            int first = records.size() - 1;
+            while (first > 0 && copied + records.get(first).length() + snapshotLength(first - 1) <= budget) {
+                copied += records.get(first).length();
+                first--;
+            }
+            Record head = records.get(first);
+            StackConfiguration headConfig = replay(first);
+            if (headConfig == null) {
+                // Cut while replaying: the journal is already shorter
+                return;
+            }
+            byte[] headBody = snapshotBody(head.version(), head.savedAt(), head.applicationCount(), head.changeCount(), headConfig);
+            List<Record> tail = List.copyOf(records.subList(first + 1, records.size()));
+            int dropped = first;
+            AtomicFiles.write(journalPath, out -> {
+                writeRecord(out, headBody);
+                for (Record record : tail) {
+                    out.write(readBody(record.offset(), record.length()));
+                }
+            });
+            channel.close();
+            long before = size;
+            openChannel();
+            // Released with the lock of the append that compacted
+            fileLock = channel.lock();
+            catchUp();
+            log.info("Compacted {}: dropped {} oldest versions, {} -> {} bytes", journalPath, dropped, before, size);
+        } finally {
+            sample.stop(compactTimer);
+        }
+    }
+
+    // Length of the snapshot the replay of a record starts from
+    private int snapshotLength(int index) {
+        while (records.get(index).type() != SNAPSHOT) {
+            index--;
+        }
+        return records.get(index).length();
+    }
+
+    private static void writeRecord(OutputStream out, byte[] body) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(body.length);
+        data.writeInt(crc(body));
+        data.write(body);
+        data.flush();
+    }
+
+    // Null when a record on the way fails its CRC; the journal is then cut before it
+    private StackConfiguration replay(int index) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int start = index;
+            while (records.get(start).type() != SNAPSHOT) {
+                start--;
+            }
+            StackConfiguration config = null;
+            for (int i = start; i <= index; i++) {
+                Record record = records.get(i);
+                byte[] body = readBody(record.offset() + RECORD_HEADER_SIZE, record.length() - RECORD_HEADER_SIZE);
+                if (crc(body) != record.crc()) {
+                    cut(i);
+                    return null;
+                }
+                if (record.type() == SNAPSHOT) {
+                    config = BinaryStackCodec.decode(ByteBuffer.wrap(body, BODY_HEADER_SIZE, body.length - BODY_HEADER_SIZE).slice());
+                } else {
+                    apply(config, readChanges(body));
+                }
+            }
+            return config;
+        } finally {
+            sample.stop(replayTimer);
+        }
+    }
+
+    private StackConfiguration replayLatest() throws IOException {
+        while (!records.isEmpty()) {
+            StackConfiguration config = replay(records.size() - 1);
+            if (config != null) {
+                return StackConfiguration.immutableCopyOf(config);
+            }
+        }
+        return null;
+    }
+
+    private int indexOf(long version) {
+        int low = 0;
+        int high = records.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = records.get(middle).version();
+            if (candidate < version) {
+                low = middle + 1;
+            } else if (candidate > version) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] readBody(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, position);
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + journalPath);
+            }
+        }
+    }
+
+    private static Record readRecordHeader(byte[] body, long offset, int length, int crc) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        return new Record(buffer.get(), buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt(), offset, length, crc);
+    }
+
+    private static byte[] snapshotBody(long version, long savedAt, int applicationCount, int changeCount, StackConfiguration config) {
+        byte[] encoded = BinaryStackCodec.encode(config, version);
+        return ByteBuffer.allocate(BODY_HEADER_SIZE + encoded.length)
+                .put(SNAPSHOT).putLong(version).putLong(savedAt).putInt(applicationCount).putInt(changeCount)
+                .put(encoded)
+                .array();
+    }
+
+    private static byte[] deltaBody(long version, long savedAt, int applicationCount, List<Change> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(DELTA);
+        out.writeLong(version);
+        out.writeLong(savedAt);
+        out.writeInt(applicationCount);
+        out.writeInt(changes.size());
+        for (Change change : changes) {
+            out.writeByte(change.type());
+            out.writeUTF(change.platform());
+            out.writeUTF(change.component());
+            out.writeUTF(change.application());
+            if (change.type() == PUT) {
+                out.writeUTF(change.version());
+                out.writeUTF(change.archiveFile());
+                out.writeInt(change.platformIndex());
+                out.writeInt(change.componentIndex());
+                out.writeInt(change.applicationIndex());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<Change> readChanges(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, BODY_HEADER_SIZE, body.length - BODY_HEADER_SIZE));
+        int count = ByteBuffer.wrap(body).getInt(BODY_HEADER_SIZE - 4);
+        List<Change> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            String platform = in.readUTF();
+            String component = in.readUTF();
+            String application = in.readUTF();
+            if (type == PUT) {
+                changes.add(new Change(type, platform, component, application, in.readUTF(), in.readUTF(),
+                        in.readInt(), in.readInt(), in.readInt()));
+            } else {
+                changes.add(new Change(type, platform, component, application, null, null, 0, 0, 0));
+            }
+        }
+        return changes;
+    }
+
+    // Removed applications first, then the added or modified ones in the order of the new configuration
+    private static List<Change> changes(StackConfiguration before, StackConfiguration after) {
+        Map<String, StackConfiguration.Application> next = new HashMap<>();
+        forEachApplication(after, (platform, component, app) ->
+                next.put(platform.getName() + SEPARATOR + component.getName() + SEPARATOR + app.getName(), app));
+        List<Change> changes = new ArrayList<>();
+        Map<String, StackConfiguration.Application> previous = new HashMap<>();
+        forEachApplication(before, (platform, component, app) -> {
+            String key = platform.getName() + SEPARATOR + component.getName() + SEPARATOR + app.getName();
+            previous.put(key, app);
+            if (!next.containsKey(key)) {
+                changes.add(new Change(REMOVE, platform.getName(), component.getName(), app.getName(), null, null, 0, 0, 0));
+            }
+        });
+        List<StackConfiguration.Platform> platforms = after.getPlatforms();
+        for (int p = 0; p < platforms.size(); p++) {
+            StackConfiguration.Platform platform = platforms.get(p);
+            for (int c = 0; c < platform.getComponents().size(); c++) {
+                StackConfiguration.Component component = platform.getComponents().get(c);
+                for (int a = 0; a < component.getApplications().size(); a++) {
+                    StackConfiguration.Application app = component.getApplications().get(a);
+                    StackConfiguration.Application old = previous.get(platform.getName() + SEPARATOR + component.getName() + SEPARATOR + app.getName());
+                    if (old == null || !Objects.equals(old.getVersion(), app.getVersion())
+                            || !Objects.equals(old.getArchiveFile(), app.getArchiveFile())) {
+                        changes.add(new Change(PUT, platform.getName(), component.getName(), app.getName(),
+                                app.getVersion(), app.getArchiveFile(), p, c, a));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    // Removals first, then puts in order, so new nodes land at their position in the new configuration;
+    // emptied components and platforms are removed. Nodes are looked up by id, not searched.
+    private static void apply(StackConfiguration config, List<Change> changes) {
+        Map<String, StackConfiguration.Platform> platforms = new HashMap<>();
+        Map<String, StackConfiguration.Component> components = new HashMap<>();
+        Map<String, StackConfiguration.Application> applications = new HashMap<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            platforms.put(platform.getName(), platform);
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                String componentId = platform.getName() + SEPARATOR + component.getName();
+                components.put(componentId, component);
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    applications.put(componentId + SEPARATOR + app.getName(), app);
+                }
+            }
+        }
+
+        Set<StackConfiguration.Application> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> touched = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.type() == REMOVE) {
+                String componentId = change.platform() + SEPARATOR + change.component();
+                StackConfiguration.Application app = applications.remove(componentId + SEPARATOR + change.application());
+                if (app != null) {
+                    removed.add(app);
+                    touched.add(componentId);
+                }
+            }
+        }
+        for (String componentId : touched) {
+            StackConfiguration.Component component = components.get(componentId);
+            component.getApplications().removeIf(removed::contains);
+            if (component.getApplications().isEmpty()) {
+                String platformName = componentId.substring(0, componentId.indexOf(SEPARATOR));
+                StackConfiguration.Platform platform = platforms.get(platformName);
+                platform.getComponents().remove(component);
+                components.remove(componentId);
+                if (platform.getComponents().isEmpty()) {
+                    config.getPlatforms().remove(platform);
+                    platforms.remove(platformName);
+                }
+            }
+        }
+
+        for (Change change : changes) {
+            if (change.type() != PUT) {
+                continue;
+            }
+            StackConfiguration.Platform platform = platforms.get(change.platform());
+            if (platform == null) {
+                platform = new StackConfiguration.Platform(change.platform());
+                insert(config.getPlatforms(), change.platformIndex(), platform);
+                platforms.put(change.platform(), platform);
+            }
+            String componentId = change.platform() + SEPARATOR + change.component();
+            StackConfiguration.Component component = components.get(componentId);
+            if (component == null) {
+                component = new StackConfiguration.Component(change.component());
+                insert(platform.getComponents(), change.componentIndex(), component);
+                components.put(componentId, component);
+            }
+            String applicationId = componentId + SEPARATOR + change.application();
+            StackConfiguration.Application app = applications.get(applicationId);
+            if (app == null) {
+                app = new StackConfiguration.Application(change.application(), change.version(), change.archiveFile());
+                insert(component.getApplications(), change.applicationIndex(), app);
+                applications.put(applicationId, app);
+            } else {
+                app.setVersion(change.version());
+                app.setArchiveFile(change.archiveFile());
+            }
+        }
+    }
+
+    private static <T> void insert(List<T> items, int index, T item) {
+        items.add(Math.min(index, items.size()), item);
+    }
+
+    /**
+     * A delta only stores application changes and the positions of the new
+     * nodes. Replaying it gives back exactly the new configuration when the
+     * nodes kept from the previous one are still in the same relative order
+     * and no node is empty; checked in one pass, without replaying.
+     */
+    private static boolean reproduces(StackConfiguration before, List<Change> changes, StackConfiguration after) {
+        if (!Objects.equals(before.getCommunity(), after.getCommunity()) || hasNull(changes)) {
+            return false;
+        }
+        Set<String> next = new HashSet<>();
+        forEachApplication(after, (platform, component, app) ->
+                next.add(platform.getName() + SEPARATOR + component.getName() + SEPARATOR + app.getName()));
+        Set<String> kept = new HashSet<>();
+        forEachApplication(before, (platform, component, app) -> {
+            String key = platform.getName() + SEPARATOR + component.getName() + SEPARATOR + app.getName();
+            if (next.contains(key)) {
+                kept.add(key);
+            }
+        });
+        List<String> keptBefore = keptNodes(before, kept);
+        List<String> keptAfter = keptNodes(after, kept);
+        return keptBefore != null && keptBefore.equals(keptAfter);
+    }
+
+    // Kept platforms, components and applications in tree order; null when a node is empty
+    private static List<String> keptNodes(StackConfiguration config, Set<String> kept) {
+        List<String> nodes = new ArrayList<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            if (platform.getComponents().isEmpty()) {
+                return null;
+            }
+            int platformAt = nodes.size();
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                if (component.getApplications().isEmpty()) {
+                    return null;
+                }
+                String componentId = platform.getName() + SEPARATOR + component.getName();
+                int componentAt = nodes.size();
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    String key = componentId + SEPARATOR + app.getName();
+                    if (kept.contains(key)) {
+                        nodes.add(key);
+                    }
+                }
+                if (nodes.size() > componentAt) {
+                    nodes.add(componentAt, componentId + SEPARATOR);
+                }
+            }
+            if (nodes.size() > platformAt) {
+                nodes.add(platformAt, platform.getName());
+            }
+        }
+        return nodes;
+    }
+
+    private static boolean hasNull(List<Change> changes) {
+        return changes.stream().anyMatch(change -> change.type() == PUT && (change.version() == null || change.archiveFile() == null));
+    }
+
+    private static int applicationCount(StackConfiguration config) {
+        int[] count = {0};
+        forEachApplication(config, (platform, component, app) -> count[0]++);
+        return count[0];
+    }
+
+    private interface ApplicationVisitor {
+        void visit(StackConfiguration.Platform platform, StackConfiguration.Component component, StackConfiguration.Application app);
+    }
+
+    private static void forEachApplication(StackConfiguration config, ApplicationVisitor visitor) {
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    visitor.visit(platform, component, app);
+                }
+            }
+        }
+    }
+
+    private static int crc(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,32 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+
+/**
+ * Immutable view of the stack configuration at a given version. A null
+ * configuration means no stack has been saved yet.
+ */
+public final class StackSnapshot {
+
+    public static final StackSnapshot EMPTY = new StackSnapshot(0L, null);
+
+    private final long version;
+    private final StackConfiguration configuration;
+
+    public StackSnapshot(long version, StackConfiguration configuration) {
+        this.version = version;
+        this.configuration = configuration;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public StackConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public boolean isPresent() {
+        return configuration != null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stetits.core.docker.repository;
+
+/**
+ * Thrown when a stack is saved on top of a version that is no longer the
+ * current one: someone else saved it in between.
+ */
+public class StackVersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String stack;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public StackVersionConflictException(String stack, long expectedVersion, long currentVersion) {
+        super("Stack " + stack + " is at version " + currentVersion + ", not " + expectedVersion);
+        this.stack = stack;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getStack() {
+        return stack;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
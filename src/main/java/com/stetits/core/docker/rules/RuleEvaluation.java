@@ -0,0 +1,138 @@
+package com.stetits.core.docker.rules;
+
+import com.stetits.core.docker.model.RuleViolation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of a {@link RuleSet} on a selection that changes over time. The
+ * result of every rule is kept between changes; a change only evaluates the
+ * rules triggered by the application it touches and by its platform. An empty
+ * selection satisfies every rule, so a new evaluation starts with no
+ * violation and no rule evaluated. Not thread-safe.
+ */
+public class RuleEvaluation {
+
+    public static final String SEPARATOR = "|";
+
+    private final RuleSet rules;
+    // platform|component|app -> selected version
+    private final Map<String, String> versions = new HashMap<>();
+    // platform and platform|component -> number of selected applications below it
+    private final Map<String, Integer> counts = new HashMap<>();
+    // Rule id -> violation, for the rules currently violated, kept in rule id order
+    private final TreeMap<String, RuleViolation> errors = new TreeMap<>();
+    private final TreeMap<String, RuleViolation> warnings = new TreeMap<>();
+    // Errors then warnings, built again after a change
+    private List<RuleViolation> violations = List.of();
+
+    public RuleEvaluation(RuleSet rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Applies a change of selection (values {@code platform|component|app|version:archiveFile},
+     * removals first) and returns the number of rules evaluated again.
+     * Malformed values are ignored: the form checks them on submit.
+     */
+    public int apply(Collection<String> removed, Collection<String> added) {
+        Map<String, StackRule> affected = new LinkedHashMap<>();
+        for (String selection : removed) {
+            String application = applicationOf(selection);
+            if (application != null && versions.remove(application) != null) {
+                count(application, -1);
+                collect(application, affected);
+            }
+        }
+        for (String selection : added) {
+            String application = applicationOf(selection);
+            if (application == null) {
+                continue;
+            }
+            String previous = versions.put(application, versionOf(selection));
+            if (previous == null) {
+                count(application, 1);
+            }
+            collect(application, affected);
+        }
+        boolean changed = false;
+        for (StackRule rule : affected.values()) {
+            RuleViolation violation = rule.evaluate(this);
+            Map<String, RuleViolation> violated = RuleViolation.ERROR.equals(rule.severity()) ? errors : warnings;
+            RuleViolation before = violation != null ? violated.put(rule.id(), violation) : violated.remove(rule.id());
+            changed |= violation != null || before != null;
+        }
+        if (changed) {
+            List<RuleViolation> all = new ArrayList<>(errors.size() + warnings.size());
+            all.addAll(errors.values());
+            all.addAll(warnings.values());
+            violations = Collections.unmodifiableList(all);
+        }
+        return affected.size();
+    }
+
+    /** Current violations, errors first. */
+    public List<RuleViolation> getViolations() {
+        return violations;
+    }
+
+    public int getErrorCount() {
+        return errors.size();
+    }
+
+    public int getApplicationCount() {
+        return versions.size();
+    }
+
+    /** Selected version of an application (platform|component|app), or null. */
+    String version(String application) {
+        return versions.get(application);
+    }
+
+    /** Number of selected applications below a platform or a platform|component. */
+    int count(String node) {
+        return counts.getOrDefault(node, 0);
+    }
+
+    private void collect(String application, Map<String, StackRule> affected) {
+        for (StackRule rule : rules.triggeredBy(application)) {
+            affected.putIfAbsent(rule.id(), rule);
+        }
+        for (StackRule rule : rules.triggeredBy(platformOf(application))) {
+            affected.putIfAbsent(rule.id(), rule);
+        }
+    }
+
+    private void count(String application, int delta) {
+        counts.merge(platformOf(application), delta, Integer::sum);
+        counts.merge(application.substring(0, application.lastIndexOf(SEPARATOR)), delta, Integer::sum);
+    }
+
+    private static String platformOf(String application) {
+        return application.substring(0, application.indexOf(SEPARATOR));
+    }
+
+    // platform|component|app, or null when the value is not a selection
+    private static String applicationOf(String selection) {
+        int first = selection.indexOf(SEPARATOR);
+        int second = first < 1 ? -1 : selection.indexOf(SEPARATOR, first + 1);
+        int third = second < 0 ? -1 : selection.indexOf(SEPARATOR, second + 1);
+        if (third < 0 || second == first + 1 || third == second + 1 || third + 1 >= selection.length()) {
+            return null;
+        }
+        return selection.substring(0, third);
+    }
+
+    private static String versionOf(String selection) {
+        int third = selection.indexOf(SEPARATOR, selection.indexOf(SEPARATOR, selection.indexOf(SEPARATOR) + 1) + 1);
+        int colon = selection.indexOf(':', third + 1);
+        return colon < 0 ? selection.substring(third + 1) : selection.substring(third + 1, colon);
+    }
+}
@@ -0,0 +1,107 @@
+package com.stetits.core.docker.rules;
+
+import com.stetits.core.docker.model.RuleDefinition;
+import com.stetits.core.docker.model.RuleViolation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The rules of one community, indexed by the catalog nodes that trigger them,
+ * so that a change of selection only reaches the rules it can affect.
+ */
+public final class RuleSet {
+
+    private final List<StackRule> rules;
+    private final Map<String, List<StackRule>> byTrigger = new HashMap<>();
+
+    private RuleSet(List<StackRule> rules) {
+        this.rules = List.copyOf(rules);
+        for (StackRule rule : rules) {
+            for (String trigger : rule.triggers()) {
+                byTrigger.computeIfAbsent(trigger, key -> new ArrayList<>()).add(rule);
+            }
+        }
+    }
+
+    /**
+     * Keeps the definitions that apply to the community; throws
+     * IllegalArgumentException on the first invalid one.
+     */
+    public static RuleSet compile(List<RuleDefinition> definitions, String community) {
+        List<StackRule> rules = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (RuleDefinition definition : definitions) {
+            if (!definition.getCommunities().isEmpty() && !definition.getCommunities().contains(community)) {
+                continue;
+            }
+            String id = definition.getId();
+            if (id == null || id.isBlank() || !ids.add(id)) {
+                throw new IllegalArgumentException("Missing or duplicate rule id: " + id);
+            }
+            try {
+                rules.add(compile(definition));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid rule " + id + ": " + e.getMessage(), e);
+            }
+        }
+        return new RuleSet(rules);
+    }
+
+    private static StackRule compile(RuleDefinition definition) {
+        String severity = definition.getSeverity() == null ? RuleViolation.ERROR : definition.getSeverity();
+        if (!RuleViolation.ERROR.equals(severity) && !RuleViolation.WARNING.equals(severity)) {
+            throw new IllegalArgumentException("unknown severity " + severity);
+        }
+        String type = String.valueOf(definition.getType());
+        return switch (type) {
+            case "requires" -> new StackRule.Requires(definition.getId(), severity, definition.getMessage(),
+                    application(definition.getApplication()), VersionRange.parse(definition.getApplicationVersions()),
+                    application(definition.getTarget()), VersionRange.parse(definition.getTargetVersions()));
+            case "conflicts" -> new StackRule.Conflicts(definition.getId(), severity, definition.getMessage(),
+                    application(definition.getApplication()), application(definition.getTarget()));
+            case "same-version" -> {
+                if (definition.getApplications().size() < 2) {
+                    throw new IllegalArgumentException("same-version needs at least two applications");
+                }
+                yield new StackRule.SameVersion(definition.getId(), severity, definition.getMessage(),
+                        definition.getApplications().stream().map(RuleSet::application).toList());
+            }
+            case "required-component" -> {
+                if (isBlank(definition.getPlatform()) || isBlank(definition.getComponent())) {
+                    throw new IllegalArgumentException("platform and component are required");
+                }
+                yield new StackRule.RequiredComponent(definition.getId(), severity, definition.getMessage(),
+                        definition.getPlatform(), definition.getComponent());
+            }
+            default -> throw new IllegalArgumentException("unknown type " + type);
+        };
+    }
+
+    // platform|component|app
+    private static String application(String id) {
+        String[] parts = id == null ? new String[0] : id.split(Pattern.quote(RuleEvaluation.SEPARATOR), -1);
+        if (parts.length != 3 || Arrays.stream(parts).anyMatch(String::isBlank)) {
+            throw new IllegalArgumentException("application expected as platform|component|app: " + id);
+        }
+        return id;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    public List<StackRule> getRules() {
+        return rules;
+    }
+
+    public List<StackRule> triggeredBy(String node) {
+        return byTrigger.getOrDefault(node, List.of());
+    }
+}
@@ -0,0 +1,124 @@
+package com.stetits.core.docker.rules;
+
+import com.stetits.core.docker.model.RuleViolation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compiled compatibility rule. Every rule is satisfied by an empty
+ * selection, and its outcome only depends on the selection of its
+ * {@link #triggers()}: a change elsewhere in the stack cannot change it.
+ */
+public sealed interface StackRule {
+
+    String id();
+
+    String severity();
+
+    /** Catalog node ids (platform or platform|component|app) whose selection the outcome depends on. */
+    List<String> triggers();
+
+    /** Returns the violation, or null when the rule is satisfied. */
+    RuleViolation evaluate(RuleEvaluation selection);
+
+    /** The application requires another one, optionally within a version range. */
+    record Requires(String id, String severity, String message, String application, VersionRange applicationVersions,
+                    String target, VersionRange targetVersions) implements StackRule {
+
+        @Override
+        public List<String> triggers() {
+            return List.of(application, target);
+        }
+
+        @Override
+        public RuleViolation evaluate(RuleEvaluation selection) {
+            String version = selection.version(application);
+            if (version == null || !applicationVersions.contains(version)) {
+                return null;
+            }
+            String targetVersion = selection.version(target);
+            if (targetVersion != null && targetVersions.contains(targetVersion)) {
+                return null;
+            }
+            String required = display(target) + (targetVersions.isAny() ? "" : " " + targetVersions);
+            String text = targetVersion == null
+                    ? display(application) + " " + version + " requiert " + required
+                    : display(application) + " " + version + " requiert " + required + " (version " + targetVersion + " sélectionnée)";
+            return violation(this, message, text, List.of(application, target));
+        }
+    }
+
+    /** The two applications cannot be deployed together. */
+    record Conflicts(String id, String severity, String message, String application, String target) implements StackRule {
+
+        @Override
+        public List<String> triggers() {
+            return List.of(application, target);
+        }
+
+        @Override
+        public RuleViolation evaluate(RuleEvaluation selection) {
+            if (selection.version(application) == null || selection.version(target) == null) {
+                return null;
+            }
+            return violation(this, message, display(application) + " et " + display(target) + " ne peuvent pas être déployés ensemble",
+                    List.of(application, target));
+        }
+    }
+
+    /** The selected applications of the group must share one version. */
+    record SameVersion(String id, String severity, String message, List<String> applications) implements StackRule {
+
+        @Override
+        public List<String> triggers() {
+            return applications;
+        }
+
+        @Override
+        public RuleViolation evaluate(RuleEvaluation selection) {
+            Set<String> versions = new LinkedHashSet<>();
+            List<String> selected = new ArrayList<>();
+            for (String application : applications) {
+                String version = selection.version(application);
+                if (version != null) {
+                    versions.add(version);
+                    selected.add(application);
+                }
+            }
+            if (versions.size() <= 1) {
+                return null;
+            }
+            List<String> names = selected.stream().map(StackRule::display).toList();
+            return violation(this, message, String.join(", ", names) + " doivent avoir la même version (" + String.join(", ", versions) + ")",
+                    selected);
+        }
+    }
+
+    /** A platform with any application selected needs at least one application of that component. */
+    record RequiredComponent(String id, String severity, String message, String platform, String component) implements StackRule {
+
+        @Override
+        public List<String> triggers() {
+            return List.of(platform);
+        }
+
+        @Override
+        public RuleViolation evaluate(RuleEvaluation selection) {
+            if (selection.count(platform) == 0 || selection.count(platform + RuleEvaluation.SEPARATOR + component) > 0) {
+                return null;
+            }
+            return violation(this, message, "La plateforme " + platform + " requiert le composant " + component, List.of(platform));
+        }
+    }
+
+    private static RuleViolation violation(StackRule rule, String message, String generated, List<String> nodes) {
+        return new RuleViolation(rule.id(), rule.severity(), message != null && !message.isBlank() ? message : generated, nodes);
+    }
+
+    private static String display(String application) {
+        return application.replace(RuleEvaluation.SEPARATOR, "/");
+    }
+}
@@ -0,0 +1,98 @@
+package com.stetits.core.docker.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versions accepted by a rule: comparators separated by spaces, all of which
+ * must hold ({@code ">=1.2 <2"}); a bare version means {@code =}. Versions are
+ * compared part by part, numerically when both parts are numbers, missing
+ * parts counting as 0.
+ */
+public final class VersionRange {
+
+    public static final VersionRange ANY = new VersionRange("", List.of());
+
+    private static final String[] OPERATORS = {">=", "<=", ">", "<", "="};
+
+    private final String text;
+    private final List<Bound> bounds;
+
+    private VersionRange(String text, List<Bound> bounds) {
+        this.text = text;
+        this.bounds = bounds;
+    }
+
+    public static VersionRange parse(String text) {
+        if (text == null || text.isBlank()) {
+            return ANY;
+        }
+        List<Bound> bounds = new ArrayList<>();
+        for (String comparator : text.trim().split("\\s+")) {
+            String operator = "=";
+            for (String candidate : OPERATORS) {
+                if (comparator.startsWith(candidate)) {
+                    operator = candidate;
+                    break;
+                }
+            }
+            String version = comparator.startsWith(operator) ? comparator.substring(operator.length()) : comparator;
+            if (version.isEmpty()) {
+                throw new IllegalArgumentException("Missing version in range '" + text + "'");
+            }
+            bounds.add(new Bound(operator, version));
+        }
+        return new VersionRange(text.trim(), List.copyOf(bounds));
+    }
+
+    public boolean isAny() {
+        return bounds.isEmpty();
+    }
+
+    public boolean contains(String version) {
+        for (Bound bound : bounds) {
+            if (!bound.accepts(compare(version, bound.version))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int compare(String left, String right) {
+        String[] a = left.split("[.-]");
+        String[] b = right.split("[.-]");
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            String x = i < a.length ? a[i] : "0";
+            String y = i < b.length ? b[i] : "0";
+            int result = isNumber(x) && isNumber(y)
+                    ? Long.compare(Long.parseLong(x), Long.parseLong(y))
+                    : x.compareTo(y);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isNumber(String part) {
+        return !part.isEmpty() && part.length() < 19 && part.chars().allMatch(Character::isDigit);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private record Bound(String operator, String version) {
+
+        boolean accepts(int comparison) {
+            return switch (operator) {
+                case ">=" -> comparison >= 0;
+                case "<=" -> comparison <= 0;
+                case ">" -> comparison > 0;
+                case "<" -> comparison < 0;
+                default -> comparison == 0;
+            };
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.model.CatalogNode;
+import com.stetits.core.docker.model.StackConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup structure over the catalog. Children are pre-grouped per
+ * node, and the selections of every subtree are a contiguous range of one flat
+ * list per community (depth-first order), so both lookups are O(1) plus the
+ * size of the returned page.
+ */
+final class CatalogIndex {
+
+    static final String SEPARATOR = "|";
+
+    private final Map<String, Community> communities;
+    private final String etag;
+
+    CatalogIndex(List<StackConfiguration> catalog, String etag) {
+        Map<String, Community> byName = new LinkedHashMap<>();
+        for (StackConfiguration community : catalog) {
+            byName.put(community.getCommunity(), new Community(community));
+        }
+        this.communities = Collections.unmodifiableMap(byName);
+        this.etag = etag;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    List<String> getCommunities() {
+        return new ArrayList<>(communities.keySet());
+    }
+
+    // Null when the community or the parent node does not exist
+    List<CatalogNode> getChildren(String community, String parentId) {
+        Community entry = communities.get(community);
+        return entry == null ? null : entry.children.get(parentId);
+    }
+
+    List<String> getSelections(String community, String parentId) {
+        Community entry = communities.get(community);
+        if (entry == null) {
+            return null;
+        }
+        int[] range = entry.ranges.get(parentId);
+        return range == null ? null : entry.selections.subList(range[0], range[1]);
+    }
+
+    private static final class Community {
+        private final Map<String, List<CatalogNode>> children = new HashMap<>();
+        private final Map<String, int[]> ranges = new HashMap<>();
+        private final List<String> selections = new ArrayList<>();
+
+        private Community(StackConfiguration community) {
+            List<CatalogNode> platforms = new ArrayList<>(community.getPlatforms().size());
+            for (StackConfiguration.Platform platform : community.getPlatforms()) {
+                int platformStart = selections.size();
+                String platformId = platform.getName();
+                CatalogNode platformNode = new CatalogNode(platformId, platform.getName(), CatalogNode.PLATFORM);
+                List<CatalogNode> components = new ArrayList<>(platform.getComponents().size());
+
+                for (StackConfiguration.Component component : platform.getComponents()) {
+                    int componentStart = selections.size();
+                    String componentId = platformId + SEPARATOR + component.getName();
+                    CatalogNode componentNode = new CatalogNode(componentId, component.getName(), CatalogNode.COMPONENT);
+                    List<CatalogNode> applications = new ArrayList<>(component.getApplications().size());
+
+                    for (StackConfiguration.Application app : component.getApplications()) {
+                        String appId = componentId + SEPARATOR + app.getName();
+                        String selection = appId + SEPARATOR + app.getVersion() + ":" + app.getArchiveFile();
+                        CatalogNode appNode = new CatalogNode(appId, app.getName(), CatalogNode.APPLICATION);
+                        appNode.setVersion(app.getVersion());
+                        appNode.setArchiveFile(app.getArchiveFile());
+                        appNode.setSelection(selection);
+                        appNode.setApplicationCount(1);
+                        applications.add(appNode);
+                        ranges.put(appId, new int[]{selections.size(), selections.size() + 1});
+                        selections.add(selection);
+                    }
+
+                    componentNode.setChildCount(applications.size());
+                    componentNode.setApplicationCount(selections.size() - componentStart);
+                    children.put(componentId, Collections.unmodifiableList(applications));
+                    ranges.put(componentId, new int[]{componentStart, selections.size()});
+                    components.add(componentNode);
+                }
+
+                platformNode.setChildCount(components.size());
+                platformNode.setApplicationCount(selections.size() - platformStart);
+                children.put(platformId, Collections.unmodifiableList(components));
+                ranges.put(platformId, new int[]{platformStart, selections.size()});
+                platforms.add(platformNode);
+            }
+            children.put("", Collections.unmodifiableList(platforms));
+            ranges.put("", new int[]{0, selections.size()});
+        }
+    }
+}
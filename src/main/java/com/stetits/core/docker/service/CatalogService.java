@@ -0,0 +1,80 @@
+package com.stetits.core.docker.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.model.CatalogNode;
+import com.stetits.core.docker.model.CatalogPage;
+import com.stetits.core.docker.model.StackConfiguration;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+@Service
+public class CatalogService {
+
+    private static final String DEFAULT_CATALOG = "catalog/catalog.json";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile CatalogIndex index;
+
+    @PostConstruct
+    void init() {
+        try (InputStream in = new ClassPathResource(DEFAULT_CATALOG).getInputStream()) {
+            updateCatalog(in.readAllBytes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load component catalog", e);
+        }
+    }
+
+    // Replaces the catalog with the given JSON document (a list of communities)
+    public void updateCatalog(byte[] json) throws IOException {
+        List<StackConfiguration> catalog = objectMapper.readValue(json, new TypeReference<List<StackConfiguration>>() {
+        });
+        index = new CatalogIndex(catalog, digest(json));
+    }
+
+    public String getETag() {
+        return index.getEtag();
+    }
+
+    public List<String> getCommunities() {
+        return index.getCommunities();
+    }
+
+    public CatalogPage getChildren(String community, String parentId, int page, int size) {
+        String parent = parentId != null ? parentId : "";
+        List<CatalogNode> children = index.getChildren(community, parent);
+        if (children == null) {
+            return null;
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int from = Math.min(Math.max(page, 0) * pageSize, children.size());
+        int to = Math.min(from + pageSize, children.size());
+        return new CatalogPage(community, parent, Math.max(page, 0), pageSize, children.size(), children.subList(from, to));
+    }
+
+    // All application selections below a node, used when a whole platform or component is checked
+    public List<String> getSelections(String community, String parentId) {
+        return index.getSelections(community, parentId != null ? parentId : "");
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
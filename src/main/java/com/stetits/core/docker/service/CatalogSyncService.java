@@ -0,0 +1,249 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.client.GithubCatalogClient;
+import com.stetits.core.docker.model.CatalogSyncStatus;
+import com.stetits.core.docker.model.Settings;
+import com.stetits.core.docker.storage.AtomicFiles;
+import com.stetits.core.docker.storage.FileMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the catalog in line with the GitHub STET repository, using the
+ * credentials of the settings page. The last catalog received is kept in
+ * ~/.core/catalog.json with its validators, and loaded at startup before
+ * any network access: startup and offline use never wait for GitHub. A
+ * background thread then asks for changes every {@code interval-ms} with a
+ * conditional request.
+ */
+// Refreshes from startup: not lazy even in the fast-start profile
+@Lazy(false)
+@Service
+public class CatalogSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSyncService.class);
+
+    private static final String SETTINGS_DIR = System.getProperty("user.home") + "/.core";
+    private static final String CACHE_FILE = SETTINGS_DIR + "/catalog.json";
+    private static final String CACHE_META_FILE = SETTINGS_DIR + "/catalog.meta";
+    private static final String URL_KEY = "url";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+    private static final String FETCHED_AT_KEY = "fetched-at";
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private GithubCatalogClient githubCatalogClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${core.catalog.sync.url:}")
+    private String url;
+
+    @Value("${core.catalog.sync.interval-ms:900000}")
+    private long intervalMs;
+
+    private Timer readTimer;
+    private Timer writeTimer;
+    private Timer syncTimer;
+    // 304 (the cached catalog is still current) vs 200 (a new catalog was downloaded)
+    private Counter notModified;
+    private Counter updated;
+
+    private final Path cachePath = Paths.get(CACHE_FILE);
+    private final Path cacheMetaPath = Paths.get(CACHE_META_FILE);
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final BlockingQueue<Boolean> wakeups = new LinkedBlockingQueue<>(1);
+    private volatile boolean running;
+    private volatile Thread refresher;
+
+    private volatile String source = "bundled";
+    private volatile String etag;
+    private volatile String lastModified;
+    private volatile String cachedUrl;
+    private volatile long lastAttempt;
+    private volatile long lastSuccess;
+    private volatile long lastUpdate;
+    private volatile String lastError;
+
+    @PostConstruct
+    void start() {
+        readTimer = FileMetrics.timer(meterRegistry, "catalog", "read");
+        writeTimer = FileMetrics.timer(meterRegistry, "catalog", "write");
+        syncTimer = Timer.builder("core.catalog.sync")
+                .description("Conditional requests for the catalog in the GitHub STET repository")
+                .register(meterRegistry);
+        notModified = FileMetrics.cacheCounter(meterRegistry, "catalog-sync", "hit");
+        updated = FileMetrics.cacheCounter(meterRegistry, "catalog-sync", "miss");
+        loadCache();
+        if (url.isBlank()) {
+            log.info("Catalog sync disabled (core.catalog.sync.url is not set)");
+            return;
+        }
+        running = true;
+        refresher = Thread.ofVirtual().name("catalog-sync").start(this::refreshLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        Thread thread = refresher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Wakes the background thread, e.g. once credentials have been saved
+    public void requestSync() {
+        wakeups.offer(Boolean.TRUE);
+    }
+
+    public CatalogSyncStatus sync() {
+        if (url.isBlank()) {
+            return getStatus();
+        }
+        syncLock.lock();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            lastAttempt = System.currentTimeMillis();
+            Settings settings = settingsService.getSettings();
+            if (!settings.isConfigured()) {
+                lastError = "Identifiants GitHub STET non configurés";
+                return getStatus();
+            }
+            // Validators only apply to a copy of the same file
+            boolean sameUrl = url.equals(cachedUrl);
+            GithubCatalogClient.Response response = githubCatalogClient.fetch(url,
+                    settings.getGithubUsername(), settings.getGithubPassword(),
+                    sameUrl ? etag : null, sameUrl ? lastModified : null);
+            if (response.isNotModified()) {
+                notModified.increment();
+            } else {
+                // Parsed before anything is written: an invalid catalog leaves the current one in place
+                catalogService.updateCatalog(response.body());
+                writeCache(response);
+                source = "remote";
+                lastUpdate = System.currentTimeMillis();
+                updated.increment();
+                log.info("Catalog updated from {} ({} bytes)", url, response.body().length);
+            }
+            etag = response.etag();
+            lastModified = response.lastModified();
+            lastSuccess = System.currentTimeMillis();
+            if (lastError != null) {
+                log.info("Catalog sync with {} restored", url);
+            }
+            lastError = null;
+        } catch (IOException | RuntimeException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (lastError == null) {
+                // Logged once per failure streak: offline use is expected
+                log.warn("Catalog sync with {} failed, keeping the current catalog: {}", url, error);
+            }
+            lastError = error;
+        } finally {
+            sample.stop(syncTimer);
+            syncLock.unlock();
+        }
+        return getStatus();
+    }
+
+    public CatalogSyncStatus getStatus() {
+        CatalogSyncStatus status = new CatalogSyncStatus();
+        status.setUrl(url);
+        status.setSource(source);
+        status.setCatalogEtag(catalogService.getETag());
+        status.setEtag(etag);
+        status.setLastModified(lastModified);
+        status.setLastAttempt(lastAttempt);
+        status.setLastSuccess(lastSuccess);
+        status.setLastUpdate(lastUpdate);
+        status.setNotModifiedCount((long) notModified.count());
+        status.setUpdateCount((long) updated.count());
+        status.setLastError(lastError);
+        return status;
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            sync();
+            try {
+                wakeups.poll(intervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void loadCache() {
+        if (!Files.exists(cachePath) || !Files.exists(cacheMetaPath)) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Properties meta = new Properties();
+            try (InputStream in = Files.newInputStream(cacheMetaPath)) {
+                meta.load(in);
+            }
+            catalogService.updateCatalog(Files.readAllBytes(cachePath));
+            cachedUrl = meta.getProperty(URL_KEY);
+            etag = meta.getProperty(ETAG_KEY);
+            lastModified = meta.getProperty(LAST_MODIFIED_KEY);
+            lastUpdate = Long.parseLong(meta.getProperty(FETCHED_AT_KEY, "0"));
+            source = "cache";
+            log.info("Catalog loaded from {} (fetched from {})", cachePath, cachedUrl);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring catalog cache {}: {}", cachePath, e.getMessage());
+        } finally {
+            sample.stop(readTimer);
+        }
+    }
+
+    // The catalog first, then its validators: a crash in between only costs one full download
+    private void writeCache(GithubCatalogClient.Response response) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty(URL_KEY, url);
+        if (response.etag() != null) {
+            meta.setProperty(ETAG_KEY, response.etag());
+        }
+        if (response.lastModified() != null) {
+            meta.setProperty(LAST_MODIFIED_KEY, response.lastModified());
+        }
+        meta.setProperty(FETCHED_AT_KEY, Long.toString(System.currentTimeMillis()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Files.deleteIfExists(cacheMetaPath);
+            AtomicFiles.write(cachePath, out -> out.write(response.body()));
+            AtomicFiles.write(cacheMetaPath, out -> meta.store(out, "Catalog cache validators"));
+        } finally {
+            sample.stop(writeTimer);
+        }
+        cachedUrl = url;
+    }
+}
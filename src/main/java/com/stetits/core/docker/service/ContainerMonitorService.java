@@ -0,0 +1,452 @@
+package com.stetits.core.docker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.client.ContainerEvent;
+import com.stetits.core.docker.client.ContainerSummary;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.model.ContainerStatus;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.StackSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the container of every configured application. The Docker event
+ * stream gives changes as they happen; while it is unavailable the container
+ * list is polled, quickly while something is changing and backing off while
+ * all containers are stable. Changes are pushed to the dashboards over SSE in
+ * batches: the Docker calls do not depend on the number of open tabs.
+ */
+// Tracks containers from startup, also under the lazy fast-start profile
+@Lazy(false)
+@Service
+public class ContainerMonitorService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContainerMonitorService.class);
+    private static final String LABEL_STACK = "core.stack";
+    private static final Set<String> TRANSITIONAL_STATES = Set.of("created", "restarting", "removing");
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+    // Batches a dashboard may fall behind before it is disconnected (30 s at the default push interval)
+    private static final int MAX_QUEUED_EVENTS = 60;
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${core.monitor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${core.monitor.min-poll-interval-ms:1000}")
+    private long minPollIntervalMs;
+
+    @Value("${core.monitor.max-poll-interval-ms:30000}")
+    private long maxPollIntervalMs;
+
+    @Value("${core.monitor.push-interval-ms:500}")
+    private long pushIntervalMs;
+
+    @Value("${core.monitor.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    // Application id -> last known status; values are never mutated once published
+    private final Map<String, ContainerStatus> statuses = new ConcurrentHashMap<>();
+    // Changes not pushed yet, the latest one per application
+    private final Map<String, ContainerStatus> pending = new ConcurrentHashMap<>();
+    private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+    private final Semaphore pollRequests = new Semaphore(0);
+
+    private volatile boolean running;
+    private volatile boolean eventsConnected;
+    private volatile boolean daemonReachable = true;
+    private volatile DockerClient.EventStream eventStream;
+    private volatile String community;
+    private volatile long configurationVersion = -1;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread.ofVirtual().name("container-monitor-events").start(this::followEvents);
+        Thread.ofVirtual().name("container-monitor-poll").start(this::pollLoop);
+        Thread.ofVirtual().name("container-monitor-push").start(this::pushLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        pollRequests.release();
+        DockerClient.EventStream stream = eventStream;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+        viewers.forEach(Viewer::close);
+    }
+
+    public List<ContainerStatus> getStatuses() {
+        List<ContainerStatus> list = new ArrayList<>(statuses.values());
+        list.sort(Comparator.comparing(ContainerStatus::getId));
+        return list;
+    }
+
+    public boolean isEventsConnected() {
+        return eventsConnected;
+    }
+
+    /**
+     * Registers a dashboard: it first gets a "snapshot" event with every
+     * status, then "status" events with the batched changes.
+     */
+    public SseEmitter subscribe() throws IOException {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Viewer viewer = new Viewer(emitter);
+        emitter.onCompletion(viewer::close);
+        emitter.onTimeout(viewer::close);
+        emitter.onError(e -> viewer.close());
+        // Under the broadcast lock: no change can fall between the snapshot and the registration
+        synchronized (viewers) {
+            viewer.offer(SseEmitter.event().name("snapshot").data(objectMapper.writeValueAsString(getStatuses())).build());
+            viewers.add(viewer);
+        }
+        viewer.start();
+        if (viewers.size() == 1) {
+            // First viewer after an idle period: refresh now rather than at the idle interval
+            pollRequests.release();
+        }
+        return emitter;
+    }
+
+    private void followEvents() {
+        long backoff = minPollIntervalMs;
+        while (running) {
+            try (DockerClient.EventStream stream = dockerClient.containerEvents(List.of(LABEL_STACK))) {
+                eventStream = stream;
+                eventsConnected = true;
+                backoff = minPollIntervalMs;
+                log.info("Following Docker container events");
+                // Resynchronise: changes may have been missed while disconnected
+                pollRequests.release();
+                ContainerEvent event;
+                while ((event = stream.next()) != null) {
+                    onEvent(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running && eventsConnected) {
+                    log.warn("Docker event stream lost, polling instead: {}", e.getMessage());
+                } else if (running) {
+                    log.debug("Docker event stream unavailable: {}", e.getMessage());
+                }
+            } finally {
+                eventStream = null;
+                if (eventsConnected) {
+                    eventsConnected = false;
+                    pollRequests.release();
+                }
+            }
+            sleep(backoff);
+            backoff = Math.min(backoff * 2, maxPollIntervalMs);
+        }
+    }
+
+    private void onEvent(ContainerEvent event) {
+        Map<String, String> attributes = event.getAttributes();
+        if (!attributes.getOrDefault(LABEL_STACK, "").equals(community)) {
+            return;
+        }
+        String id = applicationId(attributes);
+        ContainerStatus current = statuses.get(id);
+        String state = stateAfter(event.getAction());
+        if (current == null || state == null) {
+            return;
+        }
+        ContainerStatus next = current.copy();
+        next.setState(state);
+        // The status text is only known from the container list
+        next.setStatus(null);
+        if (ContainerStatus.MISSING.equals(state)) {
+            next.setContainerName(null);
+            next.setVersion(null);
+        } else {
+            next.setContainerName(attributes.get("name"));
+            next.setVersion(attributes.get("core.version"));
+        }
+        publish(next);
+        if (TRANSITIONAL_STATES.contains(state)) {
+            pollRequests.release();
+        }
+    }
+
+    // Container state implied by an event, null when the event does not change it
+    private static String stateAfter(String action) {
+        return switch (action) {
+            case "create" -> "created";
+            case "start", "restart", "unpause" -> "running";
+            case "pause" -> "paused";
+            case "die", "stop" -> "exited";
+            case "destroy" -> ContainerStatus.MISSING;
+            default -> null;
+        };
+    }
+
+    private void pollLoop() {
+        long interval = minPollIntervalMs;
+        while (running) {
+            boolean active;
+            try {
+                active = poll();
+                if (!daemonReachable) {
+                    daemonReachable = true;
+                    log.info("Docker daemon reachable again");
+                }
+            } catch (IOException | RuntimeException e) {
+                if (daemonReachable) {
+                    daemonReachable = false;
+                    log.warn("Failed to list containers: {}", e.getMessage());
+                }
+                markUnknown();
+                active = false;
+            }
+            if (eventsConnected || viewers.isEmpty()) {
+                // Events keep the state current, or nobody is watching: only reconcile now and then
+                interval = maxPollIntervalMs;
+            } else {
+                interval = active ? minPollIntervalMs : Math.min(interval * 2, maxPollIntervalMs);
+            }
+            try {
+                if (pollRequests.tryAcquire(interval, TimeUnit.MILLISECONDS)) {
+                    pollRequests.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reconciles the statuses with the saved configuration and the daemon's
+     * container list. Returns true when something changed or a container is
+     * in a transitional state, i.e. when the next poll should come soon.
+     */
+    boolean poll() throws IOException {
+        StackSnapshot snapshot = stackConfigService.getSnapshot();
+        configurationVersion = snapshot.getVersion();
+        if (!snapshot.isPresent()) {
+            community = null;
+            statuses.clear();
+            return false;
+        }
+        StackConfiguration config = snapshot.getConfiguration();
+        community = config.getCommunity();
+
+        Map<String, ContainerSummary> containers = new HashMap<>();
+        for (ContainerSummary container : dockerClient.listContainers(List.of(LABEL_STACK + "=" + config.getCommunity()))) {
+            containers.put(applicationId(container.getLabels()), container);
+        }
+
+        boolean active = false;
+        Set<String> configured = new HashSet<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    String id = platform.getName() + "|" + component.getName() + "|" + app.getName();
+                    configured.add(id);
+                    ContainerStatus status = new ContainerStatus(id, app.getVersion());
+                    ContainerSummary container = containers.get(id);
+                    if (container == null) {
+                        status.setState(ContainerStatus.MISSING);
+                    } else {
+                        status.setContainerName(container.getName());
+                        status.setState(container.getState());
+                        status.setStatus(container.getStatus());
+                        status.setVersion(container.getLabels().get("core.version"));
+                        active |= TRANSITIONAL_STATES.contains(container.getState());
+                    }
+                    active |= publish(status);
+                }
+            }
+        }
+        statuses.keySet().retainAll(configured);
+        return active;
+    }
+
+    private void markUnknown() {
+        for (ContainerStatus status : statuses.values()) {
+            ContainerStatus unknown = status.copy();
+            unknown.setState(ContainerStatus.UNKNOWN);
+            unknown.setStatus(null);
+            publish(unknown);
+        }
+    }
+
+    // Records a status; returns false when nothing observable changed
+    private boolean publish(ContainerStatus status) {
+        boolean[] changed = new boolean[1];
+        statuses.compute(status.getId(), (id, previous) -> {
+            if (status.sameStateAs(previous)) {
+                if (status.getStatus() == null || status.getStatus().equals(previous.getStatus())) {
+                    return previous;
+                }
+                // Only the status text moved on; the published instance may be being serialized
+                ContainerStatus refreshed = previous.copy();
+                refreshed.setStatus(status.getStatus());
+                return refreshed;
+            }
+            status.setChangedAt(System.currentTimeMillis());
+            changed[0] = true;
+            return status;
+        });
+        if (changed[0]) {
+            pending.put(status.getId(), status);
+        }
+        return changed[0];
+    }
+
+    private void pushLoop() {
+        long lastSent = System.currentTimeMillis();
+        while (running) {
+            sleep(pushIntervalMs);
+            if (stackConfigService.getSnapshot().getVersion() != configurationVersion) {
+                pollRequests.release();
+            }
+            if (viewers.isEmpty()) {
+                // New viewers start from a snapshot
+                pending.clear();
+                continue;
+            }
+            List<ContainerStatus> batch = new ArrayList<>(pending.size());
+            for (String id : pending.keySet()) {
+                ContainerStatus status = pending.remove(id);
+                if (status != null) {
+                    batch.add(status);
+                }
+            }
+            long now = System.currentTimeMillis();
+            try {
+                if (!batch.isEmpty()) {
+                    broadcast(SseEmitter.event().name("status").data(objectMapper.writeValueAsString(batch)));
+                    lastSent = now;
+                } else if (now - lastSent >= HEARTBEAT_INTERVAL_MS) {
+                    // Lets closed connections surface even when nothing changes
+                    broadcast(SseEmitter.event().comment("heartbeat"));
+                    lastSent = now;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to serialize container statuses: {}", e.getMessage());
+            }
+        }
+    }
+
+    // The event is encoded once and the same bytes are queued to every viewer
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        Set<ResponseBodyEmitter.DataWithMediaType> data = event.build();
+        synchronized (viewers) {
+            for (Viewer viewer : viewers) {
+                if (!viewer.offer(data)) {
+                    log.info("Disconnecting a dashboard {} events behind", MAX_QUEUED_EVENTS);
+                    viewer.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * One dashboard. Its events are written by its own virtual thread, so a
+     * slow connection holds up no other dashboard; one that falls too far
+     * behind is closed, and its browser reconnects from a snapshot.
+     */
+    private final class Viewer {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(MAX_QUEUED_EVENTS);
+        private volatile boolean closed;
+        private volatile Thread sender;
+
+        private Viewer(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("container-monitor-viewer").start(this::run);
+        }
+
+        boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> data) {
+            return queue.offer(data);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            viewers.remove(this);
+            Thread thread = sender;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed by the container
+            }
+        }
+
+        private void run() {
+            try {
+                while (!closed) {
+                    emitter.send(queue.take());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+    }
+
+    private static String applicationId(Map<String, String> labels) {
+        return labels.get("core.platform") + "|" + labels.get("core.component") + "|" + labels.get("core.application");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
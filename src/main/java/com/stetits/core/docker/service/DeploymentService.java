@@ -0,0 +1,233 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.deploy.DeploymentEngine;
+import com.stetits.core.docker.deploy.DeploymentPlan;
+import com.stetits.core.docker.model.DeploymentReport;
+import com.stetits.core.docker.model.PlacementResult;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+import com.stetits.core.docker.repository.BinaryStackCodec;
+import com.stetits.core.docker.repository.StackSnapshot;
+import com.stetits.core.docker.storage.ArchiveCache;
+import com.stetits.core.docker.storage.AtomicFiles;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class DeploymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeploymentService.class);
+    private static final int MAX_KEPT_REPORTS = 20;
+    private static final String SETTINGS_DIR = System.getProperty("user.home") + "/.core";
+    private static final String DEPLOYED_STACK_FILE = SETTINGS_DIR + "/deployed.bin";
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private ArchiveCache archiveCache;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @Autowired
+    private StackDiffService stackDiffService;
+
+    @Autowired
+    private PlacementService placementService;
+
+    @Value("${core.deploy.platform-concurrency:4}")
+    private int platformConcurrency;
+
+    @Value("${core.deploy.load-concurrency:3}")
+    private int loadConcurrency;
+
+    private final AtomicReference<DeploymentReport> running = new AtomicReference<>();
+    private final Map<String, DeploymentReport> reports = new LinkedHashMap<>();
+    private final Path deployedStackPath = Paths.get(DEPLOYED_STACK_FILE);
+
+    // Last configuration deployed without failure, null when unknown
+    private volatile StackConfiguration deployed;
+
+    @PostConstruct
+    void init() {
+        if (!Files.exists(deployedStackPath)) {
+            return;
+        }
+        try {
+            deployed = StackConfiguration.immutableCopyOf(BinaryStackCodec.decode(ByteBuffer.wrap(Files.readAllBytes(deployedStackPath))));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable deployed stack {}: {}", deployedStackPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts deploying the saved configuration in the background. Returns null
+     * when there is nothing to deploy; throws IllegalStateException while
+     * another deployment is running.
+     */
+    public DeploymentReport deploySavedConfiguration() {
+        return deploySavedConfiguration(false);
+    }
+
+    /**
+     * Same as {@link #deploySavedConfiguration()}; when {@code incremental} is
+     * set, only the applications that differ from the last successful
+     * deployment are touched, plus those placed on another host. Falls back
+     * to a full deployment when nothing was deployed yet or the community
+     * changed.
+     */
+    public DeploymentReport deploySavedConfiguration(boolean incremental) {
+        StackSnapshot snapshot = stackConfigService.getSnapshot();
+        if (!snapshot.isPresent()) {
+            return null;
+        }
+        StackConfiguration target = snapshot.getConfiguration();
+        // Reserved before placing, so a refused deployment leaves the stored placement alone
+        DeploymentReport report = reserve(target.getCommunity(), snapshot.getVersion());
+        DeploymentPlan plan;
+        PlacementResult placement;
+        try {
+            StackConfiguration previous = deployed;
+            placement = placementService.isEnabled() ? placementService.place(target) : null;
+            Map<String, String> deployedHosts = placementService.getDeployedPlacement();
+
+            if (incremental && previous != null && previous.getCommunity().equals(target.getCommunity())) {
+                StackDiff diff = stackDiffService.diff(previous, target);
+                plan = DeploymentPlan.incremental(previous, target, diff, movedApplications(placement, deployedHosts));
+            } else {
+                plan = DeploymentPlan.of(target);
+            }
+            if (placement != null) {
+                plan.placeOn(placement.getAssignments(), deployedHosts);
+            }
+        } catch (IOException e) {
+            running.set(null);
+            throw new RuntimeException("Failed to store placement", e);
+        } catch (RuntimeException e) {
+            running.set(null);
+            throw e;
+        }
+        return launch(report, plan, target, placement);
+    }
+
+    // Applications whose host differs from the one of the last deployment
+    private static Set<String> movedApplications(PlacementResult placement, Map<String, String> deployedHosts) {
+        Set<String> moved = new HashSet<>();
+        if (placement != null) {
+            placement.getAssignments().forEach((application, host) -> {
+                if (!host.equals(deployedHosts.get(application))) {
+                    moved.add(application);
+                }
+            });
+        }
+        return moved;
+    }
+
+    /**
+     * Changes between the last successful deployment and the saved
+     * configuration; everything is reported as added when nothing was deployed.
+     */
+    public StackDiff diffSavedConfiguration() {
+        return stackDiffService.diff(deployed, stackConfigService.loadStackConfiguration());
+    }
+
+    public StackConfiguration getDeployedConfiguration() {
+        return deployed;
+    }
+
+    DeploymentReport start(DeploymentPlan plan, long configurationVersion) {
+        return launch(reserve(plan.getCommunity(), configurationVersion), plan, null, null);
+    }
+
+    // Claims the single deployment slot; released by the deployment or by the caller when it cannot launch
+    private DeploymentReport reserve(String community, long configurationVersion) {
+        DeploymentReport report = new DeploymentReport();
+        report.setId(UUID.randomUUID().toString());
+        report.setCommunity(community);
+        report.setConfigurationVersion(configurationVersion);
+        report.setStartedAt(Instant.now());
+        if (!running.compareAndSet(null, report)) {
+            throw new IllegalStateException("Un déploiement est déjà en cours");
+        }
+        return report;
+    }
+
+    private DeploymentReport launch(DeploymentReport report, DeploymentPlan plan, StackConfiguration target,
+                                    PlacementResult placement) {
+        long configurationVersion = report.getConfigurationVersion();
+        remember(report);
+
+        Thread.ofVirtual().name("deployment-" + report.getId()).start(() -> {
+            try {
+                new DeploymentEngine(dockerClient, placementService::dockerClient, archiveCache, platformConcurrency, loadConcurrency)
+                        .execute(plan, report);
+                if (target != null && DeploymentReport.SUCCEEDED.equals(report.getStatus())) {
+                    recordDeployed(target, configurationVersion);
+                    placementService.recordDeployed(placement != null ? placement.getAssignments() : Map.of());
+                }
+                log.info("Deployment {} finished: {} in {} ms", report.getId(), report.getStatus(), report.getDurationMs());
+            } catch (RuntimeException e) {
+                report.setStatus(DeploymentReport.FAILED);
+                log.error("Deployment {} failed", report.getId(), e);
+            } finally {
+                running.set(null);
+            }
+        });
+        return report;
+    }
+
+    private void recordDeployed(StackConfiguration target, long version) {
+        deployed = target;
+        try {
+            byte[] bytes = BinaryStackCodec.encode(target, version);
+            AtomicFiles.write(deployedStackPath, out -> out.write(bytes));
+        } catch (IOException e) {
+            log.warn("Failed to persist deployed stack to {}: {}", deployedStackPath, e.getMessage());
+        }
+    }
+
+    public DeploymentReport getReport(String id) {
+        synchronized (reports) {
+            return reports.get(id);
+        }
+    }
+
+    public List<DeploymentReport> getRecentReports() {
+        synchronized (reports) {
+            List<DeploymentReport> recent = new ArrayList<>(reports.values());
+            Collections.reverse(recent);
+            return recent;
+        }
+    }
+
+    private void remember(DeploymentReport report) {
+        synchronized (reports) {
+            reports.put(report.getId(), report);
+            if (reports.size() > MAX_KEPT_REPORTS) {
+                reports.remove(reports.keySet().iterator().next());
+            }
+        }
+    }
+}
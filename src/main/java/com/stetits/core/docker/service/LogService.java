@@ -0,0 +1,177 @@
+package com.stetits.core.docker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.deploy.DeploymentPlan;
+import com.stetits.core.docker.logs.LogRingBuffer;
+import com.stetits.core.docker.logs.LogTail;
+import com.stetits.core.docker.model.ContainerStatus;
+import com.stetits.core.docker.model.LogLine;
+import com.stetits.core.docker.model.StackConfiguration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Log tails of the configured applications, keyed by platform|component|app.
+ * A tail starts with its first viewer and is stopped once nobody has watched
+ * it for {@code core.logs.idle-timeout-ms}; its buffer has a fixed size.
+ */
+@Service
+public class LogService {
+
+    private static final long REAPER_INTERVAL_MS = 30_000;
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ContainerMonitorService containerMonitorService;
+
+    @Value("${core.logs.buffer-size-kb:256}")
+    private int bufferSizeKb;
+
+    @Value("${core.logs.initial-lines:200}")
+    private int initialLines;
+
+    @Value("${core.logs.client-queue-size:1000}")
+    private int clientQueueSize;
+
+    @Value("${core.logs.slow-client-timeout-ms:30000}")
+    private long slowClientTimeoutMs;
+
+    @Value("${core.logs.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${core.logs.max-tails:200}")
+    private int maxTails;
+
+    @Value("${core.logs.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    private final Map<String, LogTail> tails = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        Thread.ofVirtual().name("log-tail-reaper").start(() -> {
+            while (running) {
+                try {
+                    Thread.sleep(REAPER_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                stopIdleTails(System.currentTimeMillis() - idleTimeoutMs);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        tails.values().forEach(LogTail::stop);
+        tails.clear();
+    }
+
+    /**
+     * Streams the output of an application: the last {@code lines} buffered
+     * lines, then new ones. Throws IllegalArgumentException for an application
+     * that is not configured, IllegalStateException when too many are followed.
+     */
+    public SseEmitter subscribe(String id, int lines) {
+        LogTail tail = tailFor(id);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        tail.subscribe(emitter, lines);
+        return emitter;
+    }
+
+    public List<LogLine> recentLines(String id, int lines) {
+        return tailFor(id).last(lines);
+    }
+
+    private LogTail tailFor(String id) {
+        String containerName = containerNameFor(id);
+        if (containerName == null) {
+            throw new IllegalArgumentException("Application inconnue : " + id);
+        }
+        LogTail existing = tails.get(id);
+        if (existing != null && existing.getContainerName().equals(containerName)) {
+            return existing;
+        }
+        if (existing == null && tails.size() >= maxTails) {
+            // Make room with the tails nobody is watching
+            stopIdleTails(Long.MAX_VALUE);
+            if (tails.size() >= maxTails) {
+                throw new IllegalStateException("Trop de journaux suivis simultanément");
+            }
+        }
+        return tails.compute(id, (key, current) -> {
+            if (current != null && current.getContainerName().equals(containerName)) {
+                return current;
+            }
+            if (current != null) {
+                // Community changed since the tail started
+                current.stop();
+            }
+            LogTail tail = new LogTail(id, containerName, dockerClient, new LogRingBuffer(bufferSizeKb * 1024), objectMapper,
+                    initialLines, clientQueueSize, slowClientTimeoutMs);
+            tail.start();
+            return tail;
+        });
+    }
+
+    private void stopIdleTails(long idleBefore) {
+        tails.values().removeIf(tail -> {
+            if (tail.isIdleSince(idleBefore)) {
+                tail.stop();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private String containerNameFor(String id) {
+        StackConfiguration config = stackConfigService.loadStackConfiguration();
+        String[] parts = id.split("\\|");
+        if (config == null || parts.length != 3) {
+            return null;
+        }
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            if (!platform.getName().equals(parts[0])) {
+                continue;
+            }
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                if (!component.getName().equals(parts[1])) {
+                    continue;
+                }
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    if (app.getName().equals(parts[2])) {
+                        // The monitored name first: containers deployed by earlier releases keep their old name
+                        for (ContainerStatus status : containerMonitorService.getStatuses()) {
+                            if (status.getId().equals(id) && status.getContainerName() != null) {
+                                return status.getContainerName();
+                            }
+                        }
+                        return DeploymentPlan.containerName(config.getCommunity(), parts[0], parts[1], parts[2]);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
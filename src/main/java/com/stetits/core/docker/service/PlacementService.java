@@ -0,0 +1,328 @@
+package com.stetits.core.docker.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.client.BandwidthLimiter;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.client.DockerHttpClient;
+import com.stetits.core.docker.client.EngineDockerClient;
+import com.stetits.core.docker.deploy.PlacementEngine;
+import com.stetits.core.docker.model.DockerHost;
+import com.stetits.core.docker.model.PlacementResult;
+import com.stetits.core.docker.model.ResourceRequirement;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.storage.AtomicFiles;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Pool of Docker hosts the default stack is spread over, and the host of each
+ * of its applications. The pool is kept in ~/.core/hosts.json; while it is
+ * empty everything runs on {@code core.docker.host}. The current placement
+ * (~/.core/placement.properties) is the starting point of the next one, so a
+ * change of pool or of configuration only moves what it has to.
+ */
+@Service
+public class PlacementService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlacementService.class);
+    private static final String SETTINGS_DIR = System.getProperty("user.home") + "/.core";
+    private static final String DEFAULT_REQUIREMENTS = "catalog/requirements.json";
+    private static final Pattern HOST_NAME = Pattern.compile("[a-z0-9][a-z0-9_.-]{0,63}");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @Autowired
+    private BandwidthLimiter loadBandwidthLimiter;
+
+    @Value("${core.placement.requirements-file:}")
+    private String requirementsFile;
+
+    @Value("${core.placement.default-cpu:0.5}")
+    private double defaultCpu;
+
+    @Value("${core.placement.default-memory-mb:512}")
+    private long defaultMemoryMb;
+
+    // Platforms whose applications all go to the same host, * for every platform
+    @Value("${core.placement.grouped-platforms:}")
+    private String groupedPlatforms;
+
+    private final Path hostsPath = Paths.get(SETTINGS_DIR, "hosts.json");
+    private final Path placementPath = Paths.get(SETTINGS_DIR, "placement.properties");
+    private final Path deployedPlacementPath = Paths.get(SETTINGS_DIR, "deployed-placement.properties");
+
+    private Map<String, ResourceRequirement> requirements;
+    private Set<String> grouped;
+    private volatile List<DockerHost> hosts = List.of();
+    // platform|component|app -> host name, for the saved default stack
+    private volatile Map<String, String> current = Map.of();
+    private final Map<String, DockerClient> clients = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        try (InputStream in = requirementsFile.isBlank() ? new ClassPathResource(DEFAULT_REQUIREMENTS).getInputStream() : Files.newInputStream(Path.of(requirementsFile))) {
+            List<ResourceRequirement> declared = objectMapper.readValue(in, new TypeReference<List<ResourceRequirement>>() {
+            });
+            requirements = new HashMap<>();
+            for (ResourceRequirement requirement : declared) {
+                checkRequirement(requirement);
+                requirements.put(requirement.getNode(), requirement);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load resource requirements", e);
+        }
+        grouped = Arrays.stream(groupedPlatforms.split(",")).map(String::strip).filter(name -> !name.isEmpty()).collect(Collectors.toSet());
+
+        if (Files.exists(hostsPath)) {
+            List<DockerHost> declared;
+            try {
+                declared = objectMapper.readValue(hostsPath.toFile(), new TypeReference<List<DockerHost>>() {
+                });
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read Docker hosts from " + hostsPath, e);
+            }
+            // Edited by hand, the file skips the checks of saveHost: a zero capacity would break placement
+            Set<String> names = new HashSet<>();
+            for (DockerHost host : declared) {
+                try {
+                    checkHost(host == null ? new DockerHost() : host);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeException("Invalid Docker host in " + hostsPath + ": " + e.getMessage(), e);
+                }
+                if (!names.add(host.getName())) {
+                    throw new RuntimeException("Duplicate Docker host " + host.getName() + " in " + hostsPath);
+                }
+            }
+            hosts = List.copyOf(declared);
+        }
+        current = readAssignments(placementPath);
+        log.info("Placement over {} Docker hosts, {} resource requirements", hosts.size(), requirements.size());
+    }
+
+    /** False while the pool is empty: everything then runs on core.docker.host. */
+    public boolean isEnabled() {
+        return !hosts.isEmpty();
+    }
+
+    public List<DockerHost> getHosts() {
+        return hosts;
+    }
+
+    /** Client of a host of the pool, or null when the host is not (or no longer) in it. */
+    public DockerClient dockerClient(String hostName) {
+        for (DockerHost host : hosts) {
+            if (host.getName().equals(hostName)) {
+                return clients.computeIfAbsent(host.getUrl(),
+                        url -> new EngineDockerClient(new DockerHttpClient(url), objectMapper, loadBandwidthLimiter));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a host to the pool, or changes it, and places the saved stack again.
+     * Throws IllegalArgumentException when the host is invalid.
+     */
+    public synchronized PlacementResult saveHost(DockerHost host) throws IOException {
+        checkHost(host);
+        List<DockerHost> updated = new ArrayList<>(hosts);
+        updated.removeIf(existing -> existing.getName().equals(host.getName()));
+        updated.add(host);
+        writeHosts(updated);
+        return placeSavedStack();
+    }
+
+    /** Removes a host from the pool and moves its applications; null when the host is unknown. */
+    public synchronized PlacementResult removeHost(String name) throws IOException {
+        List<DockerHost> updated = new ArrayList<>(hosts);
+        if (!updated.removeIf(host -> host.getName().equals(name))) {
+            return null;
+        }
+        writeHosts(updated);
+        return placeSavedStack();
+    }
+
+    /**
+     * Where the applications of a configuration would run, starting from the
+     * current placement; nothing is stored. Null while the pool is empty.
+     */
+    public PlacementResult preview(StackConfiguration config) {
+        if (!isEnabled() || config == null) {
+            return null;
+        }
+        return PlacementEngine.place(hosts, units(config), current);
+    }
+
+    /** Places a configuration of the default stack and keeps the result as the current placement. */
+    public synchronized PlacementResult place(StackConfiguration config) throws IOException {
+        PlacementResult result = preview(config);
+        Map<String, String> assignments = result != null ? Map.copyOf(result.getAssignments()) : Map.of();
+        writeAssignments(placementPath, assignments);
+        current = assignments;
+        if (result != null) {
+            log.info("Placed {} applications on {} hosts ({} moved, {} unplaced) in {} us", assignments.size(),
+                    hosts.size(), result.getMoved(), result.getUnplaced().size(), result.getDurationMicros());
+        }
+        return result;
+    }
+
+    /** Placement of the saved default stack; null while the pool is empty. */
+    public PlacementResult getCurrent() {
+        StackConfiguration saved = stackConfigService.getSnapshot().getConfiguration();
+        return preview(saved != null ? saved : new StackConfiguration());
+    }
+
+    /** Hosts of the last successful deployment, by application. */
+    public Map<String, String> getDeployedPlacement() {
+        return readAssignments(deployedPlacementPath);
+    }
+
+    public void recordDeployed(Map<String, String> assignments) {
+        try {
+            writeAssignments(deployedPlacementPath, assignments);
+        } catch (IOException e) {
+            log.warn("Failed to persist deployed placement to {}: {}", deployedPlacementPath, e.getMessage());
+        }
+    }
+
+    // Empty result, rather than null, once the pool is empty
+    private PlacementResult placeSavedStack() throws IOException {
+        StackConfiguration saved = stackConfigService.getSnapshot().getConfiguration();
+        PlacementResult result = saved != null ? place(saved) : preview(new StackConfiguration());
+        return result != null ? result : new PlacementResult();
+    }
+
+    private List<PlacementEngine.Unit> units(StackConfiguration config) {
+        List<PlacementEngine.Unit> units = new ArrayList<>();
+        for (StackConfiguration.Platform platform : config.getPlatforms()) {
+            boolean together = grouped.contains("*") || grouped.contains(platform.getName());
+            List<String> applications = new ArrayList<>();
+            double cpu = 0;
+            long memoryMb = 0;
+            for (StackConfiguration.Component component : platform.getComponents()) {
+                String componentId = platform.getName() + "|" + component.getName();
+                for (StackConfiguration.Application app : component.getApplications()) {
+                    String id = componentId + "|" + app.getName();
+                    double appCpu = cpuOf(id, componentId, platform.getName());
+                    long appMemory = memoryOf(id, componentId, platform.getName());
+                    if (together) {
+                        applications.add(id);
+                        cpu += appCpu;
+                        memoryMb += appMemory;
+                    } else {
+                        units.add(new PlacementEngine.Unit(List.of(id), appCpu, appMemory));
+                    }
+                }
+            }
+            if (!applications.isEmpty()) {
+                units.add(new PlacementEngine.Unit(applications, cpu, memoryMb));
+            }
+        }
+        return units;
+    }
+
+    // Most specific declaration first: application, component, platform
+    private double cpuOf(String... nodes) {
+        for (String node : nodes) {
+            ResourceRequirement requirement = requirements.get(node);
+            if (requirement != null && requirement.getCpu() != null) {
+                return requirement.getCpu();
+            }
+        }
+        return defaultCpu;
+    }
+
+    private long memoryOf(String... nodes) {
+        for (String node : nodes) {
+            ResourceRequirement requirement = requirements.get(node);
+            if (requirement != null && requirement.getMemoryMb() != null) {
+                return requirement.getMemoryMb();
+            }
+        }
+        return defaultMemoryMb;
+    }
+
+    private static void checkRequirement(ResourceRequirement requirement) {
+        if (requirement.getNode() == null || requirement.getNode().isBlank()) {
+            throw new IllegalArgumentException("Resource requirement without node");
+        }
+        if ((requirement.getCpu() != null && requirement.getCpu() < 0)
+                || (requirement.getMemoryMb() != null && requirement.getMemoryMb() < 0)) {
+            throw new IllegalArgumentException("Negative resource requirement for " + requirement.getNode());
+        }
+    }
+
+    private static void checkHost(DockerHost host) {
+        if (host.getName() == null || !HOST_NAME.matcher(host.getName()).matches()) {
+            throw new IllegalArgumentException("Nom d'hôte invalide : " + host.getName());
+        }
+        try {
+            new DockerHttpClient(String.valueOf(host.getUrl()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Adresse Docker invalide : " + host.getUrl(), e);
+        }
+        if (host.getCpu() <= 0 || host.getMemoryMb() <= 0) {
+            throw new IllegalArgumentException("Le CPU et la mémoire de l'hôte doivent être positifs");
+        }
+    }
+
+    private void writeHosts(List<DockerHost> updated) throws IOException {
+        byte[] bytes = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(updated);
+        AtomicFiles.write(hostsPath, out -> out.write(bytes));
+        hosts = List.copyOf(updated);
+        // Clients of addresses no host uses any more: a host changed its URL or left the pool
+        Set<String> urls = updated.stream().map(DockerHost::getUrl).collect(Collectors.toSet());
+        clients.keySet().retainAll(urls);
+    }
+
+    private static Map<String, String> readAssignments(Path path) {
+        if (!Files.exists(path)) {
+            return Map.of();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable placement {}: {}", path, e.getMessage());
+            return Map.of();
+        }
+        Map<String, String> assignments = new HashMap<>();
+        properties.forEach((application, host) -> assignments.put((String) application, (String) host));
+        return Collections.unmodifiableMap(assignments);
+    }
+
+    private static void writeAssignments(Path path, Map<String, String> assignments) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(assignments);
+        AtomicFiles.write(path, out -> properties.store(out, "platform|component|app = Docker host"));
+    }
+}
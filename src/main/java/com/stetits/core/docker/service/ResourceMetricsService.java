@@ -0,0 +1,166 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.client.ContainerStats;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.model.ContainerStatus;
+import com.stetits.core.docker.model.MetricRange;
+import com.stetits.core.docker.timeseries.ResourceMetric;
+import com.stetits.core.docker.timeseries.TimeSeriesStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Samples CPU, memory and network of the running application containers at
+ * a fixed interval into the {@link TimeSeriesStore}. The containers come from
+ * the monitor, so sampling adds only one stats call per running container.
+ */
+// Must sample from startup: not lazy even in the fast-start profile
+@Lazy(false)
+@Service
+public class ResourceMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceMetricsService.class);
+    private static final long STALE_SERIES_SECONDS = 30L * 86400;
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private ContainerMonitorService containerMonitorService;
+
+    @Autowired
+    private TimeSeriesStore store;
+
+    @Value("${core.timeseries.enabled:true}")
+    private boolean enabled;
+
+    @Value("${core.timeseries.sample-interval-ms:10000}")
+    private long sampleIntervalMs;
+
+    @Value("${core.timeseries.stats-concurrency:16}")
+    private int statsConcurrency;
+
+    // Application id -> previous counters, to turn cumulative counters into rates
+    private final Map<String, Sample> previous = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private volatile Thread sampler;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        sampler = Thread.ofVirtual().name("resource-metrics-sampler").start(this::sampleLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        Thread thread = sampler;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public MetricRange query(String application, ResourceMetric metric, long from, long to, int stepSeconds) {
+        return store.query(application, metric, from, to, stepSeconds);
+    }
+
+    public Map<String, Object> getUsage() {
+        return store.getUsage();
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            // Aligned on the interval so that every series shares the same timestamps
+            long now = System.currentTimeMillis();
+            long next = (now / sampleIntervalMs + 1) * sampleIntervalMs;
+            try {
+                Thread.sleep(next - now);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                sample(next / 1000);
+                store.removeStaleSince(next / 1000 - STALE_SERIES_SECONDS);
+            } catch (RuntimeException e) {
+                log.warn("Resource sampling failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sample(long time) {
+        List<ContainerStatus> containers = containerMonitorService.getStatuses().stream()
+                .filter(status -> "running".equals(status.getState()) && status.getContainerName() != null)
+                .toList();
+        Set<String> sampled = new HashSet<>();
+        Semaphore permits = new Semaphore(statsConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ContainerStatus container : containers) {
+                sampled.add(container.getId());
+                executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        record(container, time);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                });
+            }
+        }
+        previous.keySet().retainAll(sampled);
+    }
+
+    private void record(ContainerStatus container, long time) {
+        ContainerStats stats;
+        try {
+            stats = dockerClient.containerStats(container.getContainerName());
+        } catch (IOException e) {
+            log.debug("No stats for {}: {}", container.getContainerName(), e.getMessage());
+            previous.remove(container.getId());
+            return;
+        }
+        String id = container.getId();
+        store.record(id, ResourceMetric.MEMORY, time, stats.getMemoryUsage());
+        Sample last = previous.put(id, new Sample(container.getContainerName(), stats));
+        if (last == null || !last.containerName().equals(container.getContainerName())) {
+            return;
+        }
+        ContainerStats before = last.stats();
+        long cpuDelta = stats.getCpuTotalUsage() - before.getCpuTotalUsage();
+        long systemDelta = stats.getSystemCpuUsage() - before.getSystemCpuUsage();
+        if (cpuDelta >= 0 && systemDelta > 0) {
+            // Percent of one CPU, as docker stats shows it
+            store.record(id, ResourceMetric.CPU, time, 100.0 * cpuDelta / systemDelta * Math.max(1, stats.getOnlineCpus()));
+        }
+        double seconds = (stats.getReadAt() - before.getReadAt()) / 1000.0;
+        long rxDelta = stats.getNetworkRxBytes() - before.getNetworkRxBytes();
+        long txDelta = stats.getNetworkTxBytes() - before.getNetworkTxBytes();
+        // Counters go back to zero when the container restarts
+        if (seconds > 0 && rxDelta >= 0 && txDelta >= 0) {
+            store.record(id, ResourceMetric.NET_RX, time, rxDelta / seconds);
+            store.record(id, ResourceMetric.NET_TX, time, txDelta / seconds);
+        }
+    }
+
+    private record Sample(String containerName, ContainerStats stats) {
+    }
+}
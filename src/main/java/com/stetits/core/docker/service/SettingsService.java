@@ -1,5 +1,14 @@
 package com.stetits.core.docker.service;
 
+import com.stetits.core.docker.model.Settings;
+import com.stetits.core.docker.storage.AtomicFiles;
+import com.stetits.core.docker.storage.ConfigFileWatcher;
+import com.stetits.core.docker.storage.FileMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
@@ -7,6 +16,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SettingsService {
@@ -16,10 +26,38 @@ public class SettingsService {
     private static final String GITHUB_USERNAME_KEY = "github.stet.username";
     private static final String GITHUB_PASSWORD_KEY = "github.stet.password";
 
+    @Autowired
+    private ConfigFileWatcher configFileWatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer readTimer;
+    private Timer writeTimer;
+    // Changes of the file that needed no read (our own writes) vs file reads
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    // Immutable snapshot served to readers; replaced on save or when the file changes on disk
+    private volatile Settings snapshot = Settings.EMPTY;
+    // Incremented with each new snapshot, for the page ETags
+    private final AtomicLong version = new AtomicLong();
+
     public SettingsService() {
         ensureSettingsDirectoryExists();
     }
 
+    @PostConstruct
+    void init() {
+        readTimer = FileMetrics.timer(meterRegistry, "settings", "read");
+        writeTimer = FileMetrics.timer(meterRegistry, "settings", "write");
+        cacheHits = FileMetrics.cacheCounter(meterRegistry, "settings", "hit");
+        cacheMisses = FileMetrics.cacheCounter(meterRegistry, "settings", "miss");
+        Path settingsPath = Paths.get(SETTINGS_FILE);
+        configFileWatcher.watch(settingsPath, this::reload, cacheHits::increment);
+        reload();
+    }
+
     private void ensureSettingsDirectoryExists() {
         try {
             Path dirPath = Paths.get(SETTINGS_DIR);
@@ -32,23 +70,40 @@ public class SettingsService {
     }
 
     public boolean isSettingsConfigured() {
-        File file = new File(SETTINGS_FILE);
-        if (!file.exists() || file.length() == 0) {
-            return false;
-        }
+        return current().isConfigured();
+    }
 
-        Properties properties = loadSettings();
-        String username = properties.getProperty(GITHUB_USERNAME_KEY);
-        String password = properties.getProperty(GITHUB_PASSWORD_KEY);
+    public long getVersion() {
+        return version.get();
+    }
 
-        return username != null && !username.trim().isEmpty() 
-            && password != null && !password.trim().isEmpty();
+    public Settings getSettings() {
+        return current();
     }
 
     public Properties loadSettings() {
+        Settings settings = current();
+        Properties properties = new Properties();
+        properties.setProperty(GITHUB_USERNAME_KEY, settings.getGithubUsername());
+        properties.setProperty(GITHUB_PASSWORD_KEY, settings.getGithubPassword());
+        return properties;
+    }
+
+    // Same monitor as saveSettings, so a reload of the previous file cannot replace a snapshot it just published
+    synchronized void reload() {
+        cacheMisses.increment();
+        snapshot = readTimer.record(this::readSettingsFile);
+        version.incrementAndGet();
+    }
+
+    private Settings current() {
+        return snapshot;
+    }
+
+    private Settings readSettingsFile() {
         Properties properties = new Properties();
         File file = new File(SETTINGS_FILE);
-        
+
         if (file.exists()) {
             try (FileInputStream fis = new FileInputStream(file)) {
                 properties.load(fis);
@@ -56,27 +111,34 @@ public class SettingsService {
                 throw new RuntimeException("Failed to load settings", e);
             }
         }
-        
-        return properties;
+
+        return new Settings(properties.getProperty(GITHUB_USERNAME_KEY), properties.getProperty(GITHUB_PASSWORD_KEY));
     }
 
-    public void saveSettings(String githubUsername, String githubPassword) {
+    public synchronized void saveSettings(String githubUsername, String githubPassword) {
         Properties properties = new Properties();
         properties.setProperty(GITHUB_USERNAME_KEY, githubUsername);
         properties.setProperty(GITHUB_PASSWORD_KEY, githubPassword);
 
-        try (FileOutputStream fos = new FileOutputStream(SETTINGS_FILE)) {
-            properties.store(fos, "Core Monitor Settings");
+        Path settingsPath = Paths.get(SETTINGS_FILE);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            AtomicFiles.write(settingsPath, out -> properties.store(out, "Core Monitor Settings"),
+                    stamp -> configFileWatcher.acknowledge(settingsPath, stamp));
         } catch (IOException e) {
             throw new RuntimeException("Failed to save settings", e);
+        } finally {
+            sample.stop(writeTimer);
         }
+        snapshot = new Settings(githubUsername, githubPassword);
+        version.incrementAndGet();
     }
 
     public String getGithubUsername() {
-        return loadSettings().getProperty(GITHUB_USERNAME_KEY, "");
+        return current().getGithubUsername();
     }
 
     public String getGithubPassword() {
-        return loadSettings().getProperty(GITHUB_PASSWORD_KEY, "");
+        return current().getGithubPassword();
     }
 }
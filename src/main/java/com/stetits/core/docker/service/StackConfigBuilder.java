@@ -0,0 +1,109 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.model.StackConfiguration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a {@link StackConfiguration} in a single pass from selections in the
+ * form {@code platform|component|app|version:archiveFile}. Parents are found
+ * through hash indexes, so the cost stays linear in the number of selections.
+ */
+public class StackConfigBuilder {
+
+    private final StackConfiguration config = new StackConfiguration();
+    private final Map<String, PlatformEntry> platforms = new HashMap<>();
+    private int applicationCount;
+
+    public StackConfigBuilder(String community) {
+        config.setCommunity(community);
+    }
+
+    /**
+     * Adds one selection and returns null, or returns the reason it was
+     * rejected without modifying the configuration.
+     */
+    public String addSelection(String selection) {
+        if (selection == null || selection.isEmpty()) {
+            return "Sélection vide";
+        }
+        int first = selection.indexOf('|');
+        int second = first < 0 ? -1 : selection.indexOf('|', first + 1);
+        int third = second < 0 ? -1 : selection.indexOf('|', second + 1);
+        if (third < 0) {
+            return "Format attendu : plateforme|composant|application|version:archive";
+        }
+        if (selection.indexOf('|', third + 1) >= 0) {
+            return "Trop de séparateurs '|'";
+        }
+
+        String platformName = selection.substring(0, first);
+        String componentName = selection.substring(first + 1, second);
+        String appName = selection.substring(second + 1, third);
+        if (platformName.isEmpty() || componentName.isEmpty() || appName.isEmpty()) {
+            return "Plateforme, composant et application sont obligatoires";
+        }
+
+        // Details: version:archiveFile, the archive path may itself contain ':'
+        int colon = selection.indexOf(':', third + 1);
+        String version = colon < 0 ? selection.substring(third + 1) : selection.substring(third + 1, colon);
+        String archiveFile = colon < 0 ? "" : selection.substring(colon + 1);
+        if (version.isEmpty()) {
+            return "Version manquante";
+        }
+
+        return addApplication(platformName, componentName, appName, version, archiveFile);
+    }
+
+    public String addApplication(String platformName, String componentName, String appName, String version, String archiveFile) {
+        PlatformEntry platform = platforms.get(platformName);
+        if (platform == null) {
+            platform = new PlatformEntry(new StackConfiguration.Platform(platformName));
+            platforms.put(platformName, platform);
+            config.getPlatforms().add(platform.platform);
+        }
+
+        ComponentEntry component = platform.components.get(componentName);
+        if (component == null) {
+            component = new ComponentEntry(new StackConfiguration.Component(componentName));
+            platform.components.put(componentName, component);
+            platform.platform.getComponents().add(component.component);
+        }
+
+        if (!component.applicationNames.add(appName)) {
+            return "Application déjà sélectionnée : " + platformName + "/" + componentName + "/" + appName;
+        }
+        component.component.getApplications().add(new StackConfiguration.Application(appName, version, archiveFile));
+        applicationCount++;
+        return null;
+    }
+
+    public int getApplicationCount() {
+        return applicationCount;
+    }
+
+    public StackConfiguration build() {
+        return config;
+    }
+
+    private static final class PlatformEntry {
+        private final StackConfiguration.Platform platform;
+        private final Map<String, ComponentEntry> components = new HashMap<>();
+
+        private PlatformEntry(StackConfiguration.Platform platform) {
+            this.platform = platform;
+        }
+    }
+
+    private static final class ComponentEntry {
+        private final StackConfiguration.Component component;
+        private final Set<String> applicationNames = new HashSet<>();
+
+        private ComponentEntry(StackConfiguration.Component component) {
+            this.component = component;
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.stetits.core.docker.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stetits.core.docker.model.ImportReport;
+import com.stetits.core.docker.model.RuleViolation;
 import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
@@ -8,14 +16,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class StackConfigService {
 
     private static final String SETTINGS_DIR = System.getProperty("user.home") + "/.core";
-    private static final String STACK_CONFIG_FILE = SETTINGS_DIR + "/stack.conf";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Autowired
+    private StackConfigRepository stackConfigRepository;
+
+    @Autowired
+    private StackValidationService stackValidationService;
 
     public StackConfigService() {
         ensureSettingsDirectoryExists();
@@ -33,96 +50,192 @@ public class StackConfigService {
     }
 
     public boolean hasStackConfiguration() {
-        File file = new File(STACK_CONFIG_FILE);
-        return file.exists() && file.length() > 0;
+        return stackConfigRepository.getSnapshot().isPresent();
     }
 
-    public void saveStackConfiguration(StackConfiguration config) {
-        Properties properties = new Properties();
-        
-        // Save community
-        properties.setProperty("stack.community", config.getCommunity());
-        
-        // Save platforms, components and applications
-        int platformIndex = 0;
-        for (StackConfiguration.Platform platform : config.getPlatforms()) {
-            String platformKey = "stack.platform." + platformIndex;
-            properties.setProperty(platformKey + ".name", platform.getName());
-            
-            int componentIndex = 0;
-            for (StackConfiguration.Component component : platform.getComponents()) {
-                String componentKey = platformKey + ".component." + componentIndex;
-                properties.setProperty(componentKey + ".name", component.getName());
-                
-                int appIndex = 0;
-                for (StackConfiguration.Application app : component.getApplications()) {
-                    String appKey = componentKey + ".app." + appIndex;
-                    properties.setProperty(appKey + ".name", app.getName());
-                    properties.setProperty(appKey + ".version", app.getVersion());
-                    properties.setProperty(appKey + ".archiveFile", app.getArchiveFile());
-                    appIndex++;
-                }
-                properties.setProperty(componentKey + ".appCount", String.valueOf(appIndex));
-                componentIndex++;
-            }
-            properties.setProperty(platformKey + ".componentCount", String.valueOf(componentIndex));
-            platformIndex++;
+    // The default stack: the one the dashboard, the monitor and the deployments follow
+    public StackSnapshot getSnapshot() {
+        return stackConfigRepository.getSnapshot();
+    }
+
+    public StackSnapshot getSnapshot(String stack) {
+        return stackConfigRepository.getSnapshot(stack);
+    }
+
+    public List<String> getStackNames() {
+        return stackConfigRepository.getStackNames();
+    }
+
+    public StackSnapshot saveStackConfiguration(StackConfiguration config) {
+        return stackConfigRepository.save(config);
+    }
+
+    // Throws a StackVersionConflictException when the stack is no longer at expectedVersion
+    public StackSnapshot saveStackConfiguration(String stack, StackConfiguration config, long expectedVersion) {
+        checkStackName(stack);
+        return stackConfigRepository.save(stack, config, expectedVersion);
+    }
+
+    // Returns null when the stack does not exist
+    public StackSnapshot deleteStack(String stack, long expectedVersion) {
+        checkStackName(stack);
+        if (StackConfigRepository.DEFAULT_STACK.equals(stack)) {
+            throw new IllegalArgumentException("La stack par défaut ne peut pas être supprimée");
         }
-        properties.setProperty("stack.platformCount", String.valueOf(platformIndex));
+        return stackConfigRepository.delete(stack, expectedVersion);
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(STACK_CONFIG_FILE)) {
-            properties.store(fos, "Stack Configuration");
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to save stack configuration", e);
+    public void checkStackName(String stack) {
+        if (!StackConfigRepository.isValidName(stack)) {
+            throw new IllegalArgumentException("Nom de stack invalide : " + stack
+                    + " (lettres minuscules, chiffres, '-' et '_', 64 caractères au plus)");
         }
     }
 
+    // Returns the shared immutable snapshot: callers must not modify it
     public StackConfiguration loadStackConfiguration() {
-        if (!hasStackConfiguration()) {
-            return null;
+        return stackConfigRepository.getSnapshot().getConfiguration();
+    }
+
+    public StackConfiguration parseSelections(String community, List<String> selections, List<ImportReport.LineError> errors) {
+        StackConfigBuilder builder = new StackConfigBuilder(community);
+        int line = 0;
+        for (String selection : selections) {
+            line++;
+            String error = builder.addSelection(selection);
+            if (error != null) {
+                errors.add(new ImportReport.LineError(line, selection, error));
+            }
         }
+        return builder.build();
+    }
 
-        Properties properties = new Properties();
-        try (FileInputStream fis = new FileInputStream(STACK_CONFIG_FILE)) {
-            properties.load(fis);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load stack configuration", e);
-        }
-
-        StackConfiguration config = new StackConfiguration();
-        config.setCommunity(properties.getProperty("stack.community", ""));
-
-        int platformCount = Integer.parseInt(properties.getProperty("stack.platformCount", "0"));
-        for (int p = 0; p < platformCount; p++) {
-            String platformKey = "stack.platform." + p;
-            String platformName = properties.getProperty(platformKey + ".name");
-            StackConfiguration.Platform platform = new StackConfiguration.Platform(platformName);
-
-            int componentCount = Integer.parseInt(properties.getProperty(platformKey + ".componentCount", "0"));
-            for (int c = 0; c < componentCount; c++) {
-                String componentKey = platformKey + ".component." + c;
-                String componentName = properties.getProperty(componentKey + ".name");
-                StackConfiguration.Component component = new StackConfiguration.Component(componentName);
-
-                int appCount = Integer.parseInt(properties.getProperty(componentKey + ".appCount", "0"));
-                for (int a = 0; a < appCount; a++) {
-                    String appKey = componentKey + ".app." + a;
-                    String appName = properties.getProperty(appKey + ".name");
-                    String version = properties.getProperty(appKey + ".version");
-                    String archiveFile = properties.getProperty(appKey + ".archiveFile");
-                    
-                    StackConfiguration.Application app = new StackConfiguration.Application(appName, version, archiveFile);
-                    component.getApplications().add(app);
+    // Line-delimited import: one selection per line, blank lines and '#' comments are ignored
+    public ImportReport importSelections(String stack, String community, BufferedReader reader, boolean dryRun,
+                                         long expectedVersion) throws IOException {
+        checkStackName(stack);
+        StackConfigBuilder builder = new StackConfigBuilder(community);
+        ImportReport report = newReport(community);
+        Map<String, Integer> lines = new HashMap<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.charAt(0) == '#') {
+                continue;
+            }
+            addToImport(builder, report, lines, lineNumber, line.strip());
+        }
+        return completeImport(stack, builder, report, lines, dryRun, expectedVersion);
+    }
+
+    // JSON import: an array of selection strings, read token by token
+    public ImportReport importJsonSelections(String stack, String community, InputStream in, boolean dryRun,
+                                             long expectedVersion) throws IOException {
+        checkStackName(stack);
+        StackConfigBuilder builder = new StackConfigBuilder(community);
+        ImportReport report = newReport(community);
+        Map<String, Integer> lines = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Un tableau JSON de sélections est attendu");
+            }
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Tableau JSON incomplet");
+                }
+                index++;
+                if (token != JsonToken.VALUE_STRING) {
+                    reject(report, index, skipElement(parser, token), "Une chaîne de caractères est attendue");
+                    continue;
+                }
+                addToImport(builder, report, lines, index, parser.getText());
+            }
+        }
+        return completeImport(stack, builder, report, lines, dryRun, expectedVersion);
+    }
+
+    // Skips an element that is not a string and returns how to show it: its text, or the first field of an object
+    private static String skipElement(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            String shown = "{}";
+            JsonToken next;
+            while ((next = parser.nextToken()) != JsonToken.END_OBJECT && next != null) {
+                if (next == JsonToken.FIELD_NAME && "{}".equals(shown)) {
+                    shown = "{\"" + parser.currentName() + "\": ...}";
                 }
-                platform.getComponents().add(component);
+                parser.skipChildren();
             }
-            config.getPlatforms().add(platform);
+            return shown;
         }
+        if (token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return "[...]";
+        }
+        return parser.getText();
+    }
 
-        return config;
+    private ImportReport newReport(String community) {
+        ImportReport report = new ImportReport();
+        report.setCommunity(community);
+        if (community == null || community.isBlank()) {
+            reject(report, 0, community, "Communauté manquante");
+        }
+        return report;
+    }
+
+    // Keeps the line of each imported application (platform|component|app) to report the rules it breaks
+    private void addToImport(StackConfigBuilder builder, ImportReport report, Map<String, Integer> lines, int line,
+                             String selection) {
+        report.setReceived(report.getReceived() + 1);
+        String error = builder.addSelection(selection);
+        if (error != null) {
+            reject(report, line, selection, error);
+        } else {
+            lines.put(selection.substring(0, selection.lastIndexOf('|')), line);
+        }
+    }
+
+    private void reject(ImportReport report, int line, String content, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReport.LineError(line, content, message));
+        }
+    }
+
+    // The import is all-or-nothing: nothing is saved while any line is rejected or any rule is broken
+    private ImportReport completeImport(String stack, StackConfigBuilder builder, ImportReport report,
+                                        Map<String, Integer> lines, boolean dryRun, long expectedVersion) {
+        report.setImported(builder.getApplicationCount());
+        if (report.getRejected() == 0 && builder.getApplicationCount() == 0) {
+            reject(report, 0, null, "Aucune application importée");
+        }
+        if (report.getRejected() == 0) {
+            // Same rules as the configuration form, each error reported on the first line it involves
+            for (RuleViolation violation : stackValidationService.validate(builder.build()).getViolations()) {
+                if (RuleViolation.ERROR.equals(violation.getSeverity())) {
+                    int line = violation.getNodes().stream().map(lines::get).filter(Objects::nonNull)
+                            .min(Integer::compare).orElse(0);
+                    reject(report, line, String.join(", ", violation.getNodes()),
+                            "Règle " + violation.getRuleId() + " : " + violation.getMessage());
+                }
+            }
+        }
+        if (!dryRun && report.getRejected() == 0) {
+            StackSnapshot snapshot = saveStackConfiguration(stack, builder.build(), expectedVersion);
+            report.setSaved(true);
+            report.setVersion(snapshot.getVersion());
+        }
+        return report;
     }
 
     public List<String> getSelectionsFromConfig(StackConfiguration config) {
+        return selectionsOf(config);
+    }
+
+    static List<String> selectionsOf(StackConfiguration config) {
         List<String> selections = new ArrayList<>();
         
         if (config == null) {
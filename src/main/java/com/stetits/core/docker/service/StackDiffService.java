@@ -0,0 +1,129 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.model.CatalogNode;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Structural diff between two configurations, keyed on platform/component/app
+ * names rather than list positions. Each side is indexed once, so the cost is
+ * linear in the size of both trees.
+ */
+@Service
+public class StackDiffService {
+
+    private static final String SEPARATOR = "|";
+
+    public StackDiff diff(StackConfiguration before, StackConfiguration after) {
+        Index previous = new Index(before);
+        Index next = new Index(after);
+        StackDiff diff = new StackDiff();
+
+        // Added and modified nodes, in the order of the new configuration
+        if (after != null) {
+            for (StackConfiguration.Platform platform : after.getPlatforms()) {
+                String platformId = platform.getName();
+                if (!previous.platforms.contains(platformId)) {
+                    diff.getChanges().add(new StackDiff.NodeChange(platformId, CatalogNode.PLATFORM, StackDiff.ChangeType.ADDED));
+                }
+                for (StackConfiguration.Component component : platform.getComponents()) {
+                    String componentId = platformId + SEPARATOR + component.getName();
+                    if (!previous.components.contains(componentId)) {
+                        diff.getChanges().add(new StackDiff.NodeChange(componentId, CatalogNode.COMPONENT, StackDiff.ChangeType.ADDED));
+                    }
+                    for (StackConfiguration.Application app : component.getApplications()) {
+                        String appId = componentId + SEPARATOR + app.getName();
+                        compareApplication(diff, appId, previous.applications.get(appId), app);
+                    }
+                }
+            }
+        }
+
+        // Removed nodes, in the order of the previous configuration
+        if (before != null) {
+            for (StackConfiguration.Platform platform : before.getPlatforms()) {
+                String platformId = platform.getName();
+                if (!next.platforms.contains(platformId)) {
+                    diff.getChanges().add(new StackDiff.NodeChange(platformId, CatalogNode.PLATFORM, StackDiff.ChangeType.REMOVED));
+                }
+                for (StackConfiguration.Component component : platform.getComponents()) {
+                    String componentId = platformId + SEPARATOR + component.getName();
+                    if (!next.components.contains(componentId)) {
+                        diff.getChanges().add(new StackDiff.NodeChange(componentId, CatalogNode.COMPONENT, StackDiff.ChangeType.REMOVED));
+                    }
+                    for (StackConfiguration.Application app : component.getApplications()) {
+                        String appId = componentId + SEPARATOR + app.getName();
+                        if (!next.applications.containsKey(appId)) {
+                            StackDiff.NodeChange change = new StackDiff.NodeChange(appId, CatalogNode.APPLICATION, StackDiff.ChangeType.REMOVED);
+                            change.setOldVersion(app.getVersion());
+                            change.setOldArchiveFile(app.getArchiveFile());
+                            diff.getChanges().add(change);
+                        }
+                    }
+                }
+            }
+        }
+        return diff;
+    }
+
+    private void compareApplication(StackDiff diff, String appId, StackConfiguration.Application before, StackConfiguration.Application after) {
+        if (before == null) {
+            StackDiff.NodeChange change = new StackDiff.NodeChange(appId, CatalogNode.APPLICATION, StackDiff.ChangeType.ADDED);
+            change.setNewVersion(after.getVersion());
+            change.setNewArchiveFile(after.getArchiveFile());
+            diff.getChanges().add(change);
+            return;
+        }
+
+        boolean versionChanged = !Objects.equals(before.getVersion(), after.getVersion());
+        boolean archiveChanged = !Objects.equals(before.getArchiveFile(), after.getArchiveFile());
+        if (!versionChanged && !archiveChanged) {
+            diff.setUnchangedApplications(diff.getUnchangedApplications() + 1);
+            return;
+        }
+        StackDiff.NodeChange change = new StackDiff.NodeChange();
+        change.setId(appId);
+        change.setLevel(CatalogNode.APPLICATION);
+        if (versionChanged) {
+            change.getTypes().add(StackDiff.ChangeType.VERSION_CHANGED);
+        }
+        if (archiveChanged) {
+            change.getTypes().add(StackDiff.ChangeType.ARCHIVE_CHANGED);
+        }
+        change.setOldVersion(before.getVersion());
+        change.setNewVersion(after.getVersion());
+        change.setOldArchiveFile(before.getArchiveFile());
+        change.setNewArchiveFile(after.getArchiveFile());
+        diff.getChanges().add(change);
+    }
+
+    private static final class Index {
+        private final Set<String> platforms = new HashSet<>();
+        private final Set<String> components = new HashSet<>();
+        private final Map<String, StackConfiguration.Application> applications = new HashMap<>();
+
+        private Index(StackConfiguration config) {
+            if (config == null) {
+                return;
+            }
+            for (StackConfiguration.Platform platform : config.getPlatforms()) {
+                String platformId = platform.getName();
+                platforms.add(platformId);
+                for (StackConfiguration.Component component : platform.getComponents()) {
+                    String componentId = platformId + SEPARATOR + component.getName();
+                    components.add(componentId);
+                    for (StackConfiguration.Application app : component.getApplications()) {
+                        applications.put(componentId + SEPARATOR + app.getName(), app);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.model.HistoryEntry;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.StackDiff;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackJournal;
+import com.stetits.core.docker.repository.StackSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Saved versions of each stack, read back from its journal. A rollback saves
+ * the old configuration again as a new version, so the history itself is
+ * never rewritten.
+ */
+@Service
+public class StackHistoryService {
+
+    @Autowired
+    private StackConfigRepository stackConfigRepository;
+
+    @Autowired
+    private StackConfigService stackConfigService;
+
+    @Autowired
+    private StackDiffService stackDiffService;
+
+    // Returns null when the stack has no history
+    public List<HistoryEntry> getHistory(String stack) {
+        StackJournal journal = stackConfigRepository.getJournal(stack);
+        if (journal == null) {
+            return null;
+        }
+        long currentVersion = stackConfigService.getSnapshot(stack).getVersion();
+        List<HistoryEntry> entries = journal.getEntries();
+        entries.forEach(entry -> entry.setCurrent(entry.getVersion() == currentVersion));
+        return entries;
+    }
+
+    // Returns null when the version is not in the journal of the stack
+    public StackConfiguration getVersion(String stack, long version) {
+        StackJournal journal = stackConfigRepository.getJournal(stack);
+        return journal != null ? journal.rebuild(version) : null;
+    }
+
+    // Returns null when either version is not in the journal of the stack
+    public StackDiff diff(String stack, long from, long to) {
+        StackConfiguration before = getVersion(stack, from);
+        StackConfiguration after = getVersion(stack, to);
+        if (before == null || after == null) {
+            return null;
+        }
+        return stackDiffService.diff(before, after);
+    }
+
+    // Returns null when the version is not in the journal of the stack
+    public StackSnapshot rollback(String stack, long version) {
+        StackConfiguration config = getVersion(stack, version);
+        if (config == null) {
+            return null;
+        }
+        StackSnapshot current = stackConfigService.getSnapshot(stack);
+        if (version == current.getVersion()) {
+            throw new IllegalStateException("La version " + version + " est déjà la configuration courante");
+        }
+        // Based on the version just read: a save in between makes the rollback fail rather than being undone
+        return stackConfigService.saveStackConfiguration(stack, config, current.getVersion());
+    }
+}
@@ -0,0 +1,153 @@
+package com.stetits.core.docker.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.model.RuleDefinition;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.model.ValidationResult;
+import com.stetits.core.docker.rules.RuleEvaluation;
+import com.stetits.core.docker.rules.RuleSet;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks stack configurations against the compatibility rules
+ * (catalog/rules.json, or {@code core.validation.rules-file}). The
+ * configuration page opens a session with its selection, then posts each
+ * toggle: the session keeps the outcome of every rule, so a toggle only
+ * evaluates the few rules that involve the toggled application.
+ */
+@Service
+public class StackValidationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StackValidationService.class);
+    private static final String DEFAULT_RULES = "catalog/rules.json";
+    private static final int MAX_SESSIONS = 1000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${core.validation.rules-file:}")
+    private String rulesFile;
+
+    @Value("${core.validation.session-idle-minutes:30}")
+    private long sessionIdleMinutes;
+
+    private List<RuleDefinition> definitions;
+    // Compiled at startup for each community named by a rule, "" for the others
+    private Map<String, RuleSet> ruleSets;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        try (InputStream in = rulesFile.isBlank() ? new ClassPathResource(DEFAULT_RULES).getInputStream() : Files.newInputStream(Path.of(rulesFile))) {
+            definitions = objectMapper.readValue(in, new TypeReference<List<RuleDefinition>>() {
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load stack rules", e);
+        }
+        // Fails at startup rather than on the first validation
+        Map<String, RuleSet> compiled = new HashMap<>();
+        definitions.stream().flatMap(definition -> definition.getCommunities().stream()).distinct()
+                .forEach(community -> compiled.put(community, RuleSet.compile(definitions, community)));
+        compiled.put("", RuleSet.compile(definitions, ""));
+        ruleSets = Map.copyOf(compiled);
+        log.info("Loaded {} stack rules from {}", definitions.size(), rulesFile.isBlank() ? DEFAULT_RULES : rulesFile);
+    }
+
+    /** One-off check of a whole configuration. */
+    public ValidationResult validate(StackConfiguration config) {
+        long start = System.nanoTime();
+        RuleEvaluation evaluation = new RuleEvaluation(getRuleSet(config.getCommunity()));
+        int evaluated = evaluation.apply(List.of(), StackConfigService.selectionsOf(config));
+        return result(null, config.getCommunity(), evaluation, evaluated, start);
+    }
+
+    public ValidationResult openSession(String community, List<String> selections) {
+        long start = System.nanoTime();
+        expireSessions();
+        Session session = new Session(UUID.randomUUID().toString(), community, new RuleEvaluation(getRuleSet(community)));
+        sessions.put(session.id, session);
+        synchronized (session) {
+            int evaluated = session.evaluation.apply(List.of(), selections);
+            return result(session.id, community, session.evaluation, evaluated, start);
+        }
+    }
+
+    /** Applies the changes since the previous request of the session; null when the session is unknown or expired. */
+    public ValidationResult update(String id, Collection<String> removed, Collection<String> added) {
+        long start = System.nanoTime();
+        Session session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            session.lastAccess = System.currentTimeMillis();
+            int evaluated = session.evaluation.apply(removed, added);
+            return result(session.id, session.community, session.evaluation, evaluated, start);
+        }
+    }
+
+    public void closeSession(String id) {
+        sessions.remove(id);
+    }
+
+    // No rule names the community: only the rules of every community apply
+    private RuleSet getRuleSet(String community) {
+        RuleSet ruleSet = community != null ? ruleSets.get(community) : null;
+        return ruleSet != null ? ruleSet : ruleSets.get("");
+    }
+
+    private void expireSessions() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(sessionIdleMinutes);
+        sessions.values().removeIf(session -> session.lastAccess < idleBefore);
+        if (sessions.size() >= MAX_SESSIONS) {
+            sessions.values().stream().min(Comparator.comparingLong(session -> session.lastAccess))
+                    .ifPresent(oldest -> sessions.remove(oldest.id));
+        }
+    }
+
+    private static ValidationResult result(String session, String community, RuleEvaluation evaluation, int evaluated, long start) {
+        ValidationResult result = new ValidationResult();
+        result.setSession(session);
+        result.setCommunity(community);
+        result.setApplicationCount(evaluation.getApplicationCount());
+        result.setEvaluatedRules(evaluated);
+        result.setViolations(evaluation.getViolations());
+        result.setErrorCount(evaluation.getErrorCount());
+        result.setWarningCount(evaluation.getViolations().size() - evaluation.getErrorCount());
+        result.setDurationMicros((System.nanoTime() - start) / 1_000);
+        return result;
+    }
+
+    private static final class Session {
+        private final String id;
+        private final String community;
+        private final RuleEvaluation evaluation;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Session(String id, String community, RuleEvaluation evaluation) {
+            this.id = id;
+            this.community = community;
+            this.evaluation = evaluation;
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.stetits.core.docker.storage;
+
+import com.stetits.core.docker.model.ArchiveCacheStatus;
+import com.stetits.core.docker.model.ArchiveIndexReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local copies of the application archives (~/.core/archives), stored under
+ * the SHA-256 of their content: archives with the same content, whatever their
+ * path or community, share one copy. An index remembers the digest of every
+ * archive file with its size and modification time, so an unchanged archive
+ * is not read again. Past {@code max-size-mb} the least recently used copies
+ * are deleted, except those a deployment is reading.
+ *
+ * Archives are hashed and copied in one streaming pass through a fixed
+ * buffer, by at most {@code hash-parallelism} threads at a time: memory does
+ * not grow with the size or the number of archives.
+ */
+public class ArchiveCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveCache.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String INDEX_FILE = "index.properties";
+    private static final String BLOB_DIR = "sha256";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public enum Outcome {
+        /** Unchanged since it was cached. */
+        HIT,
+        /** Copied into the cache. */
+        STORED,
+        /** Same content as another archive already cached. */
+        DEDUPLICATED,
+        /** Larger than the whole cache: read from its own file. */
+        UNCACHED
+    }
+
+    private final Path directory;
+    private final Path blobDirectory;
+    private final Path indexPath;
+    private final long maxBytes;
+    private final Semaphore hashPermits;
+    private final Timer ingestTimer;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Digest -> cached copy, least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Archive file -> digest, size and modification time when it was hashed
+    private final Map<String, Known> index = new HashMap<>();
+    private long totalBytes;
+    private final ReentrantLock indexWriteLock = new ReentrantLock();
+    // Archive files being hashed, so concurrent requests for one file read it once
+    private final Map<Path, CompletableFuture<Void>> ingesting = new ConcurrentHashMap<>();
+
+    public ArchiveCache(Path directory, long maxBytes, int hashParallelism, MeterRegistry meterRegistry) throws IOException {
+        this.directory = directory;
+        this.blobDirectory = directory.resolve(BLOB_DIR);
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.hashPermits = new Semaphore(Math.max(1, hashParallelism));
+        this.ingestTimer = FileMetrics.timer(meterRegistry, "archives", "write");
+        this.hits = FileMetrics.cacheCounter(meterRegistry, "archives", "hit");
+        this.misses = FileMetrics.cacheCounter(meterRegistry, "archives", "miss");
+        this.evictions = Counter.builder("core.archives.evictions")
+                .description("Archive copies deleted to stay under the cache size")
+                .register(meterRegistry);
+        open();
+    }
+
+    /**
+     * Resolves an archive file to its cached copy, copying it first when its
+     * content is not cached yet. The copy stays on disk until the lease is
+     * closed.
+     */
+    public Lease acquire(Path archive) throws IOException {
+        Path source = archive.toAbsolutePath().normalize();
+        while (true) {
+            FileStamp stamp = FileStamp.of(source);
+            if (!stamp.exists() || Files.isDirectory(source)) {
+                throw new NoSuchFileException(archive.toString(), null, "archive introuvable");
+            }
+            Lease lease = lookup(source, stamp);
+            if (lease != null) {
+                hits.increment();
+                return lease;
+            }
+            CompletableFuture<Void> ingested = new CompletableFuture<>();
+            CompletableFuture<Void> other = ingesting.putIfAbsent(source, ingested);
+            if (other != null) {
+                // Another thread is reading this file: look it up again once it is done
+                other.join();
+                continue;
+            }
+            try {
+                misses.increment();
+                return ingest(source, stamp);
+            } finally {
+                ingesting.remove(source, ingested);
+                ingested.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Hashes and caches every archive under a directory (.tar, .tar.gz, .tgz),
+     * so the first deployment finds them ready.
+     */
+    public ArchiveIndexReport index(Path root) throws IOException {
+        long start = System.nanoTime();
+        ArchiveIndexReport report = new ArchiveIndexReport();
+        report.setDirectory(root.toString());
+        List<Path> archives;
+        try (Stream<Path> files = Files.walk(root)) {
+            archives = files.filter(Files::isRegularFile).filter(ArchiveCache::isArchive).toList();
+        }
+        // One virtual thread per file; the hash permits bound how many actually read.
+        // The leases are closed at once: indexing does not keep anything from eviction
+        List<Future<Lease>> leases = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path archive : archives) {
+                leases.add(executor.submit(() -> {
+                    try (Lease lease = acquire(archive)) {
+                        return lease;
+                    }
+                }));
+            }
+            for (int i = 0; i < archives.size(); i++) {
+                try {
+                    Lease lease = leases.get(i).get();
+                    report.setFiles(report.getFiles() + 1);
+                    report.setBytes(report.getBytes() + lease.getSize());
+                    switch (lease.getOutcome()) {
+                        case HIT -> report.setAlreadyCached(report.getAlreadyCached() + 1);
+                        case STORED -> report.setStored(report.getStored() + 1);
+                        case DEDUPLICATED -> report.setDeduplicated(report.getDeduplicated() + 1);
+                        case UNCACHED -> report.setTooLarge(report.getTooLarge() + 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Archive indexing interrupted", e);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    report.getErrors().add(archives.get(i) + " : " + cause.getMessage());
+                }
+            }
+        }
+        report.setDurationMs((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    public ArchiveCacheStatus getStatus() {
+        ArchiveCacheStatus status = new ArchiveCacheStatus();
+        status.setMaxBytes(maxBytes);
+        status.setHits((long) hits.count());
+        status.setMisses((long) misses.count());
+        status.setEvictions((long) evictions.count());
+        lock.lock();
+        try {
+            status.setTotalBytes(totalBytes);
+            Map<String, ArchiveCacheStatus.Entry> byDigest = new HashMap<>();
+            for (Entry entry : entries.values()) {
+                ArchiveCacheStatus.Entry view = new ArchiveCacheStatus.Entry();
+                view.setDigest(entry.digest);
+                view.setSize(entry.size);
+                view.setLastAccess(entry.lastAccess);
+                status.getEntries().add(view);
+                byDigest.put(entry.digest, view);
+                if (entry.pins > 0) {
+                    status.setPinned(status.getPinned() + 1);
+                }
+            }
+            index.forEach((source, known) -> {
+                ArchiveCacheStatus.Entry view = byDigest.get(known.digest);
+                if (view != null) {
+                    view.getSources().add(source);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return status;
+    }
+
+    private Lease lookup(Path source, FileStamp stamp) {
+        lock.lock();
+        try {
+            Known known = index.get(source.toString());
+            if (known == null || known.size != stamp.getSize() || known.lastModified != stamp.getLastModified()) {
+                return null;
+            }
+            Entry entry = entries.get(known.digest);
+            if (entry != null) {
+                return pin(entry, Outcome.HIT);
+            }
+            // Hashed before but never copied: too large, its digest is all that is needed
+            return known.size > maxBytes ? new Lease(known.digest, source, known.size, Outcome.UNCACHED, null) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lease ingest(Path source, FileStamp stamp) throws IOException {
+        boolean cacheable = stamp.getSize() <= maxBytes;
+        Timer.Sample sample = Timer.start();
+        Path temp = null;
+        try {
+            String digest;
+            hashPermits.acquireUninterruptibly();
+            try {
+                if (cacheable) {
+                    Files.createDirectories(blobDirectory);
+                    temp = Files.createTempFile(blobDirectory, ".", TEMP_SUFFIX);
+                }
+                digest = hash(source, temp);
+            } finally {
+                hashPermits.release();
+            }
+            if (!FileStamp.of(source).equals(stamp)) {
+                throw new IOException("Archive " + source + " changed while being cached");
+            }
+            Lease lease;
+            lock.lock();
+            try {
+                index.put(source.toString(), new Known(digest, stamp.getSize(), stamp.getLastModified()));
+                if (!cacheable) {
+                    lease = new Lease(digest, source, stamp.getSize(), Outcome.UNCACHED, null);
+                } else {
+                    Entry entry = entries.get(digest);
+                    Outcome outcome = Outcome.DEDUPLICATED;
+                    if (entry == null) {
+                        Files.move(temp, blob(digest), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        entry = new Entry(digest, stamp.getSize(), System.currentTimeMillis());
+                        entries.put(digest, entry);
+                        totalBytes += entry.size;
+                        outcome = Outcome.STORED;
+                    }
+                    lease = pin(entry, outcome);
+                    evict();
+                }
+            } finally {
+                lock.unlock();
+            }
+            writeIndex();
+            return lease;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+            sample.stop(ingestTimer);
+        }
+    }
+
+    // Reads the archive once: every buffer goes to the digest, and to the copy when there is one
+    private static String hash(Path source, Path copy) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = copy != null ? FileChannel.open(copy, StandardOpenOption.WRITE) : null) {
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                sha256.update(buffer);
+                if (out != null) {
+                    buffer.rewind();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                buffer.clear();
+            }
+            if (out != null) {
+                // The file name vouches for the content: it must be on disk before the rename
+                out.force(true);
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    // Called with the lock held
+    private Lease pin(Entry entry, Outcome outcome) {
+        entry.pins++;
+        entry.lastAccess = System.currentTimeMillis();
+        Path blob = blob(entry.digest);
+        try {
+            // Keeps the eviction order across restarts
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(entry.lastAccess));
+        } catch (IOException e) {
+            log.debug("Cannot touch {}: {}", blob, e.getMessage());
+        }
+        return new Lease(entry.digest, blob, entry.size, outcome, entry);
+    }
+
+    private void release(Entry entry) {
+        boolean evicted;
+        lock.lock();
+        try {
+            entry.pins--;
+            evicted = evict();
+        } finally {
+            lock.unlock();
+        }
+        if (evicted) {
+            writeIndex();
+        }
+    }
+
+    // Called with the lock held; the archive files of the deleted copies leave the index
+    private boolean evict() {
+        Set<String> evicted = new HashSet<>();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (entry.pins > 0) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.size;
+            evictions.increment();
+            evicted.add(entry.digest);
+            try {
+                Files.deleteIfExists(blob(entry.digest));
+            } catch (IOException e) {
+                log.warn("Failed to delete cached archive {}: {}", entry.digest, e.getMessage());
+            }
+        }
+        index.values().removeIf(known -> evicted.contains(known.digest));
+        return !evicted.isEmpty();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(blobDirectory);
+        List<Entry> found = new ArrayList<>();
+        try (Stream<Path> blobs = Files.list(blobDirectory)) {
+            for (Path blob : (Iterable<Path>) blobs::iterator) {
+                String name = blob.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Copy interrupted by a stop
+                    Files.deleteIfExists(blob);
+                } else if (isDigest(name)) {
+                    found.add(new Entry(name, Files.size(blob), Files.getLastModifiedTime(blob).toMillis()));
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+        for (Entry entry : found) {
+            entries.put(entry.digest, entry);
+            totalBytes += entry.size;
+        }
+        if (Files.exists(indexPath)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(indexPath)) {
+                properties.load(in);
+                for (String source : properties.stringPropertyNames()) {
+                    Known known = Known.parse(properties.getProperty(source));
+                    // Copies deleted since, except archives too large to be copied at all
+                    if (known != null && (entries.containsKey(known.digest) || known.size > maxBytes)) {
+                        index.put(source, known);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Ignoring archive index {}: {}", indexPath, e.getMessage());
+            }
+        }
+        // The size limit may have been lowered since the last run
+        evict();
+        log.info("Archive cache {}: {} archives, {} MiB", directory, entries.size(), totalBytes / (1024 * 1024));
+    }
+
+    private void writeIndex() {
+        indexWriteLock.lock();
+        try {
+            Properties properties = new Properties();
+            lock.lock();
+            try {
+                index.forEach((source, known) -> properties.setProperty(source, known.format()));
+            } finally {
+                lock.unlock();
+            }
+            AtomicFiles.write(indexPath, out -> properties.store(out, "Archive file -> digest size lastModified"));
+        } catch (IOException e) {
+            // Only costs hashing the archives again after a restart
+            log.warn("Failed to write archive index {}: {}", indexPath, e.getMessage());
+        } finally {
+            indexWriteLock.unlock();
+        }
+    }
+
+    private Path blob(String digest) {
+        return blobDirectory.resolve(digest);
+    }
+
+    private static boolean isArchive(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    private static boolean isDigest(String name) {
+        return name.length() == 64 && name.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    /**
+     * An archive resolved to its content. The cached copy is kept until the
+     * lease is closed.
+     */
+    public final class Lease implements Closeable {
+        private final String digest;
+        private final Path path;
+        private final long size;
+        private final Outcome outcome;
+        private Entry entry;
+
+        private Lease(String digest, Path path, long size, Outcome outcome, Entry entry) {
+            this.digest = digest;
+            this.path = path;
+            this.size = size;
+            this.outcome = outcome;
+            this.entry = entry;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        /** File to read: the cached copy, or the archive itself when it is not cached. */
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                release(entry);
+                entry = null;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String digest;
+        private final long size;
+        private long lastAccess;
+        private int pins;
+
+        private Entry(String digest, long size, long lastAccess) {
+            this.digest = digest;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private record Known(String digest, long size, long lastModified) {
+
+        String format() {
+            return digest + " " + size + " " + lastModified;
+        }
+
+        static Known parse(String value) {
+            String[] parts = value.trim().split(" ");
+            if (parts.length != 3 || !isDigest(parts[0])) {
+                return null;
+            }
+            return new Known(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.stetits.core.docker.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Writes files through a temporary sibling followed by an atomic rename, so a
+ * concurrent reader sees either the previous content or the new one, never a
+ * truncated file.
+ */
+public final class AtomicFiles {
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    public static void write(Path target, ContentWriter writer) throws IOException {
+        write(target, writer, stamp -> {
+        });
+    }
+
+    /**
+     * Same, handing the stamp of the new content to {@code beforeMove} before
+     * it replaces the target (a rename keeps the time and size), so a watcher
+     * can recognise the write as soon as it becomes visible.
+     */
+    public static void write(Path target, ContentWriter writer, Consumer<FileStamp> beforeMove) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                writer.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            beforeMove.accept(FileStamp.of(temp));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
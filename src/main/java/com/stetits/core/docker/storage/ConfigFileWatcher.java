@@ -0,0 +1,174 @@
+package com.stetits.core.docker.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifies listeners when files under ~/.core change on disk. Relies on the
+ * WatchService, and falls back to an mtime/size check on every poll interval
+ * because change events are not always propagated on shared volumes.
+ */
+@Component
+public class ConfigFileWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigFileWatcher.class);
+    private static final long POLL_INTERVAL_MS = 2000;
+
+    private final Map<Path, Watched> watchedFiles = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public ConfigFileWatcher() {
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("WatchService unavailable, falling back to mtime polling: {}", e.getMessage());
+            service = null;
+        }
+        this.watchService = service;
+        this.thread = new Thread(this::run, "config-file-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Registers a callback invoked (on the watcher thread) whenever the file's
+     * stamp differs from the one last acknowledged through {@link #acknowledge}.
+     * A callback that throws is invoked again on the next check.
+     */
+    public void watch(Path file, Runnable onChange) {
+        watch(file, onChange, null);
+    }
+
+    /**
+     * Same, with a callback for the change events that needed no reload: the
+     * file is back at the stamp last acknowledged (a write of this process).
+     */
+    public void watch(Path file, Runnable onChange, Runnable onSkipped) {
+        Path absolute = file.toAbsolutePath();
+        watchedFiles.put(absolute, new Watched(onChange, onSkipped, FileStamp.of(absolute)));
+        Path directory = absolute.getParent();
+        if (watchService != null && watchedDirectories.add(directory)) {
+            try {
+                Files.createDirectories(directory);
+                directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                log.warn("Unable to watch {}, relying on polling: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Records a stamp written by this process so our own writes do not trigger
+     * a reload.
+     */
+    public void acknowledge(Path file, FileStamp stamp) {
+        Watched watched = watchedFiles.get(file.toAbsolutePath());
+        if (watched != null) {
+            watched.stamp = stamp;
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Set<Path> notified = new HashSet<>();
+                if (watchService != null) {
+                    WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        // The stamp comparison below decides what really changed
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (event.context() instanceof Path name && key.watchable() instanceof Path directory) {
+                                notified.add(directory.resolve(name));
+                            }
+                        }
+                        key.reset();
+                    }
+                } else {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                }
+                checkStamps(notified);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Config file watcher error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void checkStamps(Set<Path> notified) {
+        watchedFiles.forEach((path, watched) -> {
+            FileStamp current = FileStamp.of(path);
+            if (current.equals(watched.stamp)) {
+                if (watched.onSkipped != null && notified.contains(path)) {
+                    watched.onSkipped.run();
+                }
+            } else {
+                // Acknowledged only once reloaded, so a failed reload is tried again on the next check
+                FileStamp before = watched.stamp;
+                try {
+                    watched.onChange.run();
+                    if (watched.stamp == before) {
+                        watched.stamp = current;
+                    }
+                    watched.failing = false;
+                } catch (RuntimeException e) {
+                    if (!watched.failing) {
+                        log.warn("Failed to reload {}, retrying every {} ms: {}", path, POLL_INTERVAL_MS, e.getMessage());
+                    } else {
+                        log.debug("Failed to reload {}: {}", path, e.getMessage());
+                    }
+                    watched.failing = true;
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thread.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close watch service", e);
+            }
+        }
+    }
+
+    private static final class Watched {
+        private final Runnable onChange;
+        private final Runnable onSkipped;
+        private volatile FileStamp stamp;
+        // Only touched by the watcher thread
+        private boolean failing;
+
+        private Watched(Runnable onChange, Runnable onSkipped, FileStamp stamp) {
+            this.onChange = onChange;
+            this.onSkipped = onSkipped;
+            this.stamp = stamp;
+        }
+    }
+}
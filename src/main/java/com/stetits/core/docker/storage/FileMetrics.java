@@ -0,0 +1,32 @@
+package com.stetits.core.docker.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters shared by the classes that keep a configuration file in memory:
+ * core.file.io timers per file and operation, and cache.gets counters telling
+ * reads served from memory (hit) from reads that went to the file (miss).
+ */
+public final class FileMetrics {
+
+    private FileMetrics() {
+    }
+
+    public static Timer timer(MeterRegistry registry, String file, String operation) {
+        return Timer.builder("core.file.io")
+                .description("Reads and writes of the configuration files")
+                .tag("file", file)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    public static Counter cacheCounter(MeterRegistry registry, String cache, String result) {
+        return Counter.builder("cache.gets")
+                .description("Lookups of an in-memory cache")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.stetits.core.docker.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Cheap identity of a file on disk (modification time + size), used to detect
+ * changes made outside of this process without re-reading the content.
+ */
+public final class FileStamp {
+
+    public static final FileStamp MISSING = new FileStamp(false, -1L, -1L);
+
+    private final boolean exists;
+    private final long lastModified;
+    private final long size;
+
+    private FileStamp(boolean exists, long lastModified, long size) {
+        this.exists = exists;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    public static FileStamp of(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(true, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    public boolean exists() {
+        return exists;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileStamp other)) {
+            return false;
+        }
+        return exists == other.exists && lastModified == other.lastModified && size == other.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(lastModified) * 31 + Long.hashCode(size);
+    }
+}
@@ -0,0 +1,90 @@
+package com.stetits.core.docker.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Bits packed most significant first into a fixed {@code long[]}. The writer
+ * appends at the end; readers are created with their own cursor.
+ */
+final class BitStream {
+
+    private final long[] words;
+    private int size;
+
+    BitStream(int words) {
+        this.words = new long[words];
+    }
+
+    int capacity() {
+        return words.length * 64;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int bytes() {
+        return words.length * 8;
+    }
+
+    void clear() {
+        Arrays.fill(words, 0L);
+        size = 0;
+    }
+
+    void writeBit(boolean bit) {
+        if (bit) {
+            words[size >>> 6] |= 1L << (63 - (size & 63));
+        }
+        size++;
+    }
+
+    /** Appends the low {@code bits} bits of {@code value}. */
+    void write(long value, int bits) {
+        while (bits > 0) {
+            int offset = size & 63;
+            int count = Math.min(64 - offset, bits);
+            long part = (value >>> (bits - count)) & mask(count);
+            words[size >>> 6] |= part << (64 - offset - count);
+            size += count;
+            bits -= count;
+        }
+    }
+
+    Reader reader() {
+        return new Reader();
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    final class Reader {
+        private int position;
+
+        boolean readBit() {
+            boolean bit = (words[position >>> 6] & (1L << (63 - (position & 63)))) != 0;
+            position++;
+            return bit;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            while (bits > 0) {
+                int offset = position & 63;
+                int count = Math.min(64 - offset, bits);
+                long part = (words[position >>> 6] >>> (64 - offset - count)) & mask(count);
+                value = (value << count) | part;
+                position += count;
+                bits -= count;
+            }
+            return value;
+        }
+
+        /** Reads {@code bits} bits as a two's complement number. */
+        long readSigned(int bits) {
+            long value = read(bits);
+            return (value << (64 - bits)) >> (64 - bits);
+        }
+    }
+}
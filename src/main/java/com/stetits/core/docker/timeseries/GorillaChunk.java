@@ -0,0 +1,194 @@
+package com.stetits.core.docker.timeseries;
+
+/**
+ * Points of one series in a fixed-size bit stream, encoded as in Facebook's
+ * Gorilla: timestamps (seconds) as delta-of-delta, each value column as the
+ * XOR with the previous value of that column. Regular sampling costs one bit
+ * per timestamp, an unchanged value one bit. A chunk refuses a point once the
+ * worst-case encoding might not fit.
+ */
+final class GorillaChunk {
+
+    private static final int TIMESTAMP_WORST_BITS = 4 + 32;
+    private static final int VALUE_WORST_BITS = 2 + 5 + 6 + 64;
+
+    @FunctionalInterface
+    interface PointConsumer {
+        // The values array is reused between calls
+        void accept(long time, double[] values);
+    }
+
+    private final BitStream bits;
+    private final int columns;
+    private final long[] lastValues;
+    private final int[] lastLeading;
+    private final int[] lastTrailing;
+    private int count;
+    private long firstTime;
+    private long lastTime;
+    private long lastDelta;
+
+    GorillaChunk(int words, int columns) {
+        if (words * 64 < 64 * (1 + columns)) {
+            throw new IllegalArgumentException("Chunk too small for " + columns + " columns");
+        }
+        this.bits = new BitStream(words);
+        this.columns = columns;
+        this.lastValues = new long[columns];
+        this.lastLeading = new int[columns];
+        this.lastTrailing = new int[columns];
+    }
+
+    /** Points a chunk of this size holds even when every one takes its worst-case encoding. */
+    static int worstCasePoints(int words, int columns) {
+        return 1 + (words * 64 - 64 * (1 + columns)) / (TIMESTAMP_WORST_BITS + columns * VALUE_WORST_BITS);
+    }
+
+    void reset() {
+        bits.clear();
+        count = 0;
+        lastDelta = 0;
+    }
+
+    boolean append(long time, double[] values) {
+        if (count == 0) {
+            bits.write(time, 64);
+            for (int c = 0; c < columns; c++) {
+                lastValues[c] = Double.doubleToRawLongBits(values[c]);
+                lastLeading[c] = -1;
+                bits.write(lastValues[c], 64);
+            }
+            firstTime = lastTime = time;
+            count = 1;
+            return true;
+        }
+        long delta = time - lastTime;
+        long deltaOfDelta = delta - lastDelta;
+        if (bits.capacity() - bits.size() < TIMESTAMP_WORST_BITS + columns * VALUE_WORST_BITS
+                || delta <= 0 || deltaOfDelta < Integer.MIN_VALUE || deltaOfDelta > Integer.MAX_VALUE) {
+            return false;
+        }
+        writeTimestamp(deltaOfDelta);
+        for (int c = 0; c < columns; c++) {
+            writeValue(c, Double.doubleToRawLongBits(values[c]));
+        }
+        lastDelta = delta;
+        lastTime = time;
+        count++;
+        return true;
+    }
+
+    private void writeTimestamp(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            bits.writeBit(false);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+            bits.write(0b10, 2);
+            bits.write(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+            bits.write(0b110, 3);
+            bits.write(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+            bits.write(0b1110, 4);
+            bits.write(deltaOfDelta, 12);
+        } else {
+            bits.write(0b1111, 4);
+            bits.write(deltaOfDelta, 32);
+        }
+    }
+
+    private void writeValue(int column, long value) {
+        long xor = value ^ lastValues[column];
+        lastValues[column] = value;
+        if (xor == 0) {
+            bits.writeBit(false);
+            return;
+        }
+        bits.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading[column] >= 0 && leading >= lastLeading[column] && trailing >= lastTrailing[column]) {
+            // Fits in the previous window of meaningful bits
+            bits.writeBit(false);
+            bits.write(xor >>> lastTrailing[column], 64 - lastLeading[column] - lastTrailing[column]);
+            return;
+        }
+        int significant = 64 - leading - trailing;
+        bits.writeBit(true);
+        bits.write(leading, 5);
+        bits.write(significant - 1, 6);
+        bits.write(xor >>> trailing, significant);
+        lastLeading[column] = leading;
+        lastTrailing[column] = trailing;
+    }
+
+    void forEach(PointConsumer consumer) {
+        if (count == 0) {
+            return;
+        }
+        BitStream.Reader reader = bits.reader();
+        long time = reader.read(64);
+        long[] values = new long[columns];
+        int[] leading = new int[columns];
+        int[] trailing = new int[columns];
+        double[] decoded = new double[columns];
+        for (int c = 0; c < columns; c++) {
+            values[c] = reader.read(64);
+            decoded[c] = Double.longBitsToDouble(values[c]);
+        }
+        consumer.accept(time, decoded);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(reader);
+            time += delta;
+            for (int c = 0; c < columns; c++) {
+                if (reader.readBit()) {
+                    if (reader.readBit()) {
+                        leading[c] = (int) reader.read(5);
+                        int significant = (int) reader.read(6) + 1;
+                        trailing[c] = 64 - leading[c] - significant;
+                    }
+                    int significant = 64 - leading[c] - trailing[c];
+                    values[c] ^= reader.read(significant) << trailing[c];
+                }
+                decoded[c] = Double.longBitsToDouble(values[c]);
+            }
+            consumer.accept(time, decoded);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitStream.Reader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return reader.readSigned(7);
+        }
+        if (!reader.readBit()) {
+            return reader.readSigned(9);
+        }
+        if (!reader.readBit()) {
+            return reader.readSigned(12);
+        }
+        return reader.readSigned(32);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTime() {
+        return firstTime;
+    }
+
+    long getLastTime() {
+        return lastTime;
+    }
+
+    int getBytes() {
+        return bits.bytes();
+    }
+
+    int getUsedBits() {
+        return bits.size();
+    }
+}
@@ -0,0 +1,47 @@
+package com.stetits.core.docker.timeseries;
+
+import java.util.Locale;
+
+/**
+ * Metrics sampled per application. Values are stored as whole multiples of
+ * {@code 1 / scale} so that consecutive XORs keep few meaningful bits.
+ */
+public enum ResourceMetric {
+    CPU("%", 100),
+    MEMORY("bytes", 1),
+    NET_RX("bytes/s", 1),
+    NET_TX("bytes/s", 1);
+
+    private final String unit;
+    private final int scale;
+
+    ResourceMetric(String unit, int scale) {
+        this.unit = unit;
+        this.scale = scale;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    double encode(double value) {
+        return Math.round(value * scale);
+    }
+
+    double decode(double stored) {
+        return stored / scale;
+    }
+
+    public static ResourceMetric fromName(String name) {
+        for (ResourceMetric metric : values()) {
+            if (metric.getName().equalsIgnoreCase(name)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
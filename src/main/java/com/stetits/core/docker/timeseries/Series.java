@@ -0,0 +1,170 @@
+package com.stetits.core.docker.timeseries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One metric of one application: raw samples plus 1-minute and 10-minute
+ * rollups (average, maximum) fed as the raw samples arrive. Writes come from
+ * the sampler, reads from request threads; both lock the series.
+ */
+final class Series {
+
+    private final Tier[] tiers;
+    private final Bucket minute;
+    private final Bucket tenMinutes;
+    private final double[] sample = new double[1];
+    private long firstTime = Long.MAX_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+
+    Series(Tier raw, Tier minuteTier, Tier tenMinuteTier) {
+        this.tiers = new Tier[] {raw, minuteTier, tenMinuteTier};
+        this.minute = new Bucket(minuteTier);
+        this.tenMinutes = new Bucket(tenMinuteTier);
+    }
+
+    synchronized void record(long time, double value) {
+        if (time <= lastTime) {
+            return;
+        }
+        firstTime = Math.min(firstTime, time);
+        lastTime = time;
+        sample[0] = value;
+        tiers[0].append(time, sample);
+        minute.add(time, value);
+        tenMinutes.add(time, value);
+    }
+
+    synchronized long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Points between {@code from} and {@code to} (epoch seconds) aggregated per
+     * {@code step} seconds, read from the coarsest tier that is fine enough for
+     * the step and reaches back to {@code from} (or to the first sample). Points
+     * are [time, avg, max].
+     */
+    synchronized Result query(long from, long to, int step) {
+        long start = Math.max(from, firstTime);
+        Tier tier = null;
+        for (Tier candidate : tiers) {
+            if (candidate.getResolutionSeconds() <= step && candidate.getOldestTime() <= start) {
+                tier = candidate;
+            }
+        }
+        if (tier == null) {
+            // Nothing fine enough goes back that far: take the longest history
+            tier = tiers[0];
+            for (Tier candidate : tiers) {
+                if (candidate.getOldestTime() < tier.getOldestTime()) {
+                    tier = candidate;
+                }
+            }
+        }
+        int resolution = tier.getResolutionSeconds();
+        int effectiveStep = Math.max(1, (step + resolution - 1) / resolution) * resolution;
+        List<double[]> points = new ArrayList<>();
+        Aggregate aggregate = new Aggregate(points, effectiveStep);
+        tier.query(from, to, (time, values) -> aggregate.add(time, values[0], values[values.length - 1]));
+        aggregate.flush();
+        return new Result(resolution, effectiveStep, points);
+    }
+
+    // Some tier dropped samples before the end of its retention
+    synchronized boolean isTruncated() {
+        for (Tier tier : tiers) {
+            if (tier.isTruncated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized int getBytes() {
+        int bytes = 0;
+        for (Tier tier : tiers) {
+            bytes += tier.getBytes();
+        }
+        return bytes;
+    }
+
+    synchronized long getPoints() {
+        long points = 0;
+        for (Tier tier : tiers) {
+            points += tier.getPoints();
+        }
+        return points;
+    }
+
+    record Result(int resolutionSeconds, int stepSeconds, List<double[]> points) {
+    }
+
+    private static final class Bucket {
+        private final Tier tier;
+        private final double[] values = new double[2];
+        private long start = Long.MIN_VALUE;
+        private double sum;
+        private double max;
+        private int count;
+
+        Bucket(Tier tier) {
+            this.tier = tier;
+        }
+
+        void add(long time, double value) {
+            long bucketStart = time - Math.floorMod(time, tier.getResolutionSeconds());
+            if (count > 0 && bucketStart != start) {
+                // Stored values are whole numbers: keep the average one too
+                values[0] = Math.round(sum / count);
+                values[1] = max;
+                tier.append(start, values);
+                count = 0;
+            }
+            if (count == 0) {
+                start = bucketStart;
+                sum = 0;
+                max = value;
+            }
+            sum += value;
+            max = Math.max(max, value);
+            count++;
+        }
+    }
+
+    private static final class Aggregate {
+        private final List<double[]> points;
+        private final int step;
+        private long start = Long.MIN_VALUE;
+        private double sum;
+        private double max;
+        private int count;
+
+        Aggregate(List<double[]> points, int step) {
+            this.points = points;
+            this.step = step;
+        }
+
+        void add(long time, double average, double maximum) {
+            long bucketStart = time - Math.floorMod(time, step);
+            if (count > 0 && bucketStart != start) {
+                flush();
+            }
+            if (count == 0) {
+                start = bucketStart;
+                max = maximum;
+            }
+            sum += average;
+            max = Math.max(max, maximum);
+            count++;
+        }
+
+        void flush() {
+            if (count > 0) {
+                points.add(new double[] {start, sum / count, max});
+                sum = 0;
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.stetits.core.docker.timeseries;
+
+import java.util.ArrayDeque;
+
+/**
+ * One resolution of a series: a bounded ring of chunks. Memory never exceeds
+ * {@code maxChunks} chunks; chunks entirely older than the retention are
+ * dropped as time advances, and the oldest one is recycled when the ring is full.
+ * A recycled chunk still inside the retention marks the tier as truncated.
+ */
+final class Tier {
+
+    private final int resolutionSeconds;
+    private final long retentionSeconds;
+    private final int maxChunks;
+    private final int chunkWords;
+    private final int columns;
+    private final ArrayDeque<GorillaChunk> chunks = new ArrayDeque<>();
+    private boolean truncated;
+
+    Tier(int resolutionSeconds, long retentionSeconds, int maxChunks, int chunkWords, int columns) {
+        this.resolutionSeconds = resolutionSeconds;
+        this.retentionSeconds = retentionSeconds;
+        this.maxChunks = maxChunks;
+        this.chunkWords = chunkWords;
+        this.columns = columns;
+    }
+
+    void append(long time, double[] values) {
+        GorillaChunk current = chunks.peekLast();
+        if (current == null || !current.append(time, values)) {
+            if (chunks.size() >= maxChunks) {
+                current = chunks.pollFirst();
+                truncated |= current.getLastTime() >= time - retentionSeconds;
+                current.reset();
+            } else {
+                current = new GorillaChunk(chunkWords, columns);
+            }
+            chunks.addLast(current);
+            current.append(time, values);
+        }
+        while (chunks.size() > 1 && chunks.peekFirst().getLastTime() < time - retentionSeconds) {
+            chunks.pollFirst();
+        }
+    }
+
+    void query(long from, long to, GorillaChunk.PointConsumer consumer) {
+        for (GorillaChunk chunk : chunks) {
+            if (chunk.getLastTime() < from || chunk.getFirstTime() > to) {
+                continue;
+            }
+            chunk.forEach((time, values) -> {
+                if (time >= from && time <= to) {
+                    consumer.accept(time, values);
+                }
+            });
+        }
+    }
+
+    /** Oldest timestamp held, or {@link Long#MAX_VALUE} when empty. */
+    long getOldestTime() {
+        GorillaChunk oldest = chunks.peekFirst();
+        return oldest == null ? Long.MAX_VALUE : oldest.getFirstTime();
+    }
+
+    long getLatestTime() {
+        GorillaChunk latest = chunks.peekLast();
+        return latest == null ? Long.MIN_VALUE : latest.getLastTime();
+    }
+
+    int getResolutionSeconds() {
+        return resolutionSeconds;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    int getBytes() {
+        return chunks.size() * chunkWords * 8;
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    long getPoints() {
+        long points = 0;
+        for (GorillaChunk chunk : chunks) {
+            points += chunk.getCount();
+        }
+        return points;
+    }
+}
@@ -0,0 +1,162 @@
+package com.stetits.core.docker.timeseries;
+
+import com.stetits.core.docker.model.MetricRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of the resource metrics of the applications. Each series
+ * keeps raw samples and 1m/10m rollups in compressed chunks; the number of
+ * chunks per tier is capped, so a series never takes more than
+ * {@link #getMaxBytesPerSeries()} whatever its data, and the number of series
+ * is capped too. The raw tier gets enough chunks for its retention even when
+ * every sample takes its worst-case encoding; rollups that run out of chunks
+ * before their retention are reported as truncated.
+ */
+@Component
+public class TimeSeriesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeSeriesStore.class);
+    private static final int MINUTE = 60;
+    private static final int TEN_MINUTES = 600;
+    // Aggregated so that a range never returns more than this many points
+    private static final int MAX_POINTS = 1500;
+
+    @Value("${core.timeseries.chunk-size-bytes:2048}")
+    private int chunkSizeBytes;
+
+    @Value("${core.timeseries.sample-interval-ms:10000}")
+    private long sampleIntervalMs;
+
+    @Value("${core.timeseries.raw.retention-hours:24}")
+    private int rawRetentionHours;
+
+    @Value("${core.timeseries.minute.max-chunks:8}")
+    private int minuteMaxChunks;
+
+    @Value("${core.timeseries.minute.retention-days:7}")
+    private int minuteRetentionDays;
+
+    @Value("${core.timeseries.ten-minutes.max-chunks:4}")
+    private int tenMinutesMaxChunks;
+
+    @Value("${core.timeseries.ten-minutes.retention-days:30}")
+    private int tenMinutesRetentionDays;
+
+    @Value("${core.timeseries.max-series:2000}")
+    private int maxSeries;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private volatile boolean fullWarned;
+    private volatile boolean truncatedWarned;
+
+    /** Records a sample; {@code time} is in epoch seconds. */
+    public void record(String application, ResourceMetric metric, long time, double value) {
+        Series target = series.get(key(application, metric));
+        if (target == null) {
+            if (series.size() >= maxSeries) {
+                if (!fullWarned) {
+                    fullWarned = true;
+                    log.warn("Time series store full ({} series), new series are ignored", maxSeries);
+                }
+                return;
+            }
+            target = series.computeIfAbsent(key(application, metric), k -> newSeries());
+        }
+        target.record(time, metric.encode(value));
+        if (!truncatedWarned && target.isTruncated()) {
+            truncatedWarned = true;
+            log.warn("Time series {} of {} ran out of chunks before the end of its retention", metric.getName(), application);
+        }
+    }
+
+    /**
+     * Samples of a metric between two epoch millisecond instants (no points
+     * when nothing was recorded). {@code stepSeconds} of 0 picks a step that
+     * keeps the answer under {@value #MAX_POINTS} points.
+     */
+    public MetricRange query(String application, ResourceMetric metric, long from, long to, int stepSeconds) {
+        long fromSeconds = Math.floorDiv(from, 1000);
+        long toSeconds = Math.floorDiv(to, 1000);
+        int minStep = (int) Math.max(Math.max(1, sampleIntervalMs / 1000), (toSeconds - fromSeconds + MAX_POINTS - 1) / MAX_POINTS);
+        int step = Math.max(stepSeconds, minStep);
+        Series target = series.get(key(application, metric));
+        Series.Result result = target != null
+                ? target.query(fromSeconds, toSeconds, step)
+                : new Series.Result((int) Math.max(1, sampleIntervalMs / 1000), step, List.of());
+
+        List<double[]> points = new ArrayList<>(result.points().size());
+        for (double[] point : result.points()) {
+            points.add(new double[] {point[0] * 1000, metric.decode(point[1]), metric.decode(point[2])});
+        }
+        MetricRange range = new MetricRange();
+        range.setApplication(application);
+        range.setMetric(metric.getName());
+        range.setUnit(metric.getUnit());
+        range.setFrom(from);
+        range.setTo(to);
+        range.setResolutionSeconds(result.resolutionSeconds());
+        range.setStepSeconds(result.stepSeconds());
+        range.setPoints(points);
+        return range;
+    }
+
+    /** Drops the series of applications that got no sample since {@code time} (epoch seconds). */
+    public void removeStaleSince(long time) {
+        series.values().removeIf(s -> s.getLastTime() < time);
+    }
+
+    public Map<String, Object> getUsage() {
+        long bytes = 0;
+        long points = 0;
+        int truncated = 0;
+        for (Series s : series.values()) {
+            bytes += s.getBytes();
+            points += s.getPoints();
+            truncated += s.isTruncated() ? 1 : 0;
+        }
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("series", series.size());
+        usage.put("maxSeries", maxSeries);
+        usage.put("points", points);
+        usage.put("bytes", bytes);
+        usage.put("maxBytesPerSeries", getMaxBytesPerSeries());
+        usage.put("truncatedSeries", truncated);
+        return usage;
+    }
+
+    public int getMaxBytesPerSeries() {
+        return (rawMaxChunks() + minuteMaxChunks + tenMinutesMaxChunks) * chunkWords() * 8;
+    }
+
+    // Worst-case chunks for the samples of the raw retention, plus the one a chunk past it waits in
+    int rawMaxChunks() {
+        long samples = rawRetentionHours * 3600_000L / Math.max(1000, sampleIntervalMs) + 1;
+        int perChunk = GorillaChunk.worstCasePoints(chunkWords(), 1);
+        return (int) ((samples + perChunk - 1) / perChunk) + 1;
+    }
+
+    private Series newSeries() {
+        int rawResolution = (int) Math.max(1, sampleIntervalMs / 1000);
+        return new Series(
+                new Tier(rawResolution, rawRetentionHours * 3600L, rawMaxChunks(), chunkWords(), 1),
+                new Tier(MINUTE, minuteRetentionDays * 86400L, minuteMaxChunks, chunkWords(), 2),
+                new Tier(TEN_MINUTES, tenMinutesRetentionDays * 86400L, tenMinutesMaxChunks, chunkWords(), 2));
+    }
+
+    private int chunkWords() {
+        return Math.max(8, chunkSizeBytes / 8);
+    }
+
+    private static String key(String application, ResourceMetric metric) {
+        return application + "#" + metric.name();
+    }
+}
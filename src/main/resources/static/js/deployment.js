@@ -0,0 +1,82 @@
+// Starts an incremental deployment of the saved configuration and polls its report
+const POLL_INTERVAL_MS = 1000;
+
+async function deployStack() {
+    const button = document.getElementById('deployButton');
+    button.disabled = true;
+    try {
+        const response = await fetch('/api/deployments?mode=incremental', { method: 'POST' });
+        const body = await response.json();
+        if (!response.ok) {
+            alert(body.error || 'Erreur lors du déploiement');
+            button.disabled = false;
+            return;
+        }
+        renderDeployment(body);
+        pollDeployment(body.id);
+    } catch (e) {
+        console.error('Error starting deployment:', e);
+        button.disabled = false;
+    }
+}
+
+async function pollDeployment(id) {
+    const response = await fetch('/api/deployments/' + encodeURIComponent(id));
+    if (!response.ok) {
+        return;
+    }
+    const report = await response.json();
+    renderDeployment(report);
+    if (report.status === 'PENDING' || report.status === 'RUNNING') {
+        setTimeout(() => pollDeployment(id), POLL_INTERVAL_MS);
+    } else {
+        document.getElementById('deployButton').disabled = false;
+    }
+}
+
+function renderDeployment(report) {
+    document.getElementById('deploymentReport').style.display = 'block';
+    document.getElementById('deploymentStatus').textContent = report.status + ' · ' + report.durationMs + ' ms';
+    const rows = document.createDocumentFragment();
+    report.steps.forEach(step => {
+        const row = document.createElement('tr');
+        row.className = 'step-' + step.type + ' status-' + step.status.toLowerCase();
+        [step.id, step.status, step.startOffsetMs, step.durationMs, step.message || ''].forEach(value => {
+            const cell = document.createElement('td');
+            cell.textContent = value;
+            row.appendChild(cell);
+        });
+        rows.appendChild(row);
+    });
+    document.getElementById('deploymentSteps').replaceChildren(rows);
+    renderLoads(report.loads || []);
+}
+
+// One row per archive uploaded to the daemon, with the share already sent
+function renderLoads(loads) {
+    document.getElementById('deploymentLoadsCard').style.display = loads.length ? 'block' : 'none';
+    const rows = document.createDocumentFragment();
+    loads.forEach(load => {
+        const row = document.createElement('tr');
+        row.className = 'status-' + load.status.toLowerCase();
+        const progress = document.createElement('progress');
+        progress.max = load.size || 1;
+        progress.value = load.size ? load.sentBytes : 1;
+        const percent = load.size ? Math.floor(100 * load.sentBytes / load.size) : 100;
+        const sent = document.createElement('td');
+        sent.append(progress, ' ' + percent + ' %');
+        [load.host ? load.archive + ' → ' + load.host : load.archive, load.status].forEach(value => {
+            const cell = document.createElement('td');
+            cell.textContent = value;
+            row.appendChild(cell);
+        });
+        row.appendChild(sent);
+        [(load.size / 1048576).toFixed(1), load.status === 'SUCCEEDED' ? load.durationMs : ''].forEach(value => {
+            const cell = document.createElement('td');
+            cell.textContent = value;
+            row.appendChild(cell);
+        });
+        rows.appendChild(row);
+    });
+    document.getElementById('deploymentLoads').replaceChildren(rows);
+}
@@ -0,0 +1,60 @@
+// Application logs from /api/logs/stream: the server first sends the buffered
+// lines, then batches of new ones. Only the last MAX_LINES stay in the page.
+const MAX_LINES = 2000;
+
+let logSource = null;
+let droppedTotal = 0;
+
+function openLogs(appId) {
+    closeLogs();
+    droppedTotal = 0;
+    document.getElementById('logPanel').style.display = 'block';
+    document.getElementById('logTitle').textContent = 'Journaux · ' + appId;
+    document.getElementById('logDropped').style.display = 'none';
+    document.getElementById('logLines').replaceChildren();
+
+    logSource = new EventSource('/api/logs/stream?' + new URLSearchParams({ app: appId, lines: 200 }));
+    logSource.addEventListener('lines', event => appendLines(JSON.parse(event.data)));
+    logSource.addEventListener('dropped', event => {
+        // The server skipped lines because this page could not keep up
+        droppedTotal += Number(event.data);
+        const badge = document.getElementById('logDropped');
+        badge.textContent = droppedTotal + ' ligne(s) ignorée(s)';
+        badge.style.display = 'inline';
+    });
+    logSource.onerror = () => console.warn('Log stream interrupted, reconnecting');
+    document.getElementById('logPanel').scrollIntoView({ behavior: 'smooth' });
+}
+
+function closeLogs() {
+    if (logSource) {
+        logSource.close();
+        logSource = null;
+    }
+    document.getElementById('logPanel').style.display = 'none';
+}
+
+function appendLines(lines) {
+    const container = document.getElementById('logLines');
+    const atBottom = container.scrollTop + container.clientHeight >= container.scrollHeight - 4;
+    const fragment = document.createDocumentFragment();
+    lines.forEach(line => {
+        const element = document.createElement('div');
+        element.className = 'log-line log-' + line.stream;
+        element.textContent = new Date(line.time).toLocaleTimeString() + '  ' + line.text;
+        fragment.appendChild(element);
+    });
+    container.appendChild(fragment);
+    while (container.childElementCount > MAX_LINES) {
+        container.firstElementChild.remove();
+    }
+    if (atBottom) {
+        container.scrollTop = container.scrollHeight;
+    }
+}
+
+document.addEventListener('DOMContentLoaded', function() {
+    document.querySelectorAll('.app-card .btn-logs').forEach(button => {
+        button.addEventListener('click', () => openLogs(button.closest('.app-card').dataset.appId));
+    });
+});
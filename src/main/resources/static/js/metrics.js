@@ -0,0 +1,114 @@
+// Resource charts from /api/metrics/all: average line over the maximum band,
+// drawn as inline SVG and refreshed every sample interval while open.
+const REFRESH_MS = 10000;
+const CHART_WIDTH = 600;
+const CHART_HEIGHT = 120;
+const SVG_NS = 'http://www.w3.org/2000/svg';
+
+let metricsApp = null;
+let metricsRange = 3600000;
+let metricsTimer = null;
+
+function openMetrics(appId) {
+    metricsApp = appId;
+    document.getElementById('metricsPanel').style.display = 'block';
+    document.getElementById('metricsTitle').textContent = 'Ressources · ' + appId;
+    loadMetrics();
+    clearInterval(metricsTimer);
+    metricsTimer = setInterval(loadMetrics, REFRESH_MS);
+    document.getElementById('metricsPanel').scrollIntoView({ behavior: 'smooth' });
+}
+
+function closeMetrics() {
+    clearInterval(metricsTimer);
+    metricsTimer = null;
+    metricsApp = null;
+    document.getElementById('metricsPanel').style.display = 'none';
+}
+
+async function loadMetrics() {
+    const app = metricsApp;
+    const to = Date.now();
+    const params = new URLSearchParams({ app: app, from: to - metricsRange, to: to });
+    try {
+        const response = await fetch('/api/metrics/all?' + params, { headers: { 'Accept': 'application/json' } });
+        if (!response.ok) {
+            throw new Error('HTTP ' + response.status);
+        }
+        const ranges = await response.json();
+        if (app !== metricsApp) {
+            return;
+        }
+        document.querySelectorAll('#metricsPanel .metric-chart').forEach(chart => {
+            drawChart(chart.querySelector('svg'), ranges[chart.dataset.metric]);
+        });
+    } catch (e) {
+        console.error('Error loading metrics:', e);
+    }
+}
+
+function formatValue(value, unit) {
+    if (unit === '%') {
+        return value.toFixed(1) + ' %';
+    }
+    const suffix = unit === 'bytes/s' ? '/s' : '';
+    const units = ['o', 'Ko', 'Mo', 'Go', 'To'];
+    let i = 0;
+    while (value >= 1024 && i < units.length - 1) {
+        value /= 1024;
+        i++;
+    }
+    return value.toFixed(i === 0 ? 0 : 1) + ' ' + units[i] + suffix;
+}
+
+function drawChart(svg, range) {
+    svg.setAttribute('viewBox', '0 0 ' + CHART_WIDTH + ' ' + CHART_HEIGHT);
+    svg.setAttribute('preserveAspectRatio', 'none');
+    svg.replaceChildren();
+    const points = range ? range.points : [];
+    if (points.length === 0) {
+        const text = document.createElementNS(SVG_NS, 'text');
+        text.setAttribute('x', 8);
+        text.setAttribute('y', CHART_HEIGHT / 2);
+        text.textContent = 'Aucune donnée';
+        svg.appendChild(text);
+        return;
+    }
+    const top = Math.max(...points.map(point => point[2])) || 1;
+    const x = time => (time - range.from) / (range.to - range.from) * CHART_WIDTH;
+    const y = value => CHART_HEIGHT - value / top * (CHART_HEIGHT - 14);
+
+    const band = document.createElementNS(SVG_NS, 'polygon');
+    band.setAttribute('class', 'metric-max');
+    const upper = points.map(point => x(point[0]) + ',' + y(point[2]));
+    const lower = points.slice().reverse().map(point => x(point[0]) + ',' + y(point[1]));
+    band.setAttribute('points', upper.concat(lower).join(' '));
+    svg.appendChild(band);
+
+    const line = document.createElementNS(SVG_NS, 'polyline');
+    line.setAttribute('class', 'metric-avg');
+    line.setAttribute('vector-effect', 'non-scaling-stroke');
+    line.setAttribute('points', points.map(point => x(point[0]) + ',' + y(point[1])).join(' '));
+    svg.appendChild(line);
+
+    const label = document.createElementNS(SVG_NS, 'text');
+    label.setAttribute('x', 4);
+    label.setAttribute('y', 10);
+    label.textContent = 'max ' + formatValue(top, range.unit) + ' · dernier ' + formatValue(points[points.length - 1][1], range.unit);
+    svg.appendChild(label);
+}
+
+document.addEventListener('DOMContentLoaded', function() {
+    document.querySelectorAll('.app-card .btn-metrics').forEach(button => {
+        button.addEventListener('click', () => openMetrics(button.closest('.app-card').dataset.appId));
+    });
+    document.querySelectorAll('#metricsPanel .btn-range').forEach(button => {
+        button.addEventListener('click', () => {
+            document.querySelectorAll('#metricsPanel .btn-range').forEach(other => other.classList.toggle('active', other === button));
+            metricsRange = Number(button.dataset.range);
+            if (metricsApp) {
+                loadMetrics();
+            }
+        });
+    });
+});
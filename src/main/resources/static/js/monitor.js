@@ -0,0 +1,63 @@
+// Live container states pushed by /api/monitor/stream. The server sends a
+// snapshot on connect, then batched changes; EventSource reconnects by itself.
+const STATE_LABELS = {
+    running: 'En cours',
+    created: 'Créé',
+    restarting: 'Redémarrage',
+    paused: 'En pause',
+    exited: 'Arrêté',
+    dead: 'Mort',
+    removing: 'Suppression',
+    missing: 'Absent',
+    unknown: 'Inconnu'
+};
+
+const states = new Map();
+
+function applyStatus(status) {
+    states.set(status.id, status.state);
+    const card = document.querySelector(`.app-card[data-app-id="${CSS.escape(status.id)}"]`);
+    if (!card) {
+        return;
+    }
+    const badge = card.querySelector('.container-state');
+    badge.dataset.state = status.state;
+    badge.textContent = STATE_LABELS[status.state] || status.state;
+    let title = status.containerName || 'Aucun conteneur';
+    if (status.status) {
+        title += ' · ' + status.status;
+    }
+    if (status.version && status.version !== status.expectedVersion) {
+        title += ' · version déployée ' + status.version;
+        badge.dataset.outdated = 'true';
+    } else {
+        delete badge.dataset.outdated;
+    }
+    badge.title = title;
+}
+
+function refreshSummary() {
+    let running = 0;
+    states.forEach(state => {
+        if (state === 'running') {
+            running++;
+        }
+    });
+    document.getElementById('runningCount').textContent = running + ' / ' + states.size;
+}
+
+function connectMonitor() {
+    const source = new EventSource('/api/monitor/stream');
+    source.addEventListener('snapshot', event => {
+        states.clear();
+        JSON.parse(event.data).forEach(applyStatus);
+        refreshSummary();
+    });
+    source.addEventListener('status', event => {
+        JSON.parse(event.data).forEach(applyStatus);
+        refreshSummary();
+    });
+    source.onerror = () => console.warn('Monitor stream interrupted, reconnecting');
+}
+
+document.addEventListener('DOMContentLoaded', connectMonitor);
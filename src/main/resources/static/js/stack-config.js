@@ -1,194 +1,421 @@
+// Catalog tree loaded on demand from /api/catalog, one level at a time.
+// The selection lives in memory (not in the DOM), so toggling a node only
+// touches that node, its ancestors and its rendered descendants.
+
+const PAGE_SIZE = 50;
+const SEPARATOR = '|';
+
+let currentCommunity = 'fr';
+// Selected applications, as form values: platform|component|app|version:archiveFile
+const selected = new Set();
+// Node id -> number of selected applications below it
+const selectedCounts = new Map();
+// Node id -> number of applications below it (known once the node is rendered)
+const applicationTotals = new Map();
+// Node id -> rendered checkbox
+const checkboxes = new Map();
+// Node id -> severity of the worst rule it breaks
+let ruleMarks = new Map();
+
+// Node ids of the ancestors of an application selection: ['platform', 'platform|component']
+function ancestorIds(selection) {
+    const parts = selection.split(SEPARATOR);
+    return [parts[0], parts[0] + SEPARATOR + parts[1]];
+}
+
+function setSelected(selection, checked) {
+    if (checked === selected.has(selection)) {
+        return;
+    }
+    if (checked) {
+        selected.add(selection);
+    } else {
+        selected.delete(selection);
+    }
+    const delta = checked ? 1 : -1;
+    ancestorIds(selection).forEach(id => {
+        selectedCounts.set(id, (selectedCounts.get(id) || 0) + delta);
+    });
+    recordChange(selection, checked);
+}
+
+function refreshCheckbox(id) {
+    const checkbox = checkboxes.get(id);
+    if (!checkbox) {
+        return;
+    }
+    if (checkbox.classList.contains('application-checkbox')) {
+        checkbox.checked = selected.has(checkbox.value);
+        return;
+    }
+    const count = selectedCounts.get(id) || 0;
+    const total = applicationTotals.get(id) || 0;
+    checkbox.checked = total > 0 && count === total;
+    checkbox.indeterminate = count > 0 && count < total;
+}
+
+function refreshAncestors(id) {
+    const parts = id.split(SEPARATOR);
+    for (let i = parts.length - 1; i > 0; i--) {
+        refreshCheckbox(parts.slice(0, i).join(SEPARATOR));
+    }
+}
+
+async function fetchJson(url) {
+    // The API answers with an ETag and no-cache: the browser revalidates and reuses its copy on 304
+    const response = await fetch(url, { headers: { 'Accept': 'application/json' } });
+    if (!response.ok) {
+        throw new Error('HTTP ' + response.status + ' on ' + url);
+    }
+    return response.json();
+}
+
+function catalogUrl(resource, parentId, extra) {
+    const params = new URLSearchParams({ parent: parentId });
+    Object.entries(extra || {}).forEach(([key, value]) => params.set(key, value));
+    return '/api/catalog/' + encodeURIComponent(currentCommunity) + '/' + resource + '?' + params;
+}
+
+function createNode(node) {
+    const element = document.createElement('div');
+    element.className = 'tree-node ' + node.type + '-node';
+
+    const header = document.createElement('div');
+    header.className = 'node-header';
+
+    const expandIcon = document.createElement('span');
+    const isApplication = node.type === 'application';
+    expandIcon.className = isApplication ? 'expand-icon-placeholder' : 'expand-icon';
+    if (!isApplication) {
+        expandIcon.textContent = '▶';
+        header.addEventListener('click', event => toggleNode(event, element, node));
+    }
+    header.appendChild(expandIcon);
+
+    const checkbox = document.createElement('input');
+    checkbox.type = 'checkbox';
+    checkbox.className = 'node-checkbox ' + node.type + '-checkbox';
+    checkbox.id = 'node-' + currentCommunity + '-' + node.id;
+    if (isApplication) {
+        checkbox.value = node.selection;
+    }
+    checkbox.addEventListener('change', () => toggleChildren(checkbox, element, node));
+    header.appendChild(checkbox);
+
+    const label = document.createElement('label');
+    label.className = 'node-label';
+    label.htmlFor = checkbox.id;
+    label.innerHTML = '<span class="node-icon"></span><span class="node-text"></span><span class="node-badge"></span>';
+    label.querySelector('.node-icon').textContent = nodeIcon(node);
+    label.querySelector('.node-text').textContent = node.name;
+    const badge = label.querySelector('.node-badge');
+    if (isApplication) {
+        badge.textContent = 'Application';
+        badge.classList.add('app-badge');
+        const details = document.createElement('span');
+        details.className = 'app-details';
+        details.innerHTML = '<span class="version-tag"></span>';
+        details.firstChild.textContent = 'v' + node.version;
+        label.appendChild(details);
+    } else {
+        badge.textContent = node.type === 'platform' ? 'Plateforme' : 'Composant';
+    }
+    header.appendChild(label);
+    element.appendChild(header);
+
+    if (!isApplication) {
+        const children = document.createElement('div');
+        children.className = 'node-children';
+        element.appendChild(children);
+    }
+
+    applicationTotals.set(node.id, node.applicationCount);
+    checkboxes.set(node.id, checkbox);
+    refreshCheckbox(node.id);
+    markNode(node.id, ruleMarks.get(node.id));
+    return element;
+}
+
+function nodeIcon(node) {
+    if (node.type === 'platform') {
+        return '📦';
+    }
+    if (node.type === 'component') {
+        return node.name === 'ihm' ? '🖥️' : '🔄';
+    }
+    return '📄';
+}
+
+async function loadChildren(parentId, container, page) {
+    container.dataset.loaded = 'true';
+    const community = currentCommunity;
+    try {
+        const result = await fetchJson(catalogUrl('nodes', parentId, { page: page, size: PAGE_SIZE }));
+        if (community !== currentCommunity) {
+            return;
+        }
+        const fragment = document.createDocumentFragment();
+        result.items.forEach(node => fragment.appendChild(createNode(node)));
+        if (result.page + 1 < result.totalPages) {
+            const more = document.createElement('button');
+            more.type = 'button';
+            more.className = 'btn-secondary load-more';
+            more.textContent = 'Afficher plus (' + (result.totalItems - (result.page + 1) * result.size) + ' restants)';
+            more.addEventListener('click', () => {
+                more.remove();
+                loadChildren(parentId, container, result.page + 1);
+            });
+            fragment.appendChild(more);
+        }
+        container.appendChild(fragment);
+    } catch (e) {
+        container.dataset.loaded = '';
+        console.error('Error loading catalog:', e);
+    }
+}
+
+function expand(element, node) {
+    const children = element.querySelector(':scope > .node-children');
+    if (!children) {
+        return;
+    }
+    children.classList.add('expanded');
+    element.querySelector(':scope > .node-header > .expand-icon').classList.add('expanded');
+    if (!children.dataset.loaded) {
+        loadChildren(node.id, children, 0);
+    }
+}
+
 // Toggle node expansion
-function toggleNode(element) {
+function toggleNode(event, element, node) {
     // Don't toggle if clicking on checkbox or label
-    if (event.target.type === 'checkbox' || event.target.tagName === 'LABEL') {
+    if (event.target.type === 'checkbox' || event.target.closest('label')) {
         return;
     }
-    
-    const expandIcon = element.querySelector('.expand-icon');
-    const children = element.parentElement.querySelector('.node-children');
-    
-    if (expandIcon && children) {
-        expandIcon.classList.toggle('expanded');
-        children.classList.toggle('expanded');
-    }
-}
-
-// Toggle children checkboxes when parent is checked/unchecked
-function toggleChildren(checkbox) {
-    const nodeHeader = checkbox.closest('.node-header');
-    const nodeElement = nodeHeader.parentElement;
-    const childrenContainer = nodeElement.querySelector('.node-children');
-    
-    if (childrenContainer) {
-        // Expand children when checking parent
-        if (checkbox.checked) {
-            childrenContainer.classList.add('expanded');
-            const expandIcon = nodeHeader.querySelector('.expand-icon');
-            if (expandIcon) {
-                expandIcon.classList.add('expanded');
-            }
-        }
-        
-        // Check/uncheck all child checkboxes
-        const childCheckboxes = childrenContainer.querySelectorAll('.node-checkbox');
-        childCheckboxes.forEach(child => {
-            child.checked = checkbox.checked;
-            // Recursively toggle children
-            if (child.classList.contains('platform-checkbox') || 
-                child.classList.contains('component-checkbox')) {
-                toggleChildren(child);
-            }
-        });
+    const children = element.querySelector(':scope > .node-children');
+    if (children.classList.contains('expanded')) {
+        children.classList.remove('expanded');
+        element.querySelector(':scope > .node-header > .expand-icon').classList.remove('expanded');
+    } else {
+        expand(element, node);
     }
-    
-    // Update parent checkbox state
-    updateParentCheckbox(checkbox);
-}
-
-// Update parent checkbox based on children state
-function updateParentCheckbox(checkbox) {
-    const parentId = checkbox.dataset.parent;
-    if (parentId) {
-        const parentCheckbox = document.getElementById(parentId);
-        if (parentCheckbox) {
-            const parentNodeElement = parentCheckbox.closest('.node-header').parentElement;
-            const childrenContainer = parentNodeElement.querySelector('.node-children');
-            
-            if (childrenContainer) {
-                const childCheckboxes = Array.from(
-                    childrenContainer.querySelectorAll(':scope > .tree-node > .node-header > .node-checkbox')
-                );
-                
-                const allChecked = childCheckboxes.every(cb => cb.checked);
-                const someChecked = childCheckboxes.some(cb => cb.checked);
-                
-                parentCheckbox.checked = allChecked;
-                parentCheckbox.indeterminate = someChecked && !allChecked;
-            }
-        }
+}
+
+// Select or unselect a node and every application below it
+async function toggleChildren(checkbox, element, node) {
+    const checked = checkbox.checked;
+    if (node.type === 'application') {
+        setSelected(node.selection, checked);
+        refreshAncestors(node.id);
+        return;
+    }
+
+    if (checked) {
+        expand(element, node);
     }
+    try {
+        const selections = await fetchJson(catalogUrl('selections', node.id));
+        selections.forEach(selection => setSelected(selection, checked));
+    } catch (e) {
+        console.error('Error loading catalog:', e);
+    }
+    refreshCheckbox(node.id);
+    refreshAncestors(node.id);
+    const prefix = node.id + SEPARATOR;
+    checkboxes.forEach((_, id) => {
+        if (id.startsWith(prefix)) {
+            refreshCheckbox(id);
+        }
+    });
+}
+
+function clearSelection() {
+    selected.clear();
+    selectedCounts.clear();
+    resetValidation();
+}
+
+function renderTree() {
+    checkboxes.clear();
+    applicationTotals.clear();
+    const root = document.getElementById('tree-root');
+    root.replaceChildren();
+    loadChildren('', root, 0);
 }
 
 // Switch community (FR/BE)
 function switchCommunity(community) {
-    // Hide all trees
-    document.getElementById('tree-fr').style.display = 'none';
-    document.getElementById('tree-be').style.display = 'none';
-    
-    // Show selected tree
-    document.getElementById('tree-' + community).style.display = 'block';
-    
-    // Uncheck all checkboxes in hidden tree
-    const hiddenTree = community === 'fr' ? 'tree-be' : 'tree-fr';
-    const hiddenCheckboxes = document.querySelectorAll('#' + hiddenTree + ' .node-checkbox');
-    hiddenCheckboxes.forEach(cb => {
-        cb.checked = false;
-    });
+    if (community === currentCommunity) {
+        return;
+    }
+    currentCommunity = community;
+    clearSelection();
+    renderTree();
 }
 
 // Reset form
 function resetForm() {
-    // Reset community to FR
     document.querySelector('input[name="community"][value="fr"]').checked = true;
-    switchCommunity('fr');
-    
-    // Uncheck all checkboxes
-    document.querySelectorAll('.node-checkbox').forEach(cb => {
-        cb.checked = false;
-        cb.indeterminate = false;
-    });
-    
-    // Collapse all nodes
-    document.querySelectorAll('.node-children').forEach(children => {
-        children.classList.remove('expanded');
-    });
-    document.querySelectorAll('.expand-icon').forEach(icon => {
-        icon.classList.remove('expanded');
-    });
+    currentCommunity = 'fr';
+    clearSelection();
+    renderTree();
 }
 
-// Form validation
+// Form validation: the selected applications are posted as hidden inputs
 document.getElementById('stackForm').addEventListener('submit', function(e) {
-    const selectedApps = document.querySelectorAll('.application-checkbox:checked');
-    
-    if (selectedApps.length === 0) {
+    if (selected.size === 0) {
         e.preventDefault();
         alert('Veuillez sélectionner au moins une application');
         return false;
     }
+    this.querySelectorAll('input[type="hidden"][name="selections"]').forEach(input => input.remove());
+    const fragment = document.createDocumentFragment();
+    selected.forEach(selection => {
+        const input = document.createElement('input');
+        input.type = 'hidden';
+        input.name = 'selections';
+        input.value = selection;
+        fragment.appendChild(input);
+    });
+    this.appendChild(fragment);
 });
 
 // Load existing selections
 function loadExistingSelections(community, selections) {
-    if (!community || !selections || selections.length === 0) {
-        return;
-    }
-    
-    // Set community radio button
     const communityRadio = document.querySelector(`input[name="community"][value="${community}"]`);
     if (communityRadio) {
         communityRadio.checked = true;
-        switchCommunity(community);
+        currentCommunity = community;
     }
-    
-    // Check the corresponding checkboxes
     selections.forEach(selection => {
-        const checkbox = document.querySelector(`input[name="selections"][value="${selection}"]`);
-        if (checkbox) {
-            checkbox.checked = true;
-            
-            // Expand parent nodes and update their state
-            let currentElement = checkbox.closest('.tree-node');
-            while (currentElement) {
-                const nodeChildren = currentElement.querySelector('.node-children');
-                if (nodeChildren) {
-                    nodeChildren.classList.add('expanded');
-                    const expandIcon = currentElement.querySelector('.expand-icon');
-                    if (expandIcon) {
-                        expandIcon.classList.add('expanded');
-                    }
-                }
-                
-                // Update parent checkbox
-                const parentCheckbox = currentElement.querySelector(':scope > .node-header > .node-checkbox');
-                if (parentCheckbox && parentCheckbox.dataset.parent) {
-                    updateParentCheckbox(parentCheckbox);
-                }
-                
-                // Move to parent tree node
-                currentElement = currentElement.parentElement.closest('.tree-node');
-            }
+        if (selection.split(SEPARATOR).length === 4) {
+            setSelected(selection, true);
         }
     });
 }
 
-// Add change listeners to all application checkboxes to update parents
-document.addEventListener('DOMContentLoaded', function() {
-    document.querySelectorAll('.application-checkbox').forEach(checkbox => {
-        checkbox.addEventListener('change', function() {
-            updateParentCheckbox(this);
-        });
+// Compatibility rules. The server keeps a validation session with the outcome
+// of every rule; only the selections changed since the previous request are
+// sent, and only the rules involving them are evaluated again.
+let validationSession = null;
+const addedSinceValidation = new Set();
+const removedSinceValidation = new Set();
+let validationQueued = false;
+let validationChain = Promise.resolve();
+
+function recordChange(selection, checked) {
+    const [same, opposite] = checked
+        ? [addedSinceValidation, removedSinceValidation]
+        : [removedSinceValidation, addedSinceValidation];
+    if (!opposite.delete(selection)) {
+        same.add(selection);
+    }
+    scheduleValidation();
+}
+
+// The changes of one click (a whole component, say) go in a single request
+function scheduleValidation() {
+    if (validationQueued) {
+        return;
+    }
+    validationQueued = true;
+    validationChain = validationChain
+        .then(() => new Promise(resolve => setTimeout(resolve, 0)))
+        .then(() => {
+            validationQueued = false;
+            return sendValidation();
+        })
+        .catch(e => console.error('Error validating stack:', e));
+}
+
+function resetValidation() {
+    if (validationSession) {
+        fetch('/api/stack-config/validation/' + encodeURIComponent(validationSession), { method: 'DELETE' });
+    }
+    validationSession = null;
+    addedSinceValidation.clear();
+    removedSinceValidation.clear();
+    scheduleValidation();
+}
+
+async function sendValidation() {
+    const community = currentCommunity;
+    let url = '/api/stack-config/validation';
+    let body;
+    if (validationSession === null) {
+        body = { community: community, selections: Array.from(selected) };
+    } else {
+        url += '/' + encodeURIComponent(validationSession);
+        body = { added: Array.from(addedSinceValidation), removed: Array.from(removedSinceValidation) };
+    }
+    addedSinceValidation.clear();
+    removedSinceValidation.clear();
+    const response = await fetch(url, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json', 'Accept': 'application/json' },
+        body: JSON.stringify(body)
     });
-    
-    document.querySelectorAll('.component-checkbox').forEach(checkbox => {
-        checkbox.addEventListener('change', function() {
-            updateParentCheckbox(this);
+    if (response.status === 404 && validationSession !== null) {
+        // Expired on the server: start again from the whole selection
+        validationSession = null;
+        return sendValidation();
+    }
+    if (!response.ok) {
+        throw new Error('HTTP ' + response.status + ' on ' + url);
+    }
+    const result = await response.json();
+    if (community !== currentCommunity) {
+        return;
+    }
+    validationSession = result.session;
+    renderValidation(result);
+}
+
+function renderValidation(result) {
+    const panel = document.getElementById('validationPanel');
+    panel.style.display = result.violations.length ? 'block' : 'none';
+    document.getElementById('validationStatus').textContent =
+        result.errorCount + ' erreur(s), ' + result.warningCount + ' avertissement(s)';
+    const items = document.createDocumentFragment();
+    const marks = new Map();
+    result.violations.forEach(violation => {
+        const item = document.createElement('li');
+        item.className = 'rule-' + violation.severity;
+        item.textContent = violation.message;
+        items.appendChild(item);
+        violation.nodes.forEach(id => {
+            if (marks.get(id) !== 'error') {
+                marks.set(id, violation.severity);
+            }
         });
     });
-    
+    document.getElementById('validationMessages').replaceChildren(items);
+    ruleMarks.forEach((_, id) => markNode(id, null));
+    ruleMarks = marks;
+    ruleMarks.forEach((severity, id) => markNode(id, severity));
+}
+
+function markNode(id, severity) {
+    const checkbox = checkboxes.get(id);
+    if (!checkbox) {
+        return;
+    }
+    const header = checkbox.closest('.node-header');
+    header.classList.remove('rule-error', 'rule-warning');
+    if (severity) {
+        header.classList.add('rule-' + severity);
+    }
+}
+
+document.addEventListener('DOMContentLoaded', function() {
     // Load existing selections if available
     const existingCommunity = document.body.dataset.existingCommunity;
     const existingSelectionsStr = document.body.dataset.existingSelections;
     if (existingCommunity && existingSelectionsStr && existingSelectionsStr.trim() !== '') {
-        try {
-            // Split by comma to get array of selections
-            const existingSelections = existingSelectionsStr.split(',').map(s => s.trim()).filter(s => s !== '');
-            if (existingSelections.length > 0) {
-                loadExistingSelections(existingCommunity, existingSelections);
-            }
-        } catch (e) {
-            console.error('Error loading existing selections:', e);
-        }
+        // Split by comma to get array of selections
+        const existingSelections = existingSelectionsStr.split(',').map(s => s.trim()).filter(s => s !== '');
+        loadExistingSelections(existingCommunity, existingSelections);
     }
+    renderTree();
+    resetValidation();
 });
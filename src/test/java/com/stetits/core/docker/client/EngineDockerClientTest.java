@@ -0,0 +1,177 @@
+package com.stetits.core.docker.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Image loads against a stub daemon listening on a unix socket, which
+ * records every request body it receives.
+ */
+class EngineDockerClientTest {
+
+    private static final int MIB = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private final List<Upload> uploads = new CopyOnWriteArrayList<>();
+    private volatile String answer = "{\"stream\":\"Loaded image: app:1.0\\n\"}\n";
+    private DockerHttpClient http;
+
+    private record Upload(String requestLine, byte[] body) {
+    }
+
+    @BeforeEach
+    void startDaemon() throws IOException {
+        Path socket = directory.resolve("docker.sock");
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        acceptor = Thread.ofVirtual().start(() -> {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel connection = server.accept();
+                    Thread.ofVirtual().start(() -> serve(connection));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        http = new DockerHttpClient("unix://" + socket);
+    }
+
+    @AfterEach
+    void stopDaemon() throws IOException, InterruptedException {
+        server.close();
+        acceptor.join();
+    }
+
+    @Test
+    void reportsProgressAfterEachChunkAndSendsTheWholeArchive() throws IOException {
+        Path archive = archive("app.tar", 9 * MIB);
+        EngineDockerClient client = new EngineDockerClient(http, new ObjectMapper());
+        List<Long> progress = new ArrayList<>();
+
+        String image = client.loadImage(archive, progress::add);
+
+        assertThat(image).isEqualTo("app:1.0");
+        // Unlimited: one report per 4 MiB transfer, the last one at the full size
+        assertThat(progress).containsExactly(4L * MIB, 8L * MIB, 9L * MIB);
+        assertThat(uploads).hasSize(1);
+        assertThat(uploads.get(0).requestLine()).isEqualTo("POST /v1.41/images/load?quiet=1 HTTP/1.1");
+        assertThat(uploads.get(0).body()).isEqualTo(Files.readAllBytes(archive));
+    }
+
+    @Test
+    void capsTheUploadRate() throws IOException {
+        Path archive = archive("app.tar", MIB);
+        BandwidthLimiter limiter = new BandwidthLimiter(512 * 1024);
+        EngineDockerClient client = new EngineDockerClient(http, new ObjectMapper(), limiter);
+        List<Long> progress = new ArrayList<>();
+
+        long start = System.nanoTime();
+        client.loadImage(archive, progress::add);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 2 s at 512 KiB/s, less the 100 ms burst allowed after a pause and the slot of the last chunk
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(1700);
+        long chunk = limiter.chunkSize(Long.MAX_VALUE);
+        assertThat(progress).hasSize((int) ((MIB + chunk - 1) / chunk));
+        for (int i = 0; i < progress.size(); i++) {
+            assertThat(progress.get(i)).isEqualTo(Math.min((i + 1) * chunk, MIB));
+        }
+        assertThat(uploads.get(0).body()).isEqualTo(Files.readAllBytes(archive));
+    }
+
+    @Test
+    void sharesTheRateBetweenConcurrentUploads() throws Exception {
+        Path first = archive("first.tar", 512 * 1024);
+        Path second = archive("second.tar", 512 * 1024);
+        EngineDockerClient client = new EngineDockerClient(http, new ObjectMapper(), new BandwidthLimiter(512 * 1024));
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> one = executor.submit(() -> client.loadImage(first, sent -> {
+            }));
+            Future<String> two = executor.submit(() -> client.loadImage(second, sent -> {
+            }));
+            one.get();
+            two.get();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Together as slow as a single 1 MiB upload
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(1700);
+        assertThat(uploads).hasSize(2);
+    }
+
+    @Test
+    void failsOnAnErrorMessageOfTheDaemon() throws IOException {
+        answer = "{\"error\":\"archive/tar: invalid tar header\"}\n";
+        Path archive = archive("broken.tar", 1024);
+        EngineDockerClient client = new EngineDockerClient(http, new ObjectMapper());
+
+        assertThatThrownBy(() -> client.loadImage(archive, sent -> {
+        }))
+                .isInstanceOf(DockerClientException.class)
+                .hasMessageContaining("invalid tar header");
+    }
+
+    private Path archive(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return Files.write(directory.resolve(name), content);
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(connection));
+            String requestLine = DockerHttpClient.readLine(in);
+            long length = 0;
+            String header;
+            while (!(header = DockerHttpClient.readLine(in)).isEmpty()) {
+                if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                    length = Long.parseLong(header.substring("content-length:".length()).trim());
+                }
+            }
+            uploads.add(new Upload(requestLine, in.readNBytes((int) length)));
+            byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+            OutputStream out = Channels.newOutputStream(connection);
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            // The client gave up: nothing to answer
+        }
+    }
+}
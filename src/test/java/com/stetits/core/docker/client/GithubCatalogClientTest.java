@@ -0,0 +1,116 @@
+package com.stetits.core.docker.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GithubCatalogClientTest {
+
+    private static final byte[] CATALOG = "{\"communities\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private String url;
+    // Answer of the stand-in: status and response headers
+    private volatile int status;
+    private volatile Map<String, String> headers;
+    private final List<HttpExchange> requests = new CopyOnWriteArrayList<>();
+
+    private final GithubCatalogClient client = new GithubCatalogClient(Duration.ofSeconds(5));
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/catalog.json", exchange -> {
+            requests.add(exchange);
+            headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            if (status == 200) {
+                exchange.sendResponseHeaders(200, CATALOG.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(CATALOG);
+                }
+            } else {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/catalog.json";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesWithoutValidatorsAndReturnsTheNewOnes() throws IOException {
+        status = 200;
+        headers = Map.of("ETag", "\"v1\"", "Last-Modified", "Mon, 05 Oct 2026 10:00:00 GMT");
+
+        GithubCatalogClient.Response response = client.fetch(url, "user", "secret", null, null);
+
+        assertThat(response.isNotModified()).isFalse();
+        assertThat(response.body()).isEqualTo(CATALOG);
+        assertThat(response.etag()).isEqualTo("\"v1\"");
+        assertThat(response.lastModified()).isEqualTo("Mon, 05 Oct 2026 10:00:00 GMT");
+        HttpExchange request = requests.get(0);
+        assertThat(request.getRequestHeaders().containsKey("If-None-Match")).isFalse();
+        assertThat(request.getRequestHeaders().containsKey("If-Modified-Since")).isFalse();
+        assertThat(request.getRequestHeaders().getFirst("Accept")).isEqualTo("application/vnd.github.raw");
+        assertThat(request.getRequestHeaders().getFirst("Authorization"))
+                .isEqualTo("Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void notModifiedKeepsTheValidatorsItLeavesOut() throws IOException {
+        status = 304;
+        headers = Map.of();
+
+        GithubCatalogClient.Response response = client.fetch(url, "user", "secret", "\"v1\"", "Mon, 05 Oct 2026 10:00:00 GMT");
+
+        assertThat(response.isNotModified()).isTrue();
+        assertThat(response.etag()).isEqualTo("\"v1\"");
+        assertThat(response.lastModified()).isEqualTo("Mon, 05 Oct 2026 10:00:00 GMT");
+        HttpExchange request = requests.get(0);
+        assertThat(request.getRequestHeaders().getFirst("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(request.getRequestHeaders().getFirst("If-Modified-Since")).isEqualTo("Mon, 05 Oct 2026 10:00:00 GMT");
+    }
+
+    @Test
+    void newContentWithoutValidatorsDropsTheOldOnes() throws IOException {
+        status = 200;
+        headers = Map.of();
+
+        GithubCatalogClient.Response response = client.fetch(url, "user", "secret", "\"v1\"", "Mon, 05 Oct 2026 10:00:00 GMT");
+
+        assertThat(response.body()).isEqualTo(CATALOG);
+        assertThat(response.etag()).isNull();
+        assertThat(response.lastModified()).isNull();
+    }
+
+    @Test
+    void otherStatusesFail() {
+        status = 401;
+        headers = Map.of();
+
+        assertThatThrownBy(() -> client.fetch(url, "user", "wrong", null, null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("HTTP 401");
+    }
+}
@@ -0,0 +1,170 @@
+package com.stetits.core.docker.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stetits.core.docker.model.ImportReport;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.repository.StackConfigRepository;
+import com.stetits.core.docker.repository.StackSnapshot;
+import com.stetits.core.docker.repository.StackVersionConflictException;
+import com.stetits.core.docker.service.StackConfigService;
+import com.stetits.core.docker.service.StackValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports through the real service and rules, over a repository kept in
+ * memory: nothing is saved unless every line is accepted and no rule of
+ * severity error is broken.
+ */
+class StackImportControllerTest {
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryRepository repository = new InMemoryRepository();
+    private final StackImportController controller = new StackImportController();
+
+    @BeforeEach
+    void wire() throws IOException {
+        Path rules = Files.writeString(directory.resolve("rules.json"), """
+                [{"id": "api-requires-db", "type": "requires", "severity": "error",
+                  "application": "web|api|orders", "target": "db|sql|postgres"}]
+                """);
+        StackValidationService validation = new StackValidationService();
+        ReflectionTestUtils.setField(validation, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(validation, "rulesFile", rules.toString());
+        ReflectionTestUtils.invokeMethod(validation, "init");
+        StackConfigService service = new StackConfigService();
+        ReflectionTestUtils.setField(service, "stackConfigRepository", repository);
+        ReflectionTestUtils.setField(service, "stackValidationService", validation);
+        ReflectionTestUtils.setField(controller, "stackConfigService", service);
+    }
+
+    @Test
+    void validLinesAreSaved() throws IOException {
+        ResponseEntity<ImportReport> response = importLines("""
+                # exported stack
+                web|api|orders|1.0:/archives/orders.tar
+
+                db|sql|postgres|16:/archives/postgres.tar
+                """);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody().isSaved()).isTrue();
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(repository.saved).hasSize(1);
+    }
+
+    @Test
+    void anyRejectedLineRejectsTheWholeImportWithItsLineNumber() throws IOException {
+        ResponseEntity<ImportReport> response = importLines("""
+                db|sql|postgres|16:/archives/postgres.tar
+                web|api
+                # comment
+                web|api|orders|1.0:/archives/orders.tar
+                web|api|orders|1.1:/archives/orders-1.1.tar
+                """);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(422);
+        ImportReport report = response.getBody();
+        assertThat(report.isSaved()).isFalse();
+        assertThat(report.getReceived()).isEqualTo(4);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.LineError::getLine).containsExactly(2, 5);
+        assertThat(report.getErrors().get(1).getMessage()).startsWith("Application déjà sélectionnée");
+        assertThat(repository.saved).isEmpty();
+    }
+
+    @Test
+    void brokenRuleRejectsTheImportOnTheLineOfTheApplication() throws IOException {
+        ResponseEntity<ImportReport> response = importLines("""
+                web|ui|portal|1.0:/archives/portal.tar
+                web|api|orders|1.0:/archives/orders.tar
+                """);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(422);
+        ImportReport.LineError error = response.getBody().getErrors().get(0);
+        assertThat(error.getLine()).isEqualTo(2);
+        assertThat(error.getMessage()).startsWith("Règle api-requires-db");
+        assertThat(repository.saved).isEmpty();
+    }
+
+    @Test
+    void jsonElementsAreNumberedFromOne() throws IOException {
+        ResponseEntity<ImportReport> response = importJson("""
+                ["db|sql|postgres|16:/archives/postgres.tar", 42, "web|api|orders|1.0:C:/archives/orders.tar"]
+                """);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(422);
+        assertThat(response.getBody().getErrors()).extracting(ImportReport.LineError::getLine).containsExactly(2);
+        assertThat(response.getBody().getErrors().get(0).getContent()).isEqualTo("42");
+        assertThat(repository.saved).isEmpty();
+    }
+
+    @Test
+    void malformedJsonIsABadRequest() throws IOException {
+        ResponseEntity<ImportReport> truncated = importJson("[\"db|sql|postgres|16:/archives/postgres.tar\", ");
+        ResponseEntity<ImportReport> invalid = importJson("[\"db|sql|postgres|16:/a.tar\" \"web\"]");
+        ResponseEntity<ImportReport> notAnArray = importJson("{\"selections\": []}");
+
+        assertThat(truncated.getStatusCode().value()).isEqualTo(400);
+        assertThat(invalid.getStatusCode().value()).isEqualTo(400);
+        assertThat(invalid.getBody().getErrors().get(0).getMessage()).startsWith("JSON invalide ligne 1");
+        assertThat(notAnArray.getStatusCode().value()).isEqualTo(400);
+        assertThat(notAnArray.getBody().getErrors().get(0).getMessage()).isEqualTo("Un tableau JSON de sélections est attendu");
+        assertThat(repository.saved).isEmpty();
+    }
+
+    @Test
+    void staleExpectedVersionIsAConflict() throws IOException {
+        repository.version = 3;
+        MockHttpServletRequest request = request("db|sql|postgres|16:/archives/postgres.tar", "text/plain");
+
+        ResponseEntity<ImportReport> response = controller.importLines("demo", StackConfigRepository.DEFAULT_STACK, 2L, false, request);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(409);
+        assertThat(repository.saved).isEmpty();
+    }
+
+    private ResponseEntity<ImportReport> importLines(String body) throws IOException {
+        return controller.importLines("demo", StackConfigRepository.DEFAULT_STACK, null, false, request(body, "text/plain"));
+    }
+
+    private ResponseEntity<ImportReport> importJson(String body) throws IOException {
+        return controller.importJson("demo", StackConfigRepository.DEFAULT_STACK, null, false, request(body, "application/json"));
+    }
+
+    private static MockHttpServletRequest request(String body, String contentType) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/stack-config/import");
+        request.setContentType(contentType);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static class InMemoryRepository extends StackConfigRepository {
+        private final List<StackConfiguration> saved = new ArrayList<>();
+        private long version;
+
+        @Override
+        public StackSnapshot save(String name, StackConfiguration config, long expectedVersion) {
+            if (expectedVersion != ANY_VERSION && expectedVersion != version) {
+                throw new StackVersionConflictException(name, expectedVersion, version);
+            }
+            saved.add(config);
+            return new StackSnapshot(++version, config);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.stetits.core.docker.deploy;
+
+import com.stetits.core.docker.client.ContainerStats;
+import com.stetits.core.docker.client.ContainerSummary;
+import com.stetits.core.docker.client.DockerClient;
+import com.stetits.core.docker.model.DeploymentReport;
+import com.stetits.core.docker.model.StackConfiguration;
+import com.stetits.core.docker.storage.ArchiveCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deployments over fake hosts, which record the Docker calls they receive:
+ * where containers are created and where the ones left behind are removed.
+ */
+class DeploymentEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final FakeHost defaultHost = new FakeHost();
+    private final FakeHost first = new FakeHost();
+    private final FakeHost second = new FakeHost();
+    private ArchiveCache archiveCache;
+    private StackConfiguration config;
+    private String container;
+    private String legacy;
+
+    @BeforeEach
+    void createStack() throws IOException {
+        archiveCache = new ArchiveCache(directory.resolve("cache"), 1024 * 1024, 1, new SimpleMeterRegistry());
+        Path archive = Files.write(directory.resolve("app.tar"), new byte[]{1, 2, 3});
+        StackConfiguration.Component component = new StackConfiguration.Component("api");
+        component.getApplications().add(new StackConfiguration.Application("app", "1.0", archive.toString()));
+        StackConfiguration.Platform platform = new StackConfiguration.Platform("web");
+        platform.getComponents().add(component);
+        config = new StackConfiguration();
+        config.setCommunity("demo");
+        config.getPlatforms().add(platform);
+        container = DeploymentPlan.containerName("demo", "web", "api", "app");
+        legacy = DeploymentPlan.legacyContainerName("demo", "web", "api", "app");
+    }
+
+    @Test
+    void withoutPoolEverythingRunsOnTheDefaultHost() {
+        DeploymentReport report = execute(DeploymentPlan.of(config));
+
+        assertThat(report.getStatus()).isEqualTo(DeploymentReport.SUCCEEDED);
+        assertThat(defaultHost.calls).containsExactly("network", "load", "remove " + container, "remove " + legacy, "create " + container, "start");
+        assertThat(first.calls).isEmpty();
+    }
+
+    @Test
+    void firstDeploymentOnThePoolRemovesTheContainerOfTheDefaultHost() {
+        DeploymentPlan plan = DeploymentPlan.of(config);
+        plan.placeOn(Map.of("web|api|app", "first"), Map.of());
+
+        DeploymentReport report = execute(plan);
+
+        assertThat(report.getStatus()).isEqualTo(DeploymentReport.SUCCEEDED);
+        assertThat(defaultHost.calls).containsExactly("remove " + container, "remove " + legacy);
+        assertThat(first.calls).containsExactly("network", "load", "remove " + container, "remove " + legacy, "create " + container, "start");
+    }
+
+    @Test
+    void moveBetweenHostsOfThePoolLeavesTheDefaultHostAlone() {
+        DeploymentPlan plan = DeploymentPlan.of(config);
+        plan.placeOn(Map.of("web|api|app", "second"), Map.of("web|api|app", "first"));
+
+        DeploymentReport report = execute(plan);
+
+        assertThat(report.getStatus()).isEqualTo(DeploymentReport.SUCCEEDED);
+        assertThat(defaultHost.calls).isEmpty();
+        assertThat(first.calls).containsExactly("remove " + container, "remove " + legacy);
+        assertThat(second.calls).containsExactly("network", "load", "remove " + container, "remove " + legacy, "create " + container, "start");
+    }
+
+    private DeploymentReport execute(DeploymentPlan plan) {
+        Map<String, DockerClient> pool = Map.of("first", first, "second", second);
+        DeploymentReport report = new DeploymentReport();
+        new DeploymentEngine(defaultHost, pool::get, archiveCache, 4, 2).execute(plan, report);
+        return report;
+    }
+
+    private static class FakeHost implements DockerClient {
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String loadImage(Path archive, LongConsumer progress) {
+            calls.add("load");
+            return "app:1.0";
+        }
+
+        @Override
+        public void ensureNetwork(String name, Map<String, String> labels) {
+            calls.add("network");
+        }
+
+        @Override
+        public void removeContainer(String name) {
+            calls.add("remove " + name);
+        }
+
+        @Override
+        public String createContainer(String name, String image, String network, Map<String, String> labels) {
+            calls.add("create " + name);
+            return name;
+        }
+
+        @Override
+        public void startContainer(String id) {
+            calls.add("start");
+        }
+
+        @Override
+        public List<ContainerSummary> listContainers(List<String> labelFilters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public EventStream containerEvents(List<String> labelFilters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LogStream containerLogs(String container, int tail, Instant since) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContainerStats containerStats(String container) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
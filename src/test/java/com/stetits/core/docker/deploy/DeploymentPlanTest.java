@@ -0,0 +1,46 @@
+package com.stetits.core.docker.deploy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Docker names derived from the stack: distinct parts must give distinct
+ * names, and every name must be accepted by the daemon.
+ */
+class DeploymentPlanTest {
+
+    private static final String VALID_NAME = "[a-zA-Z0-9][a-zA-Z0-9_.-]*";
+
+    @Test
+    void separatorInsideAPartDoesNotCollide() {
+        String left = DeploymentPlan.containerName("demo", "web", "a-b", "c");
+        String right = DeploymentPlan.containerName("demo", "web", "a", "b-c");
+
+        assertThat(left).isNotEqualTo(right);
+        assertThat(left).startsWith("core-demo-web-a-b-c-");
+        assertThat(right).startsWith("core-demo-web-a-b-c-");
+    }
+
+    @Test
+    void replacedCharacterDoesNotCollide() {
+        String spaced = DeploymentPlan.containerName("demo", "web", "api", "my app");
+        String dashed = DeploymentPlan.containerName("demo", "web", "api", "my-app");
+
+        assertThat(spaced).isNotEqualTo(dashed).matches(VALID_NAME);
+        assertThat(dashed).matches(VALID_NAME);
+    }
+
+    @Test
+    void namesAreStable() {
+        assertThat(DeploymentPlan.containerName("demo", "web", "api", "app"))
+                .isEqualTo(DeploymentPlan.containerName("demo", "web", "api", "app"))
+                .matches(VALID_NAME);
+    }
+
+    @Test
+    void legacyNameIsThePlainJoinWhenNothingWasReplaced() {
+        assertThat(DeploymentPlan.legacyContainerName("demo", "web", "api", "app")).isEqualTo("core-demo-web-api-app");
+        assertThat(DeploymentPlan.legacyContainerName("demo", "web", "api", "my app")).startsWith("core-demo-web-api-my-app-");
+    }
+}
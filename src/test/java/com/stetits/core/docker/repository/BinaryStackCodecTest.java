@@ -0,0 +1,78 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Encoding and decoding of stack.bin: whole configurations, single platforms
+ * read through the index, and damaged files.
+ */
+class BinaryStackCodecTest {
+
+    @Test
+    void roundTripKeepsEveryNodeInOrder() {
+        StackConfiguration config = stack();
+
+        ByteBuffer encoded = ByteBuffer.wrap(BinaryStackCodec.encode(config, 42));
+
+        assertThat(BinaryStackCodec.readVersion(encoded)).isEqualTo(42);
+        assertThat(BinaryStackCodec.decode(encoded)).usingRecursiveComparison().isEqualTo(config);
+        assertThat(BinaryStackCodec.readPlatformNames(encoded)).containsExactly("web", "db");
+    }
+
+    @Test
+    void readPlatformDecodesOnlyThatPlatform() {
+        ByteBuffer encoded = ByteBuffer.wrap(BinaryStackCodec.encode(stack(), 1));
+
+        StackConfiguration.Platform db = BinaryStackCodec.readPlatform(encoded, "db");
+
+        assertThat(db).usingRecursiveComparison().isEqualTo(stack().getPlatforms().get(1));
+        assertThat(BinaryStackCodec.readPlatform(encoded, "cache")).isNull();
+    }
+
+    @Test
+    void stringCountPastTheEndOfTheFileIsRejected() {
+        byte[] bytes = BinaryStackCodec.encode(stack(), 1);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int tableStart = 24 + buffer.getInt(20) * 12;
+        buffer.putInt(tableStart, Integer.MAX_VALUE - 1);
+
+        assertThatThrownBy(() -> BinaryStackCodec.decode(buffer)).isInstanceOf(IllegalArgumentException.class);
+        buffer.putInt(tableStart, -5);
+        assertThatThrownBy(() -> BinaryStackCodec.readPlatform(buffer, "db")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void notAStackFileIsRejected() {
+        assertThatThrownBy(() -> BinaryStackCodec.decode(ByteBuffer.wrap(new byte[64])))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a stack configuration file");
+    }
+
+    private static StackConfiguration stack() {
+        StackConfiguration.Component api = new StackConfiguration.Component("api");
+        api.getApplications().add(new StackConfiguration.Application("orders", "1.2", "/archives/orders.tar"));
+        api.getApplications().add(new StackConfiguration.Application("billing", "2.0", "/archives/billing.tar"));
+        StackConfiguration.Component ui = new StackConfiguration.Component("ui");
+        ui.getApplications().add(new StackConfiguration.Application("portal", "1.2", "/archives/portal é.tar"));
+        StackConfiguration.Platform web = new StackConfiguration.Platform("web");
+        web.getComponents().add(api);
+        web.getComponents().add(ui);
+
+        StackConfiguration.Component sql = new StackConfiguration.Component("sql");
+        sql.getApplications().add(new StackConfiguration.Application("postgres", "16", "/archives/postgres.tar"));
+        StackConfiguration.Platform db = new StackConfiguration.Platform("db");
+        db.getComponents().add(sql);
+
+        StackConfiguration config = new StackConfiguration();
+        config.setCommunity("demo");
+        config.getPlatforms().add(web);
+        config.getPlatforms().add(db);
+        return config;
+    }
+}
@@ -0,0 +1,57 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.StackConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Legacy stack.conf files, as written by the properties format, and damaged
+ * counts that must not abort the migration with anything but an
+ * IllegalArgumentException.
+ */
+class PropertiesStackCodecTest {
+
+    @Test
+    void decodesTheLegacyLayout() {
+        Properties properties = new Properties();
+        properties.setProperty("stack.community", "demo");
+        properties.setProperty("stack.platformCount", "1");
+        properties.setProperty("stack.platform.0.name", "web");
+        properties.setProperty("stack.platform.0.componentCount", "1");
+        properties.setProperty("stack.platform.0.component.0.name", "api");
+        properties.setProperty("stack.platform.0.component.0.appCount", "1");
+        properties.setProperty("stack.platform.0.component.0.app.0.name", "orders");
+        properties.setProperty("stack.platform.0.component.0.app.0.version", "1.2");
+        properties.setProperty("stack.platform.0.component.0.app.0.archiveFile", "/archives/orders.tar");
+
+        StackConfiguration config = PropertiesStackCodec.decode(properties);
+
+        assertThat(config.getCommunity()).isEqualTo("demo");
+        StackConfiguration.Application app = config.getPlatforms().get(0).getComponents().get(0).getApplications().get(0);
+        assertThat(app.getName()).isEqualTo("orders");
+        assertThat(app.getVersion()).isEqualTo("1.2");
+        assertThat(app.getArchiveFile()).isEqualTo("/archives/orders.tar");
+    }
+
+    @Test
+    void malformedCountIsRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("stack.platformCount", "two");
+
+        assertThatThrownBy(() -> PropertiesStackCodec.decode(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stack.platformCount");
+    }
+
+    @Test
+    void countBeyondTheFileIsRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("stack.platformCount", "2000000000");
+
+        assertThatThrownBy(() -> PropertiesStackCodec.decode(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
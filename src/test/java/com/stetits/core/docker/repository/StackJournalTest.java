@@ -0,0 +1,204 @@
+package com.stetits.core.docker.repository;
+
+import com.stetits.core.docker.model.HistoryEntry;
+import com.stetits.core.docker.model.StackConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journal written to a temporary file: versions are rebuilt from deltas or
+ * snapshots, damaged or torn records are cut off, and compaction keeps
+ * every listed version rebuildable.
+ */
+class StackJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private StackJournal journal;
+
+    @AfterEach
+    void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void reorderedApplicationsAreJournaledAsASnapshot() {
+        journal = open(100, 1024);
+        journal.append(1, config("web/api/a:1", "web/api/b:1"));
+        StackConfiguration reordered = config("web/api/b:1", "web/api/a:1");
+
+        journal.append(2, reordered);
+
+        assertThat(journal.getEntries().get(0).isSnapshot()).isTrue();
+        assertSame(journal.rebuild(2), reordered);
+    }
+
+    @Test
+    void removedAndAddedNodesReplayFromADelta() {
+        journal = open(100, 1024);
+        StackConfiguration first = config("web/api/a:1", "web/api/b:1", "web/ui/c:1", "db/sql/d:1");
+        // ui and its application go, cache is a new platform between web and db, x is a new first application
+        StackConfiguration second = config("web/api/x:1", "web/api/a:1", "web/api/b:1", "cache/redis/r:1", "db/sql/d:2");
+        journal.append(1, first);
+
+        journal.append(2, second);
+
+        HistoryEntry entry = journal.getEntries().get(0);
+        assertThat(entry.isSnapshot()).isFalse();
+        assertThat(entry.getChangeCount()).isEqualTo(4);
+        assertSame(journal.rebuild(2), second);
+        assertSame(journal.rebuild(1), first);
+
+        journal.close();
+        journal = open(100, 1024);
+        assertSame(journal.rebuild(2), second);
+    }
+
+    @Test
+    void emptiedPlatformIsRemovedOnReplay() {
+        journal = open(100, 1024);
+        journal.append(1, config("web/api/a:1", "db/sql/d:1"));
+        StackConfiguration second = config("web/api/a:1");
+
+        journal.append(2, second);
+
+        assertThat(journal.getEntries().get(0).isSnapshot()).isFalse();
+        assertSame(journal.rebuild(2), second);
+    }
+
+    @Test
+    void corruptedRecordCutsTheHistoryFromIt() throws IOException {
+        journal = open(100, 1024);
+        journal.append(1, config("web/api/a:1"));
+        journal.append(2, config("web/api/a:2"));
+        long afterSecond = Files.size(journalPath());
+        journal.append(3, config("web/api/a:3"));
+        journal.append(4, config("web/api/a:4"));
+        journal.close();
+        // A byte of the version of record 3, past its length and CRC
+        flipByte(afterSecond + 8 + 2);
+
+        journal = open(100, 1024);
+
+        assertThat(journal.getLastVersion()).isEqualTo(2);
+        assertThat(journal.rebuild(3)).isNull();
+        assertThat(journal.rebuild(4)).isNull();
+        assertSame(journal.rebuild(2), config("web/api/a:2"));
+        assertThat(Files.size(journalPath())).isEqualTo(afterSecond);
+
+        journal.append(3, config("web/api/a:5"));
+        assertSame(journal.rebuild(3), config("web/api/a:5"));
+    }
+
+    @Test
+    void truncatedTailIsDropped() throws IOException {
+        journal = open(100, 1024);
+        journal.append(1, config("web/api/a:1"));
+        journal.append(2, config("web/api/a:2"));
+        long afterSecond = Files.size(journalPath());
+        journal.append(3, config("web/api/a:3"));
+        journal.close();
+        try (FileChannel channel = FileChannel.open(journalPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journalPath()) - 3);
+        }
+
+        journal = open(100, 1024);
+
+        assertThat(journal.getLastVersion()).isEqualTo(2);
+        assertThat(Files.size(journalPath())).isEqualTo(afterSecond);
+        assertSame(journal.rebuild(2), config("web/api/a:2"));
+
+        journal.append(3, config("web/api/a:6"));
+        assertSame(journal.rebuild(3), config("web/api/a:6"));
+    }
+
+    @Test
+    void compactionKeepsEveryListedVersionRebuildable() throws IOException {
+        journal = open(5, 4);
+        Map<Long, StackConfiguration> saved = new HashMap<>();
+        String[] applications = new String[12];
+        for (int i = 0; i < applications.length; i++) {
+            applications[i] = "web/api/app" + i + ":1";
+        }
+        for (long version = 1; version <= 300; version++) {
+            int changed = (int) (version % applications.length);
+            applications[changed] = "web/api/app" + changed + ":" + version;
+            StackConfiguration config = config(applications);
+            journal.append(version, config);
+            saved.put(version, config(applications));
+        }
+
+        List<HistoryEntry> entries = journal.getEntries();
+        assertThat(entries.size()).isLessThan(300);
+        assertThat(Files.size(journalPath())).isLessThanOrEqualTo(4 * 1024);
+        assertThat(entries.get(0).getVersion()).isEqualTo(300);
+        assertThat(entries.get(entries.size() - 1).isSnapshot()).isTrue();
+        for (HistoryEntry entry : entries) {
+            assertSame(journal.rebuild(entry.getVersion()), saved.get(entry.getVersion()));
+        }
+        assertThat(journal.rebuild(entries.get(entries.size() - 1).getVersion() - 1)).isNull();
+    }
+
+    private StackJournal open(int snapshotInterval, long maxSizeKb) {
+        return new StackJournal(journalPath(), snapshotInterval, 10, maxSizeKb, new SimpleMeterRegistry());
+    }
+
+    private Path journalPath() {
+        return directory.resolve("stack.journal");
+    }
+
+    private void flipByte(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    private static void assertSame(StackConfiguration actual, StackConfiguration expected) {
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    // Applications as platform/component/name:version, in order
+    private static StackConfiguration config(String... applications) {
+        StackConfiguration config = new StackConfiguration();
+        config.setCommunity("demo");
+        for (String spec : applications) {
+            String[] path = spec.substring(0, spec.indexOf(':')).split("/");
+            String version = spec.substring(spec.indexOf(':') + 1);
+            StackConfiguration.Platform platform = config.getPlatforms().stream()
+                    .filter(candidate -> candidate.getName().equals(path[0])).findFirst().orElse(null);
+            if (platform == null) {
+                platform = new StackConfiguration.Platform(path[0]);
+                config.getPlatforms().add(platform);
+            }
+            StackConfiguration.Component component = platform.getComponents().stream()
+                    .filter(candidate -> candidate.getName().equals(path[1])).findFirst().orElse(null);
+            if (component == null) {
+                component = new StackConfiguration.Component(path[1]);
+                platform.getComponents().add(component);
+            }
+            component.getApplications().add(new StackConfiguration.Application(path[2], version, "/archives/" + path[2] + ".tar"));
+        }
+        return config;
+    }
+}
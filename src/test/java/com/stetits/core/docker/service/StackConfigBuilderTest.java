@@ -0,0 +1,68 @@
+package com.stetits.core.docker.service;
+
+import com.stetits.core.docker.model.StackConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parsing of platform|component|app|version:archiveFile selections: rejected
+ * lines leave the configuration untouched.
+ */
+class StackConfigBuilderTest {
+
+    private final StackConfigBuilder builder = new StackConfigBuilder("demo");
+
+    @Test
+    void malformedSelectionsAreRejected() {
+        assertThat(builder.addSelection("")).isEqualTo("Sélection vide");
+        assertThat(builder.addSelection(null)).isEqualTo("Sélection vide");
+        assertThat(builder.addSelection("web|api|app")).startsWith("Format attendu");
+        assertThat(builder.addSelection("web|api|app|1.0:/a.tar|extra")).isEqualTo("Trop de séparateurs '|'");
+        assertThat(builder.addSelection("web||app|1.0:/a.tar")).isEqualTo("Plateforme, composant et application sont obligatoires");
+        assertThat(builder.addSelection("web|api|app|:/a.tar")).isEqualTo("Version manquante");
+
+        assertThat(builder.getApplicationCount()).isZero();
+        assertThat(builder.build().getPlatforms()).isEmpty();
+    }
+
+    @Test
+    void duplicateApplicationIsRejected() {
+        assertThat(builder.addSelection("web|api|app|1.0:/a.tar")).isNull();
+
+        assertThat(builder.addSelection("web|api|app|2.0:/b.tar")).isEqualTo("Application déjà sélectionnée : web/api/app");
+
+        assertThat(builder.getApplicationCount()).isEqualTo(1);
+        StackConfiguration.Application app = builder.build().getPlatforms().get(0).getComponents().get(0).getApplications().get(0);
+        assertThat(app.getVersion()).isEqualTo("1.0");
+        assertThat(app.getArchiveFile()).isEqualTo("/a.tar");
+    }
+
+    @Test
+    void archivePathKeepsItsColons() {
+        assertThat(builder.addSelection("web|api|app|1.0:C:\\archives\\app:v1.tar")).isNull();
+        assertThat(builder.addSelection("web|api|other|2.0")).isNull();
+
+        StackConfiguration.Component api = builder.build().getPlatforms().get(0).getComponents().get(0);
+        assertThat(api.getApplications().get(0).getVersion()).isEqualTo("1.0");
+        assertThat(api.getApplications().get(0).getArchiveFile()).isEqualTo("C:\\archives\\app:v1.tar");
+        assertThat(api.getApplications().get(1).getVersion()).isEqualTo("2.0");
+        assertThat(api.getApplications().get(1).getArchiveFile()).isEmpty();
+    }
+
+    @Test
+    void selectionsAreGroupedUnderTheirParentsInFirstSeenOrder() {
+        builder.addSelection("web|api|a|1:/a.tar");
+        builder.addSelection("db|sql|d|1:/d.tar");
+        builder.addSelection("web|ui|u|1:/u.tar");
+        builder.addSelection("web|api|b|1:/b.tar");
+
+        StackConfiguration config = builder.build();
+        assertThat(config.getCommunity()).isEqualTo("demo");
+        assertThat(config.getPlatforms()).extracting(StackConfiguration.Platform::getName).containsExactly("web", "db");
+        StackConfiguration.Platform web = config.getPlatforms().get(0);
+        assertThat(web.getComponents()).extracting(StackConfiguration.Component::getName).containsExactly("api", "ui");
+        assertThat(web.getComponents().get(0).getApplications()).extracting(StackConfiguration.Application::getName)
+                .containsExactly("a", "b");
+    }
+}
@@ -0,0 +1,81 @@
+package com.stetits.core.docker.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes of a watched file reach its callback until the callback succeeds;
+ * writes acknowledged by this process do not.
+ */
+class ConfigFileWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final ConfigFileWatcher watcher = new ConfigFileWatcher();
+
+    @AfterEach
+    void shutdown() {
+        watcher.shutdown();
+    }
+
+    @Test
+    void failedReloadIsRetried() throws Exception {
+        Path file = Files.writeString(directory.resolve("stack.bin"), "v1");
+        AtomicInteger calls = new AtomicInteger();
+        watcher.watch(file, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("File still being written");
+            }
+        });
+
+        write(file, "v2", stamp -> {
+        });
+
+        assertThat(waitFor(calls, 2)).isTrue();
+        // Reloaded: nothing more until the next change
+        Thread.sleep(2500);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void acknowledgedWriteIsNotReloaded() throws Exception {
+        Path file = Files.writeString(directory.resolve("stack.bin"), "v1");
+        AtomicInteger calls = new AtomicInteger();
+        watcher.watch(file, calls::incrementAndGet);
+
+        // Acknowledged before the move, as AtomicFiles does
+        write(file, "v2", stamp -> watcher.acknowledge(file, stamp));
+
+        Thread.sleep(2500);
+        assertThat(calls.get()).isZero();
+    }
+
+    // One change, with a later modification time than the first write whatever the resolution of the file system
+    private static void write(Path file, String content, Consumer<FileStamp> beforeMove) throws IOException {
+        Path temporary = Files.writeString(file.resolveSibling(file.getFileName() + ".tmp"), content);
+        Files.setLastModifiedTime(temporary, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        beforeMove.accept(FileStamp.of(temporary));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean waitFor(AtomicInteger calls, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (calls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        return calls.get() >= expected;
+    }
+}
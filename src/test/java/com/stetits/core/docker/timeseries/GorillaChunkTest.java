@@ -0,0 +1,73 @@
+package com.stetits.core.docker.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encoding of a chunk: every accepted point reads back exactly, and a chunk
+ * takes at least its worst-case number of points whatever the data.
+ */
+class GorillaChunkTest {
+
+    @Test
+    void pointsReadBackExactly() {
+        GorillaChunk chunk = new GorillaChunk(256, 2);
+        Random random = new Random(42);
+        List<long[]> written = new ArrayList<>();
+        long time = 1_700_000_000L;
+        double average = 512;
+        for (int i = 0; i < 200 && chunk.getCount() == i; i++) {
+            // Regular, jittered and long gaps, steady and jumping values
+            time += i % 50 == 49 ? 5000 : 10 + random.nextInt(3) - 1;
+            average = i % 3 == 0 ? average : Math.round(random.nextDouble() * (1L << 40));
+            double[] values = {average, -average / 4};
+            if (chunk.append(time, values)) {
+                written.add(new long[] {time, Double.doubleToRawLongBits(values[0]), Double.doubleToRawLongBits(values[1])});
+            }
+        }
+
+        List<long[]> read = new ArrayList<>();
+        chunk.forEach((t, values) -> read.add(new long[] {t, Double.doubleToRawLongBits(values[0]), Double.doubleToRawLongBits(values[1])}));
+
+        assertThat(written).hasSizeGreaterThan(10);
+        assertThat(read).hasSameSizeAs(written);
+        for (int i = 0; i < written.size(); i++) {
+            assertThat(read.get(i)).containsExactly(written.get(i));
+        }
+    }
+
+    @Test
+    void worstCaseNumberOfPointsAlwaysFits() {
+        GorillaChunk chunk = new GorillaChunk(256, 1);
+        Random random = new Random(7);
+        long time = 0;
+        int accepted = 0;
+        while (chunk.append(time, new double[] {Double.longBitsToDouble(random.nextLong())})) {
+            // Timestamps as irregular as the encoding allows
+            time += 1 + (accepted % 2 == 0 ? 0 : Integer.MAX_VALUE / 2);
+            accepted++;
+        }
+
+        assertThat(accepted).isGreaterThanOrEqualTo(GorillaChunk.worstCasePoints(256, 1));
+    }
+
+    @Test
+    void resetChunkStartsOver() {
+        GorillaChunk chunk = new GorillaChunk(16, 1);
+        chunk.append(100, new double[] {1});
+        chunk.append(110, new double[] {2});
+
+        chunk.reset();
+        chunk.append(500, new double[] {3});
+
+        List<Long> times = new ArrayList<>();
+        chunk.forEach((t, values) -> times.add(t));
+        assertThat(times).containsExactly(500L);
+        assertThat(chunk.getFirstTime()).isEqualTo(500);
+    }
+}
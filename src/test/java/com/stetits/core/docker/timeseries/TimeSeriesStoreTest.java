@@ -0,0 +1,82 @@
+package com.stetits.core.docker.timeseries;
+
+import com.stetits.core.docker.model.MetricRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Store configured with the defaults of application.properties: the raw tier
+ * keeps its whole retention, however noisy the samples.
+ */
+class TimeSeriesStoreTest {
+
+    private static final long START = 1_700_000_000L;
+    private static final int SAMPLES_PER_DAY = 8640;
+
+    private final TimeSeriesStore store = new TimeSeriesStore();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(store, "chunkSizeBytes", 2048);
+        ReflectionTestUtils.setField(store, "sampleIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(store, "rawRetentionHours", 24);
+        ReflectionTestUtils.setField(store, "minuteMaxChunks", 8);
+        ReflectionTestUtils.setField(store, "minuteRetentionDays", 7);
+        ReflectionTestUtils.setField(store, "tenMinutesMaxChunks", 4);
+        ReflectionTestUtils.setField(store, "tenMinutesRetentionDays", 30);
+        ReflectionTestUtils.setField(store, "maxSeries", 10);
+    }
+
+    @Test
+    void fullDayOfNoisySamplesIsRetained() {
+        Random random = new Random(1);
+        double[] recorded = new double[SAMPLES_PER_DAY];
+        for (int i = 0; i < SAMPLES_PER_DAY; i++) {
+            recorded[i] = Math.round(random.nextDouble() * (1L << 40));
+            store.record("web|api|app", ResourceMetric.MEMORY, START + i * 10L, recorded[i]);
+        }
+
+        // The first hour, at raw resolution, after a whole day of samples
+        MetricRange firstHour = store.query("web|api|app", ResourceMetric.MEMORY, START * 1000, (START + 3599) * 1000, 0);
+
+        assertThat(firstHour.getResolutionSeconds()).isEqualTo(10);
+        assertThat(firstHour.getPoints()).hasSize(360);
+        for (int i = 0; i < 360; i++) {
+            double[] point = firstHour.getPoints().get(i);
+            assertThat(point[0]).isEqualTo((START + i * 10L) * 1000.0);
+            assertThat(point[1]).isEqualTo(recorded[i]);
+        }
+        MetricRange day = store.query("web|api|app", ResourceMetric.MEMORY, START * 1000, (START + 86_399) * 1000, 0);
+        assertThat(day.getResolutionSeconds()).isEqualTo(10);
+        // Minute buckets aligned on the epoch: the first one starts before the first sample
+        assertThat(day.getPoints().get(0)[0]).isBetween((START - 59) * 1000.0, START * 1000.0);
+        assertThat(day.getPoints()).hasSizeBetween(1440, 1441);
+    }
+
+    @Test
+    void rawTierIsSizedFromIntervalAndRetention() {
+        int perChunk = GorillaChunk.worstCasePoints(256, 1);
+
+        assertThat((long) (store.rawMaxChunks() - 1) * perChunk).isGreaterThanOrEqualTo(SAMPLES_PER_DAY + 1);
+
+        ReflectionTestUtils.setField(store, "sampleIntervalMs", 60_000L);
+        assertThat(store.rawMaxChunks()).isLessThan(20);
+    }
+
+    @Test
+    void steadySeriesStaysSmall() {
+        for (int i = 0; i < SAMPLES_PER_DAY; i++) {
+            store.record("web|api|app", ResourceMetric.CPU, START + i * 10L, 12.5);
+        }
+
+        Map<String, Object> usage = store.getUsage();
+        assertThat((long) usage.get("bytes")).isLessThan(8 * 2048);
+        assertThat(usage.get("truncatedSeries")).isEqualTo(0);
+    }
+}
@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Measures the time from `docker run` to the first 200 on / for the standard
+# image (plain fat jar) and the fast-start image (AOT + AppCDS + lazy beans).
+# Usage: ./startup-time.sh [runs]    (default 5 runs per image, median reported)
+
+set -e
+
+RUNS=${1:-5}
+PORT=${PORT:-3999}
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+# Configured settings, so that / renders the dashboard instead of redirecting
+mkdir -p "$WORK_DIR/core"
+printf 'github.stet.username=startup\ngithub.stet.password=startup\n' > "$WORK_DIR/core/settings.conf"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+measure() {
+    local image=$1
+    local start container elapsed
+    start=$(now_ms)
+    container=$(docker run -d -p "$PORT:3000" -v "$WORK_DIR/core:/root/.core" "$image")
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/")" = "200" ]; do
+        if ! docker ps -q --no-trunc | grep -q "$container"; then
+            echo "Container of $image exited:" >&2
+            docker logs "$container" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    docker rm -f "$container" > /dev/null
+    echo "$elapsed"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+for target in standard fast-start; do
+    echo "=== Building core-monitor:$target ==="
+    docker build -q --target "$target" -t "core-monitor:$target" . > /dev/null
+    times=()
+    for i in $(seq 1 "$RUNS"); do
+        times+=("$(measure "core-monitor:$target")")
+        echo "  run $i: ${times[-1]} ms"
+    done
+    echo "  median: $(printf '%s\n' "${times[@]}" | median) ms"
+done